@@ -10,6 +10,7 @@ import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.MediaType;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.log4j.Logger;
 import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
 import org.json.JSONObject;
@@ -38,7 +39,7 @@ public class PingCallbackClient extends BaseClient<PingCallbackRequest, PingCall
     }
 
     public PingCallbackResponse exec() {
-        if (this.fapiCompatibility) {
+        if (this.fapiCompatibility && getExecutor() == null) {
             setExecutor(getApacheHttpClient4ExecutorForMTLS());
         }
         initClientRequest();
@@ -75,9 +76,16 @@ public class PingCallbackClient extends BaseClient<PingCallbackRequest, PingCall
      * Creates an executor responsible to process rest calls using special SSL context defined in FAPI-CIBA specs.
      */
     private ApacheHttpClient4Executor getApacheHttpClient4ExecutorForMTLS() {
+        return new ApacheHttpClient4Executor(createHttpClientForMTLS());
+    }
+
+    /**
+     * Creates http client with special SSL context defined in FAPI-CIBA specs. It can be shared between calls.
+     */
+    public static CloseableHttpClient createHttpClientForMTLS() {
         // Ciphers accepted by FAPI-CIBA specs and OpenJDK.
         String[] ciphers = new String[] { "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256", "TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384" };
-        return new ApacheHttpClient4Executor(ClientUtil.createHttpClient("TLSv1.2", ciphers));
+        return ClientUtil.createHttpClient("TLSv1.2", ciphers);
     }
 
 }
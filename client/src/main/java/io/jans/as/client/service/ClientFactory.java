@@ -75,9 +75,14 @@ public class ClientFactory {
     }
 
 	public ApacheHttpClient4Engine createEngine(int maxTotal, int defaultMaxPerRoute, String cookieSpec, boolean followRedirects) {
+	    return createEngine(maxTotal, defaultMaxPerRoute, cookieSpec, followRedirects, -1, -1);
+	}
+
+	public ApacheHttpClient4Engine createEngine(int maxTotal, int defaultMaxPerRoute, String cookieSpec, boolean followRedirects, int connectTimeoutInMillis, int socketTimeoutInMillis) {
 	    PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
 	    CloseableHttpClient httpClient = HttpClients.custom()
-				.setDefaultRequestConfig(RequestConfig.custom().setCookieSpec(cookieSpec).build())
+				.setDefaultRequestConfig(RequestConfig.custom().setCookieSpec(cookieSpec)
+						.setConnectTimeout(connectTimeoutInMillis).setSocketTimeout(socketTimeoutInMillis).build())
 	    		.setConnectionManager(cm).build();
 	    cm.setMaxTotal(maxTotal);
 	    cm.setDefaultMaxPerRoute(defaultMaxPerRoute);
@@ -27,9 +27,23 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.SerializationUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * Provides operations with users.
+ * <p>
+ * If {@link #getUserCacheLifetimeInSeconds()} is positive, loaded users are kept in local cache by dn (and dn is
+ * remembered by uid). Entries loaded with return attributes are cached per attribute set, entry loaded with all
+ * attributes serves any attribute set. Cache of user (and uid mapping to it) is dropped on
+ * {@link #updateUser(User)} and {@link #removeUser(User)}, code which merges user entry directly has to call
+ * {@link #invalidateCachedUser(String)}. Callers always get own copy of cached user.
  *
  * @author Javier Rojas Blum
  * @author Yuriy Movchan
@@ -51,6 +65,17 @@ public abstract class UserService {
     @Inject
     private InumService inumService;
 
+    private static final String ALL_ATTRIBUTES = "";
+
+    // dn -> (attribute set -> user)
+    private volatile Cache<String, ConcurrentMap<String, User>> userCache;
+    // lowercase uid -> dn
+    private volatile Cache<String, String> dnByUid;
+    // dn -> lowercase uids which were mapped to it, lets invalidation drop uid mappings without scan
+    private volatile Cache<String, Set<String>> uidsByDn;
+    private int currentUserCacheLifetime;
+    private int currentUserCacheMaxSize;
+
     /**
      * returns User by Dn
      *
@@ -61,7 +86,19 @@ public abstract class UserService {
         if (Util.isNullOrEmpty(dn)) {
             return null;
         }
-        return persistenceEntryManager.find(dn, User.class, returnAttributes);
+
+        if (!isUserCacheEnabled()) {
+            return persistenceEntryManager.find(dn, User.class, returnAttributes);
+        }
+
+        final User cached = getCachedUser(dn, returnAttributes);
+        if (cached != null) {
+            return cached;
+        }
+
+        final User user = persistenceEntryManager.find(dn, User.class, returnAttributes);
+        putCachedUser(user, null, returnAttributes);
+        return copy(user);
     }
 
 	public User getUserByInum(String inum, String... returnAttributes) {
@@ -93,10 +130,23 @@ public abstract class UserService {
 			userUidFilter = Filter.createEqualityFilter(Filter.createLowercaseFilter("uid"), StringHelper.toLowerCase(userId));
 		}
 
+		final boolean cacheEnabled = isUserCacheEnabled();
+		if (cacheEnabled) {
+			final String dn = dnByUid.getIfPresent(StringHelper.toLowerCase(userId));
+			final User cached = dn != null ? getCachedUser(dn, returnAttributes) : null;
+			if (cached != null && (cached.getUserId() == null || userId.equalsIgnoreCase(cached.getUserId()))) {
+				return cached;
+			}
+		}
+
 		List<User> entries = persistenceEntryManager.findEntries(peopleBaseDn, User.class, userUidFilter, returnAttributes);
 		log.debug("Found {} entries for user id = {}", entries.size(), userId);
 
 		if (entries.size() > 0) {
+			if (cacheEnabled) {
+				putCachedUser(entries.get(0), userId, returnAttributes);
+				return copy(entries.get(0));
+			}
 			return entries.get(0);
 		} else {
 			return null;
@@ -121,11 +171,19 @@ public abstract class UserService {
 
     public User updateUser(User user) {
         user.setUpdatedAt(new Date());
+        invalidateCachedUser(user.getDn());
 		persistenceEntryManager.merge(user);
+		invalidateCachedUser(user.getDn()); // entry could be loaded by other thread meanwhile
 
 		return getUserByDn(user.getDn());
 	}
 
+	public void removeUser(User user) {
+		invalidateCachedUser(user.getDn());
+		persistenceEntryManager.remove(user);
+		invalidateCachedUser(user.getDn());
+	}
+
     public User addDefaultUser(String uid) {
         String peopleBaseDN = getPeopleBaseDn();
 
@@ -571,6 +629,102 @@ public abstract class UserService {
 		return persistenceEntryManager.decodeTime(baseDn, date);
 	}
 
+	/**
+	 * @return lifetime of local user cache, zero or negative value turns cache off
+	 */
+	protected int getUserCacheLifetimeInSeconds() {
+		return 0;
+	}
+
+	protected int getUserCacheMaxSize() {
+		return 10000;
+	}
+
+	private boolean isUserCacheEnabled() {
+		final int lifetime = getUserCacheLifetimeInSeconds();
+		if (lifetime <= 0) {
+			return false;
+		}
+
+		final int maxSize = Math.max(1, getUserCacheMaxSize());
+		if (userCache == null || lifetime != currentUserCacheLifetime || maxSize != currentUserCacheMaxSize) {
+			synchronized (this) {
+				if (userCache == null || lifetime != currentUserCacheLifetime || maxSize != currentUserCacheMaxSize) {
+					dnByUid = CacheBuilder.newBuilder().expireAfterWrite(lifetime, TimeUnit.SECONDS).maximumSize(maxSize).build();
+					uidsByDn = CacheBuilder.newBuilder().expireAfterWrite(lifetime, TimeUnit.SECONDS).maximumSize(maxSize).build();
+					userCache = CacheBuilder.newBuilder().expireAfterWrite(lifetime, TimeUnit.SECONDS).maximumSize(maxSize).build();
+					currentUserCacheLifetime = lifetime;
+					currentUserCacheMaxSize = maxSize;
+				}
+			}
+		}
+		return true;
+	}
+
+	private User getCachedUser(String dn, String... returnAttributes) {
+		final ConcurrentMap<String, User> entries = userCache.getIfPresent(dn);
+		if (entries == null) {
+			return null;
+		}
+
+		User user = entries.get(ALL_ATTRIBUTES);
+		if (user == null && !ArrayHelper.isEmpty(returnAttributes)) {
+			user = entries.get(attributesKey(returnAttributes));
+		}
+		return copy(user);
+	}
+
+	private void putCachedUser(User user, String userId, String... returnAttributes) {
+		if (user == null || StringHelper.isEmpty(user.getDn())) {
+			return;
+		}
+
+		try {
+			userCache.get(user.getDn(), ConcurrentHashMap::new).put(attributesKey(returnAttributes), user);
+			final String uid = StringHelper.isNotEmpty(userId) ? userId : user.getUserId();
+			if (StringHelper.isNotEmpty(uid)) {
+				final String lowercaseUid = StringHelper.toLowerCase(uid);
+				uidsByDn.get(user.getDn(), ConcurrentHashMap::newKeySet).add(lowercaseUid);
+				dnByUid.put(lowercaseUid, user.getDn());
+			}
+		} catch (Exception e) {
+			log.trace("Failed to put user in cache", e);
+		}
+	}
+
+	public void invalidateCachedUser(String dn) {
+		final Cache<String, ConcurrentMap<String, User>> cache = userCache;
+		if (cache != null && StringHelper.isNotEmpty(dn)) {
+			cache.invalidate(dn);
+		}
+
+		// uid could be changed or released, drop uid mappings to this dn (unless uid was re-mapped to other dn)
+		final Cache<String, Set<String>> reverse = uidsByDn;
+		final Cache<String, String> uids = dnByUid;
+		if (reverse != null && uids != null && StringHelper.isNotEmpty(dn)) {
+			final Set<String> mapped = reverse.asMap().remove(dn);
+			if (mapped != null) {
+				for (String uid : mapped) {
+					uids.asMap().remove(uid, dn);
+				}
+			}
+		}
+	}
+
+	private static String attributesKey(String... returnAttributes) {
+		if (ArrayHelper.isEmpty(returnAttributes)) {
+			return ALL_ATTRIBUTES;
+		}
+
+		final String[] sorted = returnAttributes.clone();
+		Arrays.sort(sorted, String.CASE_INSENSITIVE_ORDER);
+		return StringHelper.toLowerCase(String.join(",", sorted));
+	}
+
+	private static User copy(User user) {
+		return user != null ? (User) SerializationUtils.clone(user) : null;
+	}
+
 	public abstract List<String> getPersonCustomObjectClassList();
 
 	public abstract String getPeopleBaseDn();
@@ -294,6 +294,79 @@ public class AppConfiguration implements Configuration {
     private Set<String> httpLoggingExludePaths; // Used in ServletLoggingFilter to exclude some paths from logger. Paths example: ["/jans-auth/img", "/jans-auth/stylesheet"]
     private String externalLoggerConfiguration; // Path to external log4j2 configuration file. This property might be configured from oxTrust: /identity/logviewer/configure
 
+    private Boolean tokenWriteBehindEnabled = false; // If true tokens are put in cache immediately and persisted asynchronously in batches
+    private int tokenWriteBehindQueueCapacity = 10000;
+    private int tokenWriteBehindBatchSize = 100;
+    private int tokenWriteBehindFlushIntervalInMillis = 500;
+
+    private int jwksCacheLifetimeInSeconds = 300; // Lifetime of client jwks_uri documents in local cache if not set by Cache-Control. Zero or negative value turns caching off
+    private int jwksCacheMinRefetchIntervalInSeconds = 10; // Min interval between refetches of jwks_uri triggered by unknown kid
+
+    private Boolean introspectionResponseCacheEnabled = false; // If true, built introspection responses are cached locally (keyed by token hash) and evicted on token removal
+    private int introspectionResponseCacheLifetimeInSeconds = 30;
+    private int introspectionResponseCacheMaxSize = 10000;
+
+    private Boolean statRollupEnabled = false; // If true, stat timer of one node (rollup lease holder) keeps pre-merged monthly rollup entry in ou=rollup,ou=stat branch and stat endpoint serves from rollups with content based ETag
+
+    private int clientAccessTimeFlushIntervalInSeconds = 60; // Interval of coalesced client jansLastAccessTime/jansLastLogonTime updates. Zero or negative value turns on synchronous update on each access
+
+    private int cleanServiceParallelism = 4; // Number of base DNs cleaned in parallel by cleaner timer
+    private int cleanServiceMaxBatchChunkSize = 10000; // Upper bound of adaptive cleaner batch size (lower bound is 10)
+    private int cleanServiceTargetBatchDurationInMillis = 1000; // Cleaner grows batch size while single removal call is faster than this value and shrinks it otherwise
+    private int cleanServiceMaxBranchDurationInSeconds = 20; // Time budget of one base DN per cleaner run, rest of backlog is cleaned in next run
+    private int cleanServicePartitionCount = 1; // Number of expiration time partitions (hourly windows, last one open ended) each base DN is split into
+    private Boolean cleanServiceClusterLockEnabled = false; // If true, cleaner takes lease in cache for each base DN partition so only one node cleans it at a time
+
+    private int backchannelLogoutThreadPoolSize = 10; // Number of threads delivering backchannel logout notifications
+    private int backchannelLogoutMaxConcurrencyPerHost = 5; // Max number of concurrent backchannel logout calls to the same RP host
+    private int backchannelLogoutMaxRetries = 3; // Number of retries of failed backchannel logout notification (5xx or I/O error), with exponential backoff
+    private int backchannelLogoutRetryInitialDelayInMillis = 1000;
+    private Boolean backchannelLogoutDeliveryStatusTrackingEnabled = false; // If true, delivery status of backchannel logout notifications is kept in memory for one hour
+
+    private int cibaNotificationThreadPoolSize = 10; // Number of threads sending CIBA callbacks (ping, push, push error, end-user notification)
+    private int cibaNotificationQueueCapacity = 1000; // Capacity of CIBA notification queue, when it is full notification is sent by calling thread
+    private int cibaNotificationMaxConcurrencyPerEndpoint = 5; // Max number of concurrent CIBA notifications to the same endpoint host
+    private int cibaNotificationMaxRetries = 2; // Number of retries of failed CIBA notification (5xx or I/O error), with jittered exponential backoff
+    private int cibaNotificationRetryInitialDelayInMillis = 500;
+
+    private int backchannelRequestsProcessorJobPartitionCount = 1; // Number of partitions (1-16, by first hex digit of auth_req_id) expired CIBA requests are split into
+    private Boolean backchannelRequestsProcessorJobClusterLockEnabled = false; // If true, processor takes lease in cache for each partition so nodes process disjoint partitions concurrently
+
+    private Boolean pairwiseIdCacheEnabled = false; // If true, persistent pairwise identifiers (and known pairwise branches) are cached locally by user, sector and client
+    private int pairwiseIdCacheLifetimeInSeconds = 3600;
+    private int pairwiseIdCacheMaxSize = 10000;
+    private int pairwiseIdNegativeCacheLifetimeInSeconds = 10; // Lifetime of "not found" entries, kept short because other node may create identifier meanwhile
+
+    private int remoteDocumentCacheMaxSize = 10000; // Max number of remote documents (jwks_uri, sector_identifier_uri, request_uri) kept in local cache
+    private int remoteDocumentStaleIfErrorInSeconds = 3600; // How long after expiration cached remote document is still served if refetch fails
+    private int requestUriCacheLifetimeInSeconds = 0; // Lifetime of request_uri documents in local cache. Zero turns caching off (concurrent fetches of the same uri are still coalesced)
+
+    private int userCacheLifetimeInSeconds = 0; // Lifetime of user entries in local cache (keyed by dn and uid). Zero turns cache off
+    private int userCacheMaxSize = 10000;
+
+    private int claimReleasePlanCacheLifetimeInSeconds = 60; // Lifetime of compiled scope-to-claims release plans (userinfo, id_token). Zero turns cache off
+    private int claimReleasePlanCacheMaxSize = 1000;
+
+    private Boolean tokenIndexEnabled = false; // If true session, grant and authorization code to token hashes index is kept in cache, logout and revocation add indexed tokens to search result (finds tokens not persisted yet by other nodes)
+
+    private Boolean endSessionAsyncTeardownEnabled = false; // If true end session response is returned right after cookies are cleared, sessions and tokens are removed in background. Weakens logout guarantee: background queue is in memory, if node crashes before removal is done session and its tokens stay valid until they expire
+    private int endSessionTeardownThreadPoolSize = 4; // Number of threads removing sessions and tokens of ended sessions
+    private int endSessionTeardownMaxRetries = 3; // Number of retries of failed removal, with exponential backoff
+    private int endSessionTeardownRetryInitialDelayInMillis = 1000;
+
+    private int discoveryResponseMaxAgeInSeconds = 300; // Cache-Control max-age of discovery and webfinger responses. Zero sends no-cache (clients still revalidate with ETag)
+
+    private int auditLogQueueCapacity = 10000; // Max number of audit events waiting to be sent. If queue is full event is written to log file
+    private int auditLogBatchSize = 100; // Max number of audit events sent to JMS broker in one transaction
+    private int auditLogFlushIntervalInMillis = 1000;
+    private String auditLogSpoolDirectory; // Directory where audit events are spooled when JMS broker is not available (replayed once it recovers). If not set events are written to log file
+    private int auditLogSpoolMaxSizeInMB = 100;
+
+    private Boolean externalScriptCircuitBreakerEnabled = false;
+    private int externalScriptTimeBudgetInMillis = 0; // Script call slower than budget counts as failure for circuit breaker, 0 - no budget
+    private int externalScriptCircuitBreakerFailureThreshold = 5;
+    private int externalScriptCircuitBreakerOpenIntervalInSeconds = 30;
+
     public Boolean getAllowIdTokenWithoutImplicitGrantType() {
         if (allowIdTokenWithoutImplicitGrantType == null) allowIdTokenWithoutImplicitGrantType = false;
         return allowIdTokenWithoutImplicitGrantType;
@@ -2295,4 +2368,454 @@ public class AppConfiguration implements Configuration {
     public void setMtlsDeviceAuthzEndpoint(String mtlsDeviceAuthzEndpoint) {
         this.mtlsDeviceAuthzEndpoint = mtlsDeviceAuthzEndpoint;
     }
-}
\ No newline at end of file
+
+    public Boolean getTokenWriteBehindEnabled() {
+        if (tokenWriteBehindEnabled == null) tokenWriteBehindEnabled = false;
+        return tokenWriteBehindEnabled;
+    }
+
+    public void setTokenWriteBehindEnabled(Boolean tokenWriteBehindEnabled) {
+        this.tokenWriteBehindEnabled = tokenWriteBehindEnabled;
+    }
+
+    public int getTokenWriteBehindQueueCapacity() {
+        return tokenWriteBehindQueueCapacity;
+    }
+
+    public void setTokenWriteBehindQueueCapacity(int tokenWriteBehindQueueCapacity) {
+        this.tokenWriteBehindQueueCapacity = tokenWriteBehindQueueCapacity;
+    }
+
+    public int getTokenWriteBehindBatchSize() {
+        return tokenWriteBehindBatchSize;
+    }
+
+    public void setTokenWriteBehindBatchSize(int tokenWriteBehindBatchSize) {
+        this.tokenWriteBehindBatchSize = tokenWriteBehindBatchSize;
+    }
+
+    public int getTokenWriteBehindFlushIntervalInMillis() {
+        return tokenWriteBehindFlushIntervalInMillis;
+    }
+
+    public void setTokenWriteBehindFlushIntervalInMillis(int tokenWriteBehindFlushIntervalInMillis) {
+        this.tokenWriteBehindFlushIntervalInMillis = tokenWriteBehindFlushIntervalInMillis;
+    }
+
+    public int getJwksCacheLifetimeInSeconds() {
+        return jwksCacheLifetimeInSeconds;
+    }
+
+    public void setJwksCacheLifetimeInSeconds(int jwksCacheLifetimeInSeconds) {
+        this.jwksCacheLifetimeInSeconds = jwksCacheLifetimeInSeconds;
+    }
+
+    public int getJwksCacheMinRefetchIntervalInSeconds() {
+        return jwksCacheMinRefetchIntervalInSeconds;
+    }
+
+    public void setJwksCacheMinRefetchIntervalInSeconds(int jwksCacheMinRefetchIntervalInSeconds) {
+        this.jwksCacheMinRefetchIntervalInSeconds = jwksCacheMinRefetchIntervalInSeconds;
+    }
+
+    public Boolean getIntrospectionResponseCacheEnabled() {
+        if (introspectionResponseCacheEnabled == null) introspectionResponseCacheEnabled = false;
+        return introspectionResponseCacheEnabled;
+    }
+
+    public void setIntrospectionResponseCacheEnabled(Boolean introspectionResponseCacheEnabled) {
+        this.introspectionResponseCacheEnabled = introspectionResponseCacheEnabled;
+    }
+
+    public int getIntrospectionResponseCacheLifetimeInSeconds() {
+        return introspectionResponseCacheLifetimeInSeconds;
+    }
+
+    public void setIntrospectionResponseCacheLifetimeInSeconds(int introspectionResponseCacheLifetimeInSeconds) {
+        this.introspectionResponseCacheLifetimeInSeconds = introspectionResponseCacheLifetimeInSeconds;
+    }
+
+    public int getIntrospectionResponseCacheMaxSize() {
+        return introspectionResponseCacheMaxSize;
+    }
+
+    public void setIntrospectionResponseCacheMaxSize(int introspectionResponseCacheMaxSize) {
+        this.introspectionResponseCacheMaxSize = introspectionResponseCacheMaxSize;
+    }
+
+    public Boolean getStatRollupEnabled() {
+        if (statRollupEnabled == null) statRollupEnabled = false;
+        return statRollupEnabled;
+    }
+
+    public void setStatRollupEnabled(Boolean statRollupEnabled) {
+        this.statRollupEnabled = statRollupEnabled;
+    }
+
+    public int getClientAccessTimeFlushIntervalInSeconds() {
+        return clientAccessTimeFlushIntervalInSeconds;
+    }
+
+    public void setClientAccessTimeFlushIntervalInSeconds(int clientAccessTimeFlushIntervalInSeconds) {
+        this.clientAccessTimeFlushIntervalInSeconds = clientAccessTimeFlushIntervalInSeconds;
+    }
+
+    public int getCleanServiceParallelism() {
+        return cleanServiceParallelism;
+    }
+
+    public void setCleanServiceParallelism(int cleanServiceParallelism) {
+        this.cleanServiceParallelism = cleanServiceParallelism;
+    }
+
+    public int getCleanServiceMaxBatchChunkSize() {
+        return cleanServiceMaxBatchChunkSize;
+    }
+
+    public void setCleanServiceMaxBatchChunkSize(int cleanServiceMaxBatchChunkSize) {
+        this.cleanServiceMaxBatchChunkSize = cleanServiceMaxBatchChunkSize;
+    }
+
+    public int getCleanServiceTargetBatchDurationInMillis() {
+        return cleanServiceTargetBatchDurationInMillis;
+    }
+
+    public void setCleanServiceTargetBatchDurationInMillis(int cleanServiceTargetBatchDurationInMillis) {
+        this.cleanServiceTargetBatchDurationInMillis = cleanServiceTargetBatchDurationInMillis;
+    }
+
+    public int getCleanServiceMaxBranchDurationInSeconds() {
+        return cleanServiceMaxBranchDurationInSeconds;
+    }
+
+    public void setCleanServiceMaxBranchDurationInSeconds(int cleanServiceMaxBranchDurationInSeconds) {
+        this.cleanServiceMaxBranchDurationInSeconds = cleanServiceMaxBranchDurationInSeconds;
+    }
+
+    public int getCleanServicePartitionCount() {
+        return cleanServicePartitionCount;
+    }
+
+    public void setCleanServicePartitionCount(int cleanServicePartitionCount) {
+        this.cleanServicePartitionCount = cleanServicePartitionCount;
+    }
+
+    public Boolean getCleanServiceClusterLockEnabled() {
+        if (cleanServiceClusterLockEnabled == null) cleanServiceClusterLockEnabled = false;
+        return cleanServiceClusterLockEnabled;
+    }
+
+    public void setCleanServiceClusterLockEnabled(Boolean cleanServiceClusterLockEnabled) {
+        this.cleanServiceClusterLockEnabled = cleanServiceClusterLockEnabled;
+    }
+
+    public int getBackchannelLogoutThreadPoolSize() {
+        return backchannelLogoutThreadPoolSize;
+    }
+
+    public void setBackchannelLogoutThreadPoolSize(int backchannelLogoutThreadPoolSize) {
+        this.backchannelLogoutThreadPoolSize = backchannelLogoutThreadPoolSize;
+    }
+
+    public int getBackchannelLogoutMaxConcurrencyPerHost() {
+        return backchannelLogoutMaxConcurrencyPerHost;
+    }
+
+    public void setBackchannelLogoutMaxConcurrencyPerHost(int backchannelLogoutMaxConcurrencyPerHost) {
+        this.backchannelLogoutMaxConcurrencyPerHost = backchannelLogoutMaxConcurrencyPerHost;
+    }
+
+    public int getBackchannelLogoutMaxRetries() {
+        return backchannelLogoutMaxRetries;
+    }
+
+    public void setBackchannelLogoutMaxRetries(int backchannelLogoutMaxRetries) {
+        this.backchannelLogoutMaxRetries = backchannelLogoutMaxRetries;
+    }
+
+    public int getBackchannelLogoutRetryInitialDelayInMillis() {
+        return backchannelLogoutRetryInitialDelayInMillis;
+    }
+
+    public void setBackchannelLogoutRetryInitialDelayInMillis(int backchannelLogoutRetryInitialDelayInMillis) {
+        this.backchannelLogoutRetryInitialDelayInMillis = backchannelLogoutRetryInitialDelayInMillis;
+    }
+
+    public Boolean getBackchannelLogoutDeliveryStatusTrackingEnabled() {
+        if (backchannelLogoutDeliveryStatusTrackingEnabled == null) backchannelLogoutDeliveryStatusTrackingEnabled = false;
+        return backchannelLogoutDeliveryStatusTrackingEnabled;
+    }
+
+    public void setBackchannelLogoutDeliveryStatusTrackingEnabled(Boolean backchannelLogoutDeliveryStatusTrackingEnabled) {
+        this.backchannelLogoutDeliveryStatusTrackingEnabled = backchannelLogoutDeliveryStatusTrackingEnabled;
+    }
+
+    public int getCibaNotificationThreadPoolSize() {
+        return cibaNotificationThreadPoolSize;
+    }
+
+    public void setCibaNotificationThreadPoolSize(int cibaNotificationThreadPoolSize) {
+        this.cibaNotificationThreadPoolSize = cibaNotificationThreadPoolSize;
+    }
+
+    public int getCibaNotificationQueueCapacity() {
+        return cibaNotificationQueueCapacity;
+    }
+
+    public void setCibaNotificationQueueCapacity(int cibaNotificationQueueCapacity) {
+        this.cibaNotificationQueueCapacity = cibaNotificationQueueCapacity;
+    }
+
+    public int getCibaNotificationMaxConcurrencyPerEndpoint() {
+        return cibaNotificationMaxConcurrencyPerEndpoint;
+    }
+
+    public void setCibaNotificationMaxConcurrencyPerEndpoint(int cibaNotificationMaxConcurrencyPerEndpoint) {
+        this.cibaNotificationMaxConcurrencyPerEndpoint = cibaNotificationMaxConcurrencyPerEndpoint;
+    }
+
+    public int getCibaNotificationMaxRetries() {
+        return cibaNotificationMaxRetries;
+    }
+
+    public void setCibaNotificationMaxRetries(int cibaNotificationMaxRetries) {
+        this.cibaNotificationMaxRetries = cibaNotificationMaxRetries;
+    }
+
+    public int getCibaNotificationRetryInitialDelayInMillis() {
+        return cibaNotificationRetryInitialDelayInMillis;
+    }
+
+    public void setCibaNotificationRetryInitialDelayInMillis(int cibaNotificationRetryInitialDelayInMillis) {
+        this.cibaNotificationRetryInitialDelayInMillis = cibaNotificationRetryInitialDelayInMillis;
+    }
+
+    public int getBackchannelRequestsProcessorJobPartitionCount() {
+        return backchannelRequestsProcessorJobPartitionCount;
+    }
+
+    public void setBackchannelRequestsProcessorJobPartitionCount(int backchannelRequestsProcessorJobPartitionCount) {
+        this.backchannelRequestsProcessorJobPartitionCount = backchannelRequestsProcessorJobPartitionCount;
+    }
+
+    public Boolean getBackchannelRequestsProcessorJobClusterLockEnabled() {
+        if (backchannelRequestsProcessorJobClusterLockEnabled == null) backchannelRequestsProcessorJobClusterLockEnabled = false;
+        return backchannelRequestsProcessorJobClusterLockEnabled;
+    }
+
+    public void setBackchannelRequestsProcessorJobClusterLockEnabled(Boolean backchannelRequestsProcessorJobClusterLockEnabled) {
+        this.backchannelRequestsProcessorJobClusterLockEnabled = backchannelRequestsProcessorJobClusterLockEnabled;
+    }
+
+    public Boolean getPairwiseIdCacheEnabled() {
+        if (pairwiseIdCacheEnabled == null) pairwiseIdCacheEnabled = false;
+        return pairwiseIdCacheEnabled;
+    }
+
+    public void setPairwiseIdCacheEnabled(Boolean pairwiseIdCacheEnabled) {
+        this.pairwiseIdCacheEnabled = pairwiseIdCacheEnabled;
+    }
+
+    public int getPairwiseIdCacheLifetimeInSeconds() {
+        return pairwiseIdCacheLifetimeInSeconds;
+    }
+
+    public void setPairwiseIdCacheLifetimeInSeconds(int pairwiseIdCacheLifetimeInSeconds) {
+        this.pairwiseIdCacheLifetimeInSeconds = pairwiseIdCacheLifetimeInSeconds;
+    }
+
+    public int getPairwiseIdCacheMaxSize() {
+        return pairwiseIdCacheMaxSize;
+    }
+
+    public void setPairwiseIdCacheMaxSize(int pairwiseIdCacheMaxSize) {
+        this.pairwiseIdCacheMaxSize = pairwiseIdCacheMaxSize;
+    }
+
+    public int getPairwiseIdNegativeCacheLifetimeInSeconds() {
+        return pairwiseIdNegativeCacheLifetimeInSeconds;
+    }
+
+    public void setPairwiseIdNegativeCacheLifetimeInSeconds(int pairwiseIdNegativeCacheLifetimeInSeconds) {
+        this.pairwiseIdNegativeCacheLifetimeInSeconds = pairwiseIdNegativeCacheLifetimeInSeconds;
+    }
+
+    public int getRemoteDocumentCacheMaxSize() {
+        return remoteDocumentCacheMaxSize;
+    }
+
+    public void setRemoteDocumentCacheMaxSize(int remoteDocumentCacheMaxSize) {
+        this.remoteDocumentCacheMaxSize = remoteDocumentCacheMaxSize;
+    }
+
+    public int getRemoteDocumentStaleIfErrorInSeconds() {
+        return remoteDocumentStaleIfErrorInSeconds;
+    }
+
+    public void setRemoteDocumentStaleIfErrorInSeconds(int remoteDocumentStaleIfErrorInSeconds) {
+        this.remoteDocumentStaleIfErrorInSeconds = remoteDocumentStaleIfErrorInSeconds;
+    }
+
+    public int getRequestUriCacheLifetimeInSeconds() {
+        return requestUriCacheLifetimeInSeconds;
+    }
+
+    public void setRequestUriCacheLifetimeInSeconds(int requestUriCacheLifetimeInSeconds) {
+        this.requestUriCacheLifetimeInSeconds = requestUriCacheLifetimeInSeconds;
+    }
+
+    public int getUserCacheLifetimeInSeconds() {
+        return userCacheLifetimeInSeconds;
+    }
+
+    public void setUserCacheLifetimeInSeconds(int userCacheLifetimeInSeconds) {
+        this.userCacheLifetimeInSeconds = userCacheLifetimeInSeconds;
+    }
+
+    public int getUserCacheMaxSize() {
+        return userCacheMaxSize;
+    }
+
+    public void setUserCacheMaxSize(int userCacheMaxSize) {
+        this.userCacheMaxSize = userCacheMaxSize;
+    }
+
+    public int getClaimReleasePlanCacheLifetimeInSeconds() {
+        return claimReleasePlanCacheLifetimeInSeconds;
+    }
+
+    public void setClaimReleasePlanCacheLifetimeInSeconds(int claimReleasePlanCacheLifetimeInSeconds) {
+        this.claimReleasePlanCacheLifetimeInSeconds = claimReleasePlanCacheLifetimeInSeconds;
+    }
+
+    public int getClaimReleasePlanCacheMaxSize() {
+        return claimReleasePlanCacheMaxSize;
+    }
+
+    public void setClaimReleasePlanCacheMaxSize(int claimReleasePlanCacheMaxSize) {
+        this.claimReleasePlanCacheMaxSize = claimReleasePlanCacheMaxSize;
+    }
+
+    public Boolean getTokenIndexEnabled() {
+        if (tokenIndexEnabled == null) tokenIndexEnabled = false;
+        return tokenIndexEnabled;
+    }
+
+    public void setTokenIndexEnabled(Boolean tokenIndexEnabled) {
+        this.tokenIndexEnabled = tokenIndexEnabled;
+    }
+
+    public Boolean getEndSessionAsyncTeardownEnabled() {
+        if (endSessionAsyncTeardownEnabled == null) endSessionAsyncTeardownEnabled = false;
+        return endSessionAsyncTeardownEnabled;
+    }
+
+    public void setEndSessionAsyncTeardownEnabled(Boolean endSessionAsyncTeardownEnabled) {
+        this.endSessionAsyncTeardownEnabled = endSessionAsyncTeardownEnabled;
+    }
+
+    public int getEndSessionTeardownThreadPoolSize() {
+        return endSessionTeardownThreadPoolSize;
+    }
+
+    public void setEndSessionTeardownThreadPoolSize(int endSessionTeardownThreadPoolSize) {
+        this.endSessionTeardownThreadPoolSize = endSessionTeardownThreadPoolSize;
+    }
+
+    public int getEndSessionTeardownMaxRetries() {
+        return endSessionTeardownMaxRetries;
+    }
+
+    public void setEndSessionTeardownMaxRetries(int endSessionTeardownMaxRetries) {
+        this.endSessionTeardownMaxRetries = endSessionTeardownMaxRetries;
+    }
+
+    public int getEndSessionTeardownRetryInitialDelayInMillis() {
+        return endSessionTeardownRetryInitialDelayInMillis;
+    }
+
+    public void setEndSessionTeardownRetryInitialDelayInMillis(int endSessionTeardownRetryInitialDelayInMillis) {
+        this.endSessionTeardownRetryInitialDelayInMillis = endSessionTeardownRetryInitialDelayInMillis;
+    }
+
+    public int getDiscoveryResponseMaxAgeInSeconds() {
+        return discoveryResponseMaxAgeInSeconds;
+    }
+
+    public void setDiscoveryResponseMaxAgeInSeconds(int discoveryResponseMaxAgeInSeconds) {
+        this.discoveryResponseMaxAgeInSeconds = discoveryResponseMaxAgeInSeconds;
+    }
+
+    public int getAuditLogQueueCapacity() {
+        return auditLogQueueCapacity;
+    }
+
+    public void setAuditLogQueueCapacity(int auditLogQueueCapacity) {
+        this.auditLogQueueCapacity = auditLogQueueCapacity;
+    }
+
+    public int getAuditLogBatchSize() {
+        return auditLogBatchSize;
+    }
+
+    public void setAuditLogBatchSize(int auditLogBatchSize) {
+        this.auditLogBatchSize = auditLogBatchSize;
+    }
+
+    public int getAuditLogFlushIntervalInMillis() {
+        return auditLogFlushIntervalInMillis;
+    }
+
+    public void setAuditLogFlushIntervalInMillis(int auditLogFlushIntervalInMillis) {
+        this.auditLogFlushIntervalInMillis = auditLogFlushIntervalInMillis;
+    }
+
+    public String getAuditLogSpoolDirectory() {
+        return auditLogSpoolDirectory;
+    }
+
+    public void setAuditLogSpoolDirectory(String auditLogSpoolDirectory) {
+        this.auditLogSpoolDirectory = auditLogSpoolDirectory;
+    }
+
+    public int getAuditLogSpoolMaxSizeInMB() {
+        return auditLogSpoolMaxSizeInMB;
+    }
+
+    public void setAuditLogSpoolMaxSizeInMB(int auditLogSpoolMaxSizeInMB) {
+        this.auditLogSpoolMaxSizeInMB = auditLogSpoolMaxSizeInMB;
+    }
+
+    public Boolean getExternalScriptCircuitBreakerEnabled() {
+        if (externalScriptCircuitBreakerEnabled == null) externalScriptCircuitBreakerEnabled = false;
+        return externalScriptCircuitBreakerEnabled;
+    }
+
+    public void setExternalScriptCircuitBreakerEnabled(Boolean externalScriptCircuitBreakerEnabled) {
+        this.externalScriptCircuitBreakerEnabled = externalScriptCircuitBreakerEnabled;
+    }
+
+    public int getExternalScriptTimeBudgetInMillis() {
+        return externalScriptTimeBudgetInMillis;
+    }
+
+    public void setExternalScriptTimeBudgetInMillis(int externalScriptTimeBudgetInMillis) {
+        this.externalScriptTimeBudgetInMillis = externalScriptTimeBudgetInMillis;
+    }
+
+    public int getExternalScriptCircuitBreakerFailureThreshold() {
+        return externalScriptCircuitBreakerFailureThreshold;
+    }
+
+    public void setExternalScriptCircuitBreakerFailureThreshold(int externalScriptCircuitBreakerFailureThreshold) {
+        this.externalScriptCircuitBreakerFailureThreshold = externalScriptCircuitBreakerFailureThreshold;
+    }
+
+    public int getExternalScriptCircuitBreakerOpenIntervalInSeconds() {
+        return externalScriptCircuitBreakerOpenIntervalInSeconds;
+    }
+
+    public void setExternalScriptCircuitBreakerOpenIntervalInSeconds(int externalScriptCircuitBreakerOpenIntervalInSeconds) {
+        this.externalScriptCircuitBreakerOpenIntervalInSeconds = externalScriptCircuitBreakerOpenIntervalInSeconds;
+    }
+}
@@ -6,6 +6,8 @@
 
 package io.jans.as.model.crypto;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.model.crypto.signature.AlgorithmFamily;
@@ -40,6 +42,7 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Javier Rojas Blum
@@ -49,6 +52,10 @@ public abstract class AbstractCryptoProvider {
 
     protected static final Logger LOG = Logger.getLogger(AbstractCryptoProvider.class);
 
+    // parsed public keys of JWKS, keyed by key material so rotated keys never hit stale entry
+    private static final Cache<String, PublicKey> PUBLIC_KEY_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(1000).expireAfterAccess(1, TimeUnit.HOURS).build();
+
     private int keyRegenerationIntervalInDays = -1;
 
     public JSONObject generateKey(Algorithm algorithm, Long expirationTime) throws Exception {
@@ -158,6 +165,29 @@ public abstract class AbstractCryptoProvider {
     }
 
     private PublicKey processKey(Algorithm requestedAlgorithm, String alias, JSONObject key) throws Exception {
+        final String cacheKey = publicKeyCacheKey(requestedAlgorithm, alias, key);
+        PublicKey publicKey = PUBLIC_KEY_CACHE.getIfPresent(cacheKey);
+        if (publicKey == null) {
+            publicKey = parsePublicKey(requestedAlgorithm, alias, key);
+            if (publicKey != null) {
+                PUBLIC_KEY_CACHE.put(cacheKey, publicKey);
+            }
+        }
+
+        if (publicKey != null && key.has(JWKParameter.EXPIRATION_TIME)) {
+            checkKeyExpiration(alias, key.getLong(JWKParameter.EXPIRATION_TIME));
+        }
+
+        return publicKey;
+    }
+
+    private static String publicKeyCacheKey(Algorithm requestedAlgorithm, String alias, JSONObject key) {
+        return alias + "|" + requestedAlgorithm + "|" + key.optString(JWKParameter.ALGORITHM) + "|" + key.optString(JWKParameter.KEY_TYPE)
+                + "|" + key.optString(JWKParameter.MODULUS) + "|" + key.optString(JWKParameter.EXPONENT)
+                + "|" + key.optString(JWKParameter.CURVE) + "|" + key.optString(JWKParameter.X) + "|" + key.optString(JWKParameter.Y);
+    }
+
+    private PublicKey parsePublicKey(Algorithm requestedAlgorithm, String alias, JSONObject key) throws Exception {
         PublicKey publicKey = null;
         AlgorithmFamily family = null;
         if (key.has(JWKParameter.ALGORITHM)) {
@@ -191,10 +221,6 @@ public abstract class AbstractCryptoProvider {
                     ), ecParameters));
         }
 
-        if (key.has(JWKParameter.EXPIRATION_TIME)) {
-            checkKeyExpiration(alias, key.getLong(JWKParameter.EXPIRATION_TIME));
-        }
-
         return publicKey;
     }
 
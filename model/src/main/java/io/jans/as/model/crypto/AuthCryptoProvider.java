@@ -67,8 +67,12 @@ import java.security.spec.ECGenParameterSpec;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 
@@ -88,6 +92,12 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
     private final boolean rejectNoneAlg;
     private final KeySelectionStrategy keySelectionStrategy;
 
+    // decoded key material by kid, avoids password based unwrap of JKS entry on each signature
+    private final ConcurrentMap<String, KeyMaterial> keyMaterialCache = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Map<String, Signature>> SIGNATURES = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<String, Mac>> MACS = ThreadLocal.withInitial(HashMap::new);
+
     public AuthCryptoProvider() throws Exception {
         this(null, null, null);
     }
@@ -130,6 +140,7 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
         try(InputStream is = new FileInputStream(keyStoreFile)) {
             keyStore = KeyStore.getInstance("JKS");
             keyStore.load(is, keyStoreSecret.toCharArray());
+            clearKeyMaterialCache();
             LOG.debug("Loaded keys from JKS.");
             LOG.trace("Loaded keys:"+ getKeys());
         } catch (Exception e) {
@@ -192,6 +203,7 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
 
         FileOutputStream stream = new FileOutputStream(keyStoreFile);
         keyStore.store(stream, keyStoreSecret.toCharArray());
+        clearKeyMaterialCache();
 
         PublicKey publicKey = keyPair.getPublic();
 
@@ -243,7 +255,8 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
                 return false;
             }
 
-            return keyStore.getKey(keyId, keyStoreSecret.toCharArray()) != null;
+            final KeyMaterial keyMaterial = getKeyMaterial(keyId);
+            return keyMaterial != null && keyMaterial.privateKey != null;
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
             return false;
@@ -256,7 +269,7 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
             return "";
         } else if (AlgorithmFamily.HMAC.equals(signatureAlgorithm.getFamily())) {
             SecretKey secretKey = new SecretKeySpec(sharedSecret.getBytes(Util.UTF8_STRING_ENCODING), signatureAlgorithm.getAlgorithm());
-            Mac mac = Mac.getInstance(signatureAlgorithm.getAlgorithm());
+            Mac mac = getMac(signatureAlgorithm.getAlgorithm());
             mac.init(secretKey);
             byte[] sig = mac.doFinal(signingInput.getBytes());
             return Base64Util.base64urlencode(sig);
@@ -270,7 +283,7 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
                 throw new IllegalStateException(error);
             }
 
-            Signature signer = Signature.getInstance(signatureAlgorithm.getAlgorithm(), "BC");
+            Signature signer = getSignature(signatureAlgorithm.getAlgorithm());
             signer.initSign(privateKey);
             signer.update(signingInput.getBytes());
 
@@ -315,7 +328,7 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
                 	signatureDer = ECDSA.transcodeSignatureToDER(signatureDer);
                 }
 
-                Signature verifier = Signature.getInstance(signatureAlgorithm.getAlgorithm(), "BC");
+                Signature verifier = getSignature(signatureAlgorithm.getAlgorithm());
                 verifier.initVerify(publicKey);
                 verifier.update(signingInput.getBytes());
                 try {
@@ -335,6 +348,7 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
     @Override
     public boolean deleteKey(String alias) throws Exception {
         keyStore.deleteEntry(alias);
+        keyMaterialCache.remove(alias);
         FileOutputStream stream = new FileOutputStream(keyStoreFile);
         keyStore.store(stream, keyStoreSecret.toCharArray());
         return true;
@@ -348,14 +362,14 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
                 return null;
             }
 
-            java.security.cert.Certificate certificate = keyStore.getCertificate(alias);
-            if (certificate == null) {
+            final KeyMaterial keyMaterial = getKeyMaterial(alias);
+            if (keyMaterial == null || keyMaterial.publicKey == null) {
                 return null;
             }
-            publicKey = certificate.getPublicKey();
+            publicKey = keyMaterial.publicKey;
 
-            checkKeyExpiration(alias);
-        } catch (KeyStoreException e) {
+            checkKeyExpiration(alias, keyMaterial.expirationTime);
+        } catch (KeyStoreException | UnrecoverableKeyException | NoSuchAlgorithmException e) {
             e.printStackTrace();
         }
 
@@ -377,8 +391,8 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
         for (JSONWebKey key : keys) {
             if (algorithm == key.getAlg() && (use == null || use == key.getUse())) {
                 kid = key.getKid();
-                Key keyFromStore = keyStore.getKey(kid, keyStoreSecret.toCharArray());
-                if (keyFromStore != null) {
+                final KeyMaterial keyMaterial = getKeyMaterial(kid);
+                if (keyMaterial != null && keyMaterial.privateKey != null) {
                     keysByAlgAndUse.add(key);
                 }
             }
@@ -401,15 +415,60 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
             return null;
         }
 
-        Key key = keyStore.getKey(alias, keyStoreSecret.toCharArray());
-        if (key == null) {
+        final KeyMaterial keyMaterial = getKeyMaterial(alias);
+        if (keyMaterial == null || keyMaterial.privateKey == null) {
             return null;
         }
-        PrivateKey privateKey = (PrivateKey) key;
 
-        checkKeyExpiration(alias);
+        checkKeyExpiration(alias, keyMaterial.expirationTime);
+
+        return keyMaterial.privateKey;
+    }
+
+    private KeyMaterial getKeyMaterial(String alias)
+            throws UnrecoverableKeyException, NoSuchAlgorithmException, KeyStoreException {
+        KeyMaterial keyMaterial = keyMaterialCache.get(alias);
+        if (keyMaterial != null) {
+            return keyMaterial;
+        }
+
+        final Key key = keyStore.getKey(alias, keyStoreSecret.toCharArray());
+        final Certificate certificate = keyStore.getCertificate(alias);
+        if (key == null && certificate == null) {
+            return null; // do not cache misses, key may be added later by rotation
+        }
 
-        return privateKey;
+        keyMaterial = new KeyMaterial(
+                key instanceof PrivateKey ? (PrivateKey) key : null,
+                certificate != null ? certificate.getPublicKey() : null,
+                certificate instanceof X509Certificate ? ((X509Certificate) certificate).getNotAfter().getTime() : null);
+        keyMaterialCache.put(alias, keyMaterial);
+        return keyMaterial;
+    }
+
+    public void clearKeyMaterialCache() {
+        keyMaterialCache.clear();
+        LOG.trace("Cleared key material cache.");
+    }
+
+    private static Signature getSignature(String algorithm) throws Exception {
+        final Map<String, Signature> signatures = SIGNATURES.get();
+        Signature signature = signatures.get(algorithm);
+        if (signature == null) {
+            signature = Signature.getInstance(algorithm, "BC");
+            signatures.put(algorithm, signature);
+        }
+        return signature;
+    }
+
+    private static Mac getMac(String algorithm) throws NoSuchAlgorithmException {
+        final Map<String, Mac> macs = MACS.get();
+        Mac mac = macs.get(algorithm);
+        if (mac == null) {
+            mac = Mac.getInstance(algorithm);
+            macs.put(algorithm, mac);
+        }
+        return mac;
     }
 
     public X509Certificate generateV3Certificate(KeyPair keyPair, String issuer, String signatureAlgorithm, Long expirationTime) throws CertIOException, OperatorCreationException, CertificateException {
@@ -476,12 +535,10 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
     }
 
 
-    private void checkKeyExpiration(String alias) {
-        try {
-            Date expirationDate = ((X509Certificate) keyStore.getCertificate(alias)).getNotAfter();
-            checkKeyExpiration(alias, expirationDate.getTime());
-        } catch (KeyStoreException e) {
-            e.printStackTrace();
+    @Override
+    protected void checkKeyExpiration(String alias, Long expirationTime) {
+        if (expirationTime != null) {
+            super.checkKeyExpiration(alias, expirationTime);
         }
     }
 
@@ -489,4 +546,17 @@ public class AuthCryptoProvider extends AbstractCryptoProvider {
         return keyStore;
     }
 
+    private static class KeyMaterial {
+
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+        private final Long expirationTime;
+
+        private KeyMaterial(PrivateKey privateKey, PublicKey publicKey, Long expirationTime) {
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.expirationTime = expirationTime;
+        }
+    }
+
 }
\ No newline at end of file
@@ -24,15 +24,15 @@ import io.jans.as.model.token.JsonWebResponse;
  */
 public class Jwt extends JsonWebResponse {
 
-    private String encodedHeader;
-    private String encodedClaims;
     private String encodedSignature;
 
-    private boolean loaded = false;
+    // signing input is cached together with segments it was built from, header and claims
+    // return the same (cached) segment instances until they are modified
+    private transient String signingInput;
+    private transient String signingInputHeader;
+    private transient String signingInputClaims;
 
     public Jwt() {
-        encodedHeader = null;
-        encodedClaims = null;
         encodedSignature = null;
     }
 
@@ -45,11 +45,14 @@ public class Jwt extends JsonWebResponse {
     }
 
     public String getSigningInput() throws InvalidJwtException {
-        if (loaded) {
-            return encodedHeader + "." + encodedClaims;
-        } else {
-            return header.toBase64JsonObject() + "." + claims.toBase64JsonObject();
+        final String encodedHeader = header.toBase64JsonObject();
+        final String encodedClaims = claims.toBase64JsonObject();
+        if (signingInput == null || encodedHeader != signingInputHeader || encodedClaims != signingInputClaims) {
+            signingInput = encodedHeader + "." + encodedClaims;
+            signingInputHeader = encodedHeader;
+            signingInputClaims = encodedClaims;
         }
+        return signingInput;
     }
 
     public static Jwt parseOrThrow(String encodedJwt) throws InvalidJwtException {
@@ -64,20 +67,22 @@ public class Jwt extends JsonWebResponse {
             return null;
         }
 
-        String encodedHeader = null;
-        String encodedClaims = null;
-        String encodedSignature = null;
-
-        String[] jwtParts = encodedJwt.split("\\.");
-        if (jwtParts.length == 2) { // Signature Algorithm NONE
-            encodedHeader = jwtParts[0];
-            encodedClaims = jwtParts[1];
-            encodedSignature = "";
-        } else if (jwtParts.length == 3) {
-            encodedHeader = jwtParts[0];
-            encodedClaims = jwtParts[1];
-            encodedSignature = jwtParts[2];
-        } else {
+        // split without regex: header.claims[.signature]
+        final int firstDot = encodedJwt.indexOf('.');
+        if (firstDot <= 0) {
+            throw new InvalidJwtException("Invalid JWT format.");
+        }
+        int secondDot = encodedJwt.indexOf('.', firstDot + 1);
+        if (secondDot < 0) { // Signature Algorithm NONE
+            secondDot = encodedJwt.length();
+        } else if (encodedJwt.indexOf('.', secondDot + 1) >= 0) {
+            throw new InvalidJwtException("Invalid JWT format.");
+        }
+
+        final String encodedHeader = encodedJwt.substring(0, firstDot);
+        final String encodedClaims = encodedJwt.substring(firstDot + 1, secondDot);
+        final String encodedSignature = secondDot < encodedJwt.length() ? encodedJwt.substring(secondDot + 1) : "";
+        if (encodedClaims.isEmpty()) {
             throw new InvalidJwtException("Invalid JWT format.");
         }
 
@@ -85,9 +90,6 @@ public class Jwt extends JsonWebResponse {
         jwt.setHeader(new JwtHeader(encodedHeader));
         jwt.setClaims(new JwtClaims(encodedClaims));
         jwt.setEncodedSignature(encodedSignature);
-        jwt.encodedHeader = encodedHeader;
-        jwt.encodedClaims = encodedClaims;
-        jwt.loaded = true;
 
         return jwt;
     }
@@ -29,12 +29,19 @@ import io.jans.as.model.util.Base64Util;
 import io.jans.as.model.util.Util;
 
 /**
+ * Encoded (base64url) form of claim set is cached: for parsed claim set it is original segment, otherwise it is
+ * computed on first use. Cache is invalidated by any setter. Computed form is not cached if any claim value is mutable
+ * (list, date, json or sub claim object), because such value can be modified in place via {@link #getClaim(String)}.
+ * Original segment of parsed claim set is kept until setter is called (it is what signature is verified against).
+ *
  * @author Javier Rojas Blum
  * @version January 3, 2018
  */
 public abstract class JwtClaimSet {
 
     private Map<String, Object> claims;
+    private String encoded;
+    private boolean original;
 
     public JwtClaimSet() {
         claims = new LinkedHashMap<String, Object>();
@@ -218,47 +225,47 @@ public abstract class JwtClaimSet {
     }
 
     public void setNullClaim(String key) {
-        claims.put(key, null);
+        put(key, null);
     }
 
     public void setClaim(String key, String value) {
-        claims.put(key, value);
+        put(key, value);
     }
 
     public void setClaim(String key, Date value) {
-        claims.put(key, value);
+        put(key, value);
     }
 
     public void setClaim(String key, Boolean value) {
-        claims.put(key, value);
+        put(key, value);
     }
 
     public void setClaim(String key, Integer value) {
-        claims.put(key, value);
+        put(key, value);
     }
 
     public void setClaim(String key, Long value) {
-        claims.put(key, value);
+        put(key, value);
     }
 
     public void setClaim(String key, Character value) {
-        claims.put(key, value);
+        put(key, value);
     }
 
     public void setClaim(String key, List values) {
-        claims.put(key, values);
+        put(key, values);
     }
 
     public void setClaim(String key, JwtSubClaimObject subClaimObject) {
-        claims.put(key, subClaimObject);
+        put(key, subClaimObject);
     }
 
     public void setClaim(String key, JSONObject values) {
-        claims.put(key, values);
+        put(key, values);
     }
 
     public void setClaim(String key, JSONArray values) {
-        claims.put(key, values);
+        put(key, values);
     }
 
     public void setClaimFromJsonObject(String key, Object attribute) {
@@ -267,17 +274,25 @@ public abstract class JwtClaimSet {
         }
 
         if (attribute instanceof JSONArray) {
-            claims.put(key, JsonApplier.getStringList((JSONArray) attribute));
+            put(key, JsonApplier.getStringList((JSONArray) attribute));
         } else {
             String value = (String) attribute;
-            claims.put(key, value);
+            put(key, value);
         }
     }
 
     public void removeClaim(String key) {
+        encoded = null;
+        original = false;
         claims.remove(key);
     }
 
+    private void put(String key, Object value) {
+        encoded = null;
+        original = false;
+        claims.put(key, value);
+    }
+
     public JSONObject toJsonObject() throws InvalidJwtException {
         JSONObject jsonObject = new JSONObject();
 
@@ -310,15 +325,35 @@ public abstract class JwtClaimSet {
     }
 
     public String toBase64JsonObject() throws InvalidJwtException {
+        if (encoded != null && original) {
+            return encoded;
+        }
+        final boolean cacheable = !hasMutableClaim();
+        if (encoded != null && cacheable) {
+            return encoded;
+        }
+
         try {
             String jsonObjectString = toJsonString();
             byte[] jsonObjectBytes = jsonObjectString.getBytes(Util.UTF8_STRING_ENCODING);
-            return Base64Util.base64urlencode(jsonObjectBytes);
+            final String result = Base64Util.base64urlencode(jsonObjectBytes);
+            encoded = cacheable ? result : null;
+            return result;
         } catch (UnsupportedEncodingException e) {
             return null;
         }
     }
 
+    private boolean hasMutableClaim() {
+        for (Object value : claims.values()) {
+            if (value instanceof List || value instanceof Date || value instanceof JSONObject
+                    || value instanceof JSONArray || value instanceof JwtSubClaimObject) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public String toJsonString() throws InvalidJwtException {
         JSONObject jsonObject = toJsonObject();
         String jsonObjectString = jsonObject.toString();
@@ -355,13 +390,15 @@ public abstract class JwtClaimSet {
     }
 
     public void load(JSONObject jsonObject) {
+        encoded = null;
+        original = false;
         claims.clear();
 
         for (Iterator<String> it = jsonObject.keys(); it.hasNext(); ) {
             String key = it.next();
             Object value = jsonObject.opt(key);
 
-            claims.put(key, value);
+            put(key, value);
         }
     }
 
@@ -369,6 +406,8 @@ public abstract class JwtClaimSet {
         try {
             String jsonObjectString = new String(Base64Util.base64urldecode(base64JsonObject), Util.UTF8_STRING_ENCODING);
             load(new JSONObject(jsonObjectString));
+            encoded = base64JsonObject;
+            original = true;
         } catch (UnsupportedEncodingException e) {
             throw new InvalidJwtException(e);
         } catch (JSONException e) {
@@ -21,11 +21,7 @@ public class Base64Util {
     private static final Logger log = Logger.getLogger(Base64Util.class);
 
     public static String base64urlencode(byte[] arg) {
-        String s = Base64.encodeBase64String(arg); // Standard base64 encoder
-        s = s.split("=")[0]; // Remove any trailing '='s
-        s = s.replace('+', '-'); // 62nd char of encoding
-        s = s.replace('/', '_'); // 63rd char of encoding
-        return s;
+        return java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(arg); // base64url without trailing '='s
     }
 
     public static byte[] base64urldecode(String arg) throws IllegalArgumentException {
@@ -6,10 +6,12 @@
 
 package io.jans.as.model.util;
 
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 import io.jans.as.model.configuration.AppConfiguration;
-import io.jans.as.model.crypto.AbstractCryptoProvider;
-import io.jans.as.model.crypto.CryptoProviderFactory;
-import io.jans.as.model.crypto.signature.SignatureAlgorithm;
 
 /**
  * @author Javier Rojas Blum
@@ -17,11 +19,36 @@ import io.jans.as.model.crypto.signature.SignatureAlgorithm;
  */
 public class SubjectIdentifierGenerator {
 
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA256);
+        } catch (Exception e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    });
+
+    /**
+     * @deprecated configuration is not needed anymore, use {@link #generatePairwiseSubjectIdentifier(String, String, String, String)}
+     */
+    @Deprecated
     public static String generatePairwiseSubjectIdentifier(String sectorIdentifier, String localAccountId, String key,
                                                            String salt, AppConfiguration configuration) throws Exception {
-        AbstractCryptoProvider cryptoProvider = CryptoProviderFactory.getCryptoProvider(configuration);
+        return generatePairwiseSubjectIdentifier(sectorIdentifier, localAccountId, key, salt);
+    }
 
+    /**
+     * Calculates pairwise subject identifier as base64url encoded HMAC-SHA256 of sector identifier, local account id
+     * and salt. Result is the same as HS256 signature produced by crypto provider but it is computed locally,
+     * without key storage access.
+     */
+    public static String generatePairwiseSubjectIdentifier(String sectorIdentifier, String localAccountId, String key,
+                                                           String salt) throws Exception {
         String signingInput = sectorIdentifier + localAccountId + salt;
-        return cryptoProvider.sign(signingInput, null, key, SignatureAlgorithm.HS256);
+
+        Mac mac = MAC.get();
+        mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+        return Base64Util.base64urlencode(mac.doFinal(signingInput.getBytes(StandardCharsets.UTF_8)));
     }
 }
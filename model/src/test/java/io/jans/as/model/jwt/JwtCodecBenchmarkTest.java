@@ -0,0 +1,95 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.model.jwt;
+
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import io.jans.as.model.exception.InvalidJwtException;
+import io.jans.as.model.util.Base64Util;
+
+/**
+ * Compares JWT codec with previous implementation (regex split and re-encoding of header and claims on each
+ * getSigningInput()/toString() call). Each token is parsed, signing input is taken twice (sign/verify) and token is
+ * serialized twice (log/response).
+ * <p>
+ * Not a unit test, it is listed in testng-benchmark.xml. Run with: mvn test -Dbenchmark
+ */
+public class JwtCodecBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int ITERATIONS = 100000;
+
+    @DataProvider(name = "tokens")
+    public Object[][] tokens() {
+        return new Object[][]{
+                {"id_token", token("{\"kid\":\"a1b2c3\",\"typ\":\"JWT\",\"alg\":\"RS256\"}",
+                        "{\"iss\":\"https://as.example.com\",\"aud\":\"client1\",\"exp\":1600003600,\"iat\":1600000000,"
+                                + "\"nonce\":\"n-0S6_WzA2Mj\",\"auth_time\":1600000000,\"at_hash\":\"77QmUPtjPfzWtF2AnpK9RQ\","
+                                + "\"oxOpenIDConnectVersion\":\"openidconnect-1.0\",\"sub\":\"248289761001\","
+                                + "\"name\":\"Jane Doe\",\"given_name\":\"Jane\",\"family_name\":\"Doe\",\"email\":\"janedoe@example.com\"}")},
+                {"request_object", token("{\"kid\":\"k2bdc\",\"alg\":\"RS256\"}",
+                        "{\"iss\":\"s6BhdRkqt3\",\"aud\":\"https://as.example.com\",\"response_type\":\"code id_token\","
+                                + "\"client_id\":\"s6BhdRkqt3\",\"redirect_uri\":\"https://client.example.org/cb\","
+                                + "\"scope\":\"openid\",\"state\":\"af0ifjsldkj\",\"nonce\":\"n-0S6_WzA2Mj\",\"max_age\":86400,"
+                                + "\"claims\":{\"userinfo\":{\"given_name\":{\"essential\":true},\"email\":{\"essential\":true}},"
+                                + "\"id_token\":{\"gender\":null,\"acr\":{\"values\":[\"urn:mace:incommon:iap:silver\"]}}}}")},
+                {"access_token", token("{\"kid\":\"a1b2c3\",\"typ\":\"JWT\",\"alg\":\"RS256\"}",
+                        "{\"scope\":[\"openid\",\"profile\",\"email\"],\"client_id\":\"client1\",\"username\":\"Jane Doe\","
+                                + "\"token_type\":\"bearer\",\"code\":\"b6f5c2d0-7a91-4d69-8b7c-2c3f5d1a4e77\",\"exp\":1600000300,"
+                                + "\"iat\":1600000000,\"sub\":\"248289761001\",\"iss\":\"https://as.example.com\"}")}
+        };
+    }
+
+    @Test(dataProvider = "tokens")
+    public void compare(String name, String encoded) throws InvalidJwtException {
+        run(encoded, true, WARMUP_ITERATIONS);
+        run(encoded, false, WARMUP_ITERATIONS);
+
+        final long legacy = run(encoded, true, ITERATIONS);
+        final long current = run(encoded, false, ITERATIONS);
+
+        System.out.println(String.format("%-15s legacy: %6d ns/op, current: %6d ns/op", name, legacy / ITERATIONS, current / ITERATIONS));
+    }
+
+    private static long run(String encoded, boolean legacy, int iterations) throws InvalidJwtException {
+        int blackhole = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (legacy) {
+                final String[] parts = encoded.split("\\.");
+                final JwtHeader header = new JwtHeader(parts[0]);
+                final JwtClaims claims = new JwtClaims(parts[1]);
+                blackhole += (header.toBase64JsonObject() + "." + claims.toBase64JsonObject()).length(); // sign
+                blackhole += (header.toBase64JsonObject() + "." + claims.toBase64JsonObject()).length(); // verify
+                blackhole += (header.toBase64JsonObject() + "." + claims.toBase64JsonObject() + "." + parts[2]).length(); // log
+                blackhole += (header.toBase64JsonObject() + "." + claims.toBase64JsonObject() + "." + parts[2]).length(); // response
+            } else {
+                final Jwt jwt = Jwt.parse(encoded);
+                blackhole += jwt.getSigningInput().length();
+                blackhole += jwt.getSigningInput().length();
+                blackhole += jwt.toString().length();
+                blackhole += jwt.toString().length();
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (blackhole == 0) {
+            throw new IllegalStateException();
+        }
+        return elapsed;
+    }
+
+    private static String token(String header, String claims) {
+        return encode(header) + "." + encode(claims) + "." + encode("signature");
+    }
+
+    private static String encode(String json) {
+        return Base64Util.base64urlencode(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.model.jwt;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+import io.jans.as.model.crypto.signature.SignatureAlgorithm;
+import io.jans.as.model.exception.InvalidJwtException;
+import io.jans.as.model.util.Base64Util;
+
+public class JwtTest {
+
+    // header and claims are not in canonical form (spaces), so re-encoding would change them
+    private static final String HEADER = encode("{\"alg\": \"RS256\", \"kid\": \"key1\"}");
+    private static final String CLAIMS = encode("{\"iss\": \"https://as.example.com\", \"sub\": \"user1\", \"exp\": 1600000000}");
+    private static final String SIGNATURE = "c2lnbmF0dXJl";
+
+    @Test
+    public void parse_shouldKeepOriginalSegments() throws InvalidJwtException {
+        final String encoded = HEADER + "." + CLAIMS + "." + SIGNATURE;
+        final Jwt jwt = Jwt.parse(encoded);
+
+        assertEquals(jwt.getSigningInput(), HEADER + "." + CLAIMS);
+        assertEquals(jwt.getEncodedSignature(), SIGNATURE);
+        assertEquals(jwt.toString(), encoded);
+        assertEquals(jwt.getHeader().getSignatureAlgorithm(), SignatureAlgorithm.RS256);
+        assertEquals(jwt.getClaims().getClaimAsString(JwtClaimName.SUBJECT_IDENTIFIER), "user1");
+    }
+
+    @Test
+    public void parse_withoutSignature_shouldHaveEmptySignature() throws InvalidJwtException {
+        assertEquals(Jwt.parse(HEADER + "." + CLAIMS).getEncodedSignature(), "");
+        assertEquals(Jwt.parse(HEADER + "." + CLAIMS + ".").getEncodedSignature(), "");
+    }
+
+    @Test(expectedExceptions = InvalidJwtException.class)
+    public void parse_withoutDot_shouldFail() throws InvalidJwtException {
+        Jwt.parse(HEADER);
+    }
+
+    @Test(expectedExceptions = InvalidJwtException.class)
+    public void parse_withTooManySegments_shouldFail() throws InvalidJwtException {
+        Jwt.parse(HEADER + "." + CLAIMS + "." + SIGNATURE + "." + SIGNATURE);
+    }
+
+    @Test(expectedExceptions = InvalidJwtException.class)
+    public void parse_withEmptyClaims_shouldFail() throws InvalidJwtException {
+        Jwt.parse(HEADER + ".." + SIGNATURE);
+    }
+
+    @Test
+    public void getSigningInput_whenNotModified_shouldReturnCachedValue() throws InvalidJwtException {
+        final Jwt jwt = new Jwt();
+        jwt.getHeader().setAlgorithm(SignatureAlgorithm.HS256);
+        jwt.getClaims().setSubjectIdentifier("user1");
+
+        assertSame(jwt.getSigningInput(), jwt.getSigningInput());
+        assertSame(jwt.getClaims().toBase64JsonObject(), jwt.getClaims().toBase64JsonObject());
+    }
+
+    @Test
+    public void getSigningInput_afterClaimChange_shouldBeReEncoded() throws InvalidJwtException {
+        final Jwt jwt = Jwt.parse(HEADER + "." + CLAIMS + "." + SIGNATURE);
+        final String signingInput = jwt.getSigningInput();
+
+        jwt.getClaims().setClaim("nonce", "n1");
+
+        assertNotEquals(jwt.getSigningInput(), signingInput);
+        assertEquals(jwt.getSigningInput(), HEADER + "." + jwt.getClaims().toBase64JsonObject());
+        assertEquals(new JwtClaims(jwt.getClaims().toBase64JsonObject()).getClaimAsString("nonce"), "n1");
+    }
+
+    @Test
+    public void getSigningInput_afterHeaderChange_shouldBeReEncoded() throws InvalidJwtException {
+        final Jwt jwt = Jwt.parse(HEADER + "." + CLAIMS + "." + SIGNATURE);
+        jwt.getSigningInput();
+
+        jwt.getHeader().setKeyId("key2");
+
+        assertEquals(new JwtHeader(jwt.getSigningInput().split("\\.")[0]).getKeyId(), "key2");
+        assertEquals(jwt.getSigningInput().split("\\.")[1], CLAIMS);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void toBase64JsonObject_afterInPlaceChangeOfListClaim_shouldBeReEncoded() throws InvalidJwtException {
+        final JwtClaims claims = new JwtClaims();
+        claims.setClaim("aud", Lists.newArrayList("rp1"));
+        final String encoded = claims.toBase64JsonObject();
+
+        ((List<String>) claims.getClaim("aud")).add("rp2");
+
+        assertNotEquals(claims.toBase64JsonObject(), encoded);
+        assertEquals(new JwtClaims(claims.toBase64JsonObject()).getClaimAsStringList("aud"), Lists.newArrayList("rp1", "rp2"));
+    }
+
+    @Test
+    public void parse_withArrayClaim_shouldKeepOriginalSegment() throws InvalidJwtException {
+        final String claims = encode("{\"sub\": \"user1\", \"aud\": [\"rp1\", \"rp2\"]}");
+
+        assertEquals(Jwt.parse(HEADER + "." + claims + "." + SIGNATURE).getSigningInput(), HEADER + "." + claims);
+    }
+
+    @Test
+    public void base64urlencode_shouldNotHavePadding() {
+        assertEquals(Base64Util.base64urlencode(new byte[]{(byte) 0xfb, (byte) 0xff}), "-_8");
+        assertEquals(Base64Util.base64urlencode(new byte[0]), "");
+    }
+
+    private static String encode(String json) {
+        return Base64Util.base64urlencode(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
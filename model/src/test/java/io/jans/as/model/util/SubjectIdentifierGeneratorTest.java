@@ -0,0 +1,30 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.model.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+import org.testng.annotations.Test;
+
+public class SubjectIdentifierGeneratorTest {
+
+    @Test
+    public void generatePairwiseSubjectIdentifier_matchesHmacSha256TestVector() throws Exception {
+        // RFC 4231, test case 2
+        assertEquals(SubjectIdentifierGenerator.generatePairwiseSubjectIdentifier("what do ya want ", "for nothing?", "Jefe", ""),
+                "W9zBRr9gdU5qBCQmCJV1x1oAPwidJzmDnexYuWTsOEM");
+    }
+
+    @Test
+    public void generatePairwiseSubjectIdentifier_isDeterministicPerSector() throws Exception {
+        final String first = SubjectIdentifierGenerator.generatePairwiseSubjectIdentifier("https://a.example.com", "user1", "key", "salt");
+
+        assertEquals(SubjectIdentifierGenerator.generatePairwiseSubjectIdentifier("https://a.example.com", "user1", "key", "salt"), first);
+        assertNotEquals(SubjectIdentifierGenerator.generatePairwiseSubjectIdentifier("https://b.example.com", "user1", "key", "salt"), first);
+    }
+}
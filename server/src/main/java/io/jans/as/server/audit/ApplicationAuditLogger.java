@@ -7,9 +7,20 @@
 package io.jans.as.server.audit;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.PostConstruct;
@@ -30,22 +41,40 @@ import org.apache.activemq.ActiveMQConnectionFactory;
 import org.apache.activemq.pool.PooledConnectionFactory;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.BooleanUtils;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.base.Objects;
 
 import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.server.model.audit.OAuth2AuditLog;
 import io.jans.as.server.util.ServerUtil;
-import io.jans.service.cdi.async.Asynchronous;
 import io.jans.service.cdi.event.ConfigurationUpdate;
 import io.jans.util.StringHelper;
 
+/**
+ * Sends audit events to JMS broker (or to log file if JMS is not configured).
+ * <p>
+ * Events are put in bounded queue and sent by single worker in batches (one JMS transaction per batch, up to
+ * auditLogBatchSize events) over long-lived session and producer. If broker is not available batch is appended to
+ * on-disk spool (auditLogSpoolDirectory) and broker is considered down: it is not called again until backoff delay
+ * (doubled on each failure, up to {@link #MAX_BROKER_RETRY_DELAY_IN_MILLIS}) elapses and meanwhile batches go straight
+ * to spool. Spool is replayed before live events and while it is not empty live events are appended to it, so events
+ * are delivered in order. Events which can't be queued or spooled are written to log file.
+ */
 @Named
 @ApplicationScoped
 @DependsOn("appInitializer")
 public class ApplicationAuditLogger {
 
+	private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+	private static final int DEFAULT_BATCH_SIZE = 100;
+	private static final int DEFAULT_FLUSH_INTERVAL_IN_MILLIS = 1000;
+	private static final long INITIAL_BROKER_RETRY_DELAY_IN_MILLIS = 1000;
+	private static final long MAX_BROKER_RETRY_DELAY_IN_MILLIS = 60000;
+
 	@Inject
 	private Logger log;
 
@@ -54,9 +83,7 @@ public class ApplicationAuditLogger {
 
 	private final String BROKER_URL_PREFIX = "failover:(";
 	private final String BROKER_URL_SUFFIX = ")?timeout=5000&jms.useAsyncSend=true";
-	private final int ACK_MODE = Session.AUTO_ACKNOWLEDGE;
 	private final String CLIENT_QUEUE_NAME = "oauth2.audit.logging";
-	private final boolean transacted = false;
 
 	private volatile PooledConnectionFactory pooledConnectionFactory;
 
@@ -66,12 +93,40 @@ public class ApplicationAuditLogger {
 
 	private final ReentrantLock lock = new ReentrantLock();
 
-	private boolean enabled;
-	private boolean sendAuditJms;
+	private volatile boolean enabled;
+	private volatile boolean sendAuditJms;
+
+	private final ObjectWriter jsonWriter = ServerUtil.createJsonMapper().configure(SerializationFeature.WRAP_ROOT_VALUE, false).writer();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+	private final AtomicBoolean resetConnection = new AtomicBoolean(false);
+
+	private final AtomicLong enqueuedCount = new AtomicLong();
+	private final AtomicLong sentCount = new AtomicLong();
+	private final AtomicLong spooledCount = new AtomicLong();
+	private final AtomicLong replayedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private BlockingQueue<QueuedEvent> queue;
+	private ScheduledExecutorService executor;
+
+	// used by worker thread only
+	private QueueConnection connection;
+	private QueueSession session;
+	private MessageProducer producer;
+	private AuditLogSpool spool;
+	private String spoolDirectory;
+	private boolean spoolPending;
+	private long brokerRetryDelayInMillis;
+	private long brokerDownUntil;
 
 	@PostConstruct
 	public void init() {
 		updateConfiguration(appConfiguration);
+
+		final int capacity = appConfiguration.getAuditLogQueueCapacity();
+		this.queue = new ArrayBlockingQueue<>(capacity > 0 ? capacity : DEFAULT_QUEUE_CAPACITY);
+		this.executor = Executors.newSingleThreadScheduledExecutor(ServerUtil.daemonThreadFactory());
+		this.executor.scheduleWithFixedDelay(this::flush, getFlushInterval(), getFlushInterval(), TimeUnit.MILLISECONDS);
 	}
 
 	public void updateConfiguration(@Observes @ConfigurationUpdate AppConfiguration appConfiguration) {
@@ -85,30 +140,52 @@ public class ApplicationAuditLogger {
 				|| !Objects.equal(this.jmsBrokerURISet, appConfiguration.getJmsBrokerURISet());
 
 		if (configChanged) {
-			destroy();
+			resetConnection.set(true);
 		}
 	}
 
-	@Asynchronous
+	/**
+	 * Queues audit event and returns immediately.
+	 */
 	public void sendMessage(OAuth2AuditLog oAuth2AuditLog) {
 		if (!enabled) {
 			return;
 		}
 
-		boolean messageDelivered = false;
-		if (sendAuditJms) {
-			if (tryToEstablishJMSConnection()) {
-				messageDelivered = loggingThroughJMS(oAuth2AuditLog);
-			}
+		if (!queue.offer(new QueuedEvent(oAuth2AuditLog))) {
+			droppedCount.incrementAndGet();
+			loggingThroughFile(oAuth2AuditLog); // queue is full, don't lose event
+			return;
 		}
 
-		if (!messageDelivered) {
-			loggingThroughFile(oAuth2AuditLog);
+		enqueuedCount.incrementAndGet();
+		if (queue.size() >= getBatchSize() && flushScheduled.compareAndSet(false, true)) {
+			executor.execute(this::flush);
 		}
 	}
 
 	@PreDestroy
 	public void destroy() {
+		if (executor == null) {
+			return;
+		}
+
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+				log.warn("Audit log worker did not stop in time.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		flush(); // send (or spool) pending events
+		closeJMSSession();
+		closeSpool();
+		closeConnectionFactory();
+	}
+
+	private void closeConnectionFactory() {
 		if (this.pooledConnectionFactory == null) {
 			return;
 		}
@@ -117,6 +194,161 @@ public class ApplicationAuditLogger {
 		this.pooledConnectionFactory = null;
 	}
 
+	private void flush() {
+		flushScheduled.set(false);
+		try {
+			if (resetConnection.compareAndSet(true, false)) {
+				closeJMSSession();
+				closeConnectionFactory();
+				brokerDownUntil = 0; // new broker configuration, try it right away
+			}
+
+			replaySpool(); // older events first
+
+			List<QueuedEvent> batch;
+			do {
+				batch = new ArrayList<>(getBatchSize());
+				queue.drainTo(batch, getBatchSize());
+				if (!batch.isEmpty()) {
+					processBatch(batch);
+				}
+			} while (batch.size() >= getBatchSize());
+		} catch (Exception e) {
+			log.error("Failed to flush audit log queue.", e);
+		}
+	}
+
+	private void processBatch(List<QueuedEvent> batch) {
+		if (!sendAuditJms) {
+			for (QueuedEvent event : batch) {
+				loggingThroughFile(event.auditLog);
+			}
+			return;
+		}
+
+		final List<String> messages = new ArrayList<>(batch.size());
+		for (QueuedEvent event : batch) {
+			try {
+				messages.add(jsonWriter.writeValueAsString(event.auditLog));
+			} catch (IOException e) {
+				log.error("Can't serialize the audit log", e);
+			}
+		}
+
+		// while spool is not empty new events are appended to it, otherwise they would overtake spooled ones
+		if (!isBrokerDown() && !spoolPending) {
+			if (send(messages)) {
+				sentCount.addAndGet(messages.size());
+				return;
+			}
+			onBrokerFailure();
+		}
+		if (spool(messages)) {
+			spoolPending = true;
+			spooledCount.addAndGet(messages.size());
+			return;
+		}
+		for (QueuedEvent event : batch) {
+			loggingThroughFile(event.auditLog);
+		}
+	}
+
+	private boolean spool(List<String> messages) {
+		final AuditLogSpool auditLogSpool = getSpool();
+		if (auditLogSpool == null) {
+			return false;
+		}
+
+		try {
+			if (auditLogSpool.append(messages)) {
+				return true;
+			}
+			log.error("Audit log spool is full, directory: {}", auditLogSpool.getDirectory());
+		} catch (IOException e) {
+			log.error("Failed to spool audit log", e);
+		}
+		return false;
+	}
+
+	private void replaySpool() throws IOException {
+		final AuditLogSpool auditLogSpool = getSpool();
+		if (auditLogSpool == null) {
+			spoolPending = false;
+			return;
+		}
+		if (!sendAuditJms || isBrokerDown()) {
+			spoolPending = !auditLogSpool.isEmpty();
+			return;
+		}
+
+		for (Path segment : auditLogSpool.getSegments()) {
+			final List<String> messages = auditLogSpool.read(segment);
+			int replayed = 0;
+			while (replayed < messages.size()) {
+				final List<String> batch = messages.subList(replayed, Math.min(replayed + getBatchSize(), messages.size()));
+				if (!send(batch)) {
+					break;
+				}
+				replayed += batch.size();
+			}
+
+			auditLogSpool.complete(segment, messages.subList(replayed, messages.size()));
+			replayedCount.addAndGet(replayed);
+			log.debug("Replayed {} audit events from spool segment {}", replayed, segment);
+
+			if (replayed < messages.size()) {
+				onBrokerFailure();
+				spoolPending = true;
+				return;
+			}
+		}
+		spoolPending = false;
+	}
+
+	private boolean isBrokerDown() {
+		return System.currentTimeMillis() < brokerDownUntil;
+	}
+
+	private void onBrokerFailure() {
+		brokerRetryDelayInMillis = brokerRetryDelayInMillis > 0 ?
+				Math.min(brokerRetryDelayInMillis * 2, MAX_BROKER_RETRY_DELAY_IN_MILLIS) : INITIAL_BROKER_RETRY_DELAY_IN_MILLIS;
+		brokerDownUntil = System.currentTimeMillis() + brokerRetryDelayInMillis;
+		log.warn("Audit log broker is not available, next attempt in {}ms", brokerRetryDelayInMillis);
+	}
+
+	private AuditLogSpool getSpool() {
+		final String directory = appConfiguration.getAuditLogSpoolDirectory();
+		if (StringUtils.isBlank(directory)) {
+			closeSpool();
+			return null;
+		}
+		if (spool != null && directory.equals(spoolDirectory)) {
+			return spool;
+		}
+
+		closeSpool();
+		try {
+			spool = new AuditLogSpool(Paths.get(directory), Math.max(appConfiguration.getAuditLogSpoolMaxSizeInMB(), 1) * 1024L * 1024L);
+			spoolDirectory = directory;
+		} catch (IOException e) {
+			log.error("Failed to open audit log spool, directory: " + directory, e);
+		}
+		return spool;
+	}
+
+	private void closeSpool() {
+		if (spool == null) {
+			return;
+		}
+		try {
+			spool.close();
+		} catch (IOException e) {
+			log.trace("Failed to close audit log spool", e);
+		}
+		spool = null;
+		spoolDirectory = null;
+	}
+
 	private boolean tryToEstablishJMSConnection() {
 		if (this.pooledConnectionFactory != null) {
 			return true;
@@ -169,39 +401,63 @@ public class ApplicationAuditLogger {
 		return true;
 	}
 
-	private boolean loggingThroughJMS(OAuth2AuditLog oAuth2AuditLog) {
-		QueueConnection connection = null;
+	/**
+	 * Sends messages in one transaction over long-lived session. Session is recreated after failure.
+	 */
+	private boolean send(List<String> messages) {
+		if (messages.isEmpty()) {
+			return true;
+		}
+		if (!tryToEstablishJMSConnection()) {
+			return false;
+		}
+
 		try {
-			connection = pooledConnectionFactory.createQueueConnection();
-			connection.start();
+			if (session == null) {
+				connection = pooledConnectionFactory.createQueueConnection();
+				connection.start();
 
-			QueueSession session = connection.createQueueSession(transacted, ACK_MODE);
-			MessageProducer producer = session.createProducer(session.createQueue(CLIENT_QUEUE_NAME));
+				session = connection.createQueueSession(true, Session.SESSION_TRANSACTED);
+				producer = session.createProducer(session.createQueue(CLIENT_QUEUE_NAME));
+			}
+
+			for (String message : messages) {
+				TextMessage txtMessage = session.createTextMessage();
+				txtMessage.setText(message);
+				producer.send(txtMessage);
+			}
+			session.commit();
 
-			TextMessage txtMessage = session.createTextMessage();
-			txtMessage.setText(ServerUtil.asPrettyJson(oAuth2AuditLog));
-			producer.send(txtMessage);
-			
+			brokerRetryDelayInMillis = 0;
 			return true;
 		} catch (JMSException e) {
 			log.error("Can't send message", e);
-		} catch (IOException e) {
-			log.error("Can't serialize the audit log", e);
 		} catch (Exception e) {
 			log.error("Can't send message, please check your activeMQ configuration.", e);
-		} finally {
-			if (connection == null) {
-				return false;
-			}
+		}
 
+		closeJMSSession();
+		return false;
+	}
+
+	private void closeJMSSession() {
+		if (session != null) {
+			try {
+				session.close();
+			} catch (JMSException e) {
+				log.trace("Can't close session.", e);
+			}
+		}
+		if (connection != null) {
 			try {
 				connection.close();
 			} catch (JMSException e) {
 				log.error("Can't close connection.");
 			}
 		}
-		
-		return false;
+		producer = null;
+		session = null;
+		connection = null;
 	}
 
 	private void loggingThroughFile(OAuth2AuditLog oAuth2AuditLog) {
@@ -212,4 +468,56 @@ public class ApplicationAuditLogger {
 		}
 	}
 
+	private int getBatchSize() {
+		final int batchSize = appConfiguration.getAuditLogBatchSize();
+		return batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+	}
+
+	private long getFlushInterval() {
+		final int interval = appConfiguration.getAuditLogFlushIntervalInMillis();
+		return interval > 0 ? interval : DEFAULT_FLUSH_INTERVAL_IN_MILLIS;
+	}
+
+	public int getQueueDepth() {
+		return queue != null ? queue.size() : 0;
+	}
+
+	/**
+	 * @return age of the oldest queued event in milliseconds
+	 */
+	public long getLagInMillis() {
+		final QueuedEvent oldest = queue != null ? queue.peek() : null;
+		return oldest != null ? System.currentTimeMillis() - oldest.queuedAt : 0;
+	}
+
+	public long getEnqueuedCount() {
+		return enqueuedCount.get();
+	}
+
+	public long getSentCount() {
+		return sentCount.get();
+	}
+
+	public long getSpooledCount() {
+		return spooledCount.get();
+	}
+
+	public long getReplayedCount() {
+		return replayedCount.get();
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	private static class QueuedEvent {
+
+		private final OAuth2AuditLog auditLog;
+		private final long queuedAt = System.currentTimeMillis();
+
+		private QueuedEvent(OAuth2AuditLog auditLog) {
+			this.auditLog = auditLog;
+		}
+	}
+
 }
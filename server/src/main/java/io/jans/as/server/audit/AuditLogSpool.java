@@ -0,0 +1,161 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only on-disk spool of audit events (one compact JSON per line).
+ * <p>
+ * Events are appended to current segment file, segment is rolled over when it reaches {@link #SEGMENT_SIZE}.
+ * Segments are replayed oldest first. Spool is used by single audit worker thread only, so it is not thread-safe.
+ */
+public class AuditLogSpool {
+
+    public static final long SEGMENT_SIZE = 4L * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final AtomicLong segmentSequence = new AtomicLong();
+
+    private FileChannel current;
+    private Path currentPath;
+    private long sizeInBytes;
+
+    public AuditLogSpool(Path directory, long maxSizeInBytes) throws IOException {
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+        Files.createDirectories(directory);
+        for (Path segment : getSegments()) {
+            sizeInBytes += Files.size(segment);
+        }
+    }
+
+    /**
+     * Appends events to spool.
+     *
+     * @return false if spool is full (events are not appended)
+     */
+    public boolean append(List<String> events) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        for (String event : events) {
+            builder.append(event).append('\n');
+        }
+        final byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        if (sizeInBytes + bytes.length > maxSizeInBytes) {
+            return false;
+        }
+
+        if (current == null || current.size() + bytes.length > SEGMENT_SIZE) {
+            rollOver();
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            current.write(buffer);
+        }
+        current.force(false);
+        sizeInBytes += bytes.length;
+        return true;
+    }
+
+    private void rollOver() throws IOException {
+        closeCurrent();
+        currentPath = directory.resolve(String.format("%s%015d-%06d%s", SEGMENT_PREFIX, System.currentTimeMillis(),
+                segmentSequence.incrementAndGet() % 1000000, SEGMENT_SUFFIX));
+        current = FileChannel.open(currentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @return segments, oldest first
+     */
+    public List<Path> getSegments() throws IOException {
+        final List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    public boolean isEmpty() throws IOException {
+        return getSegments().isEmpty();
+    }
+
+    /**
+     * Reads events of segment. Segment which is currently written is closed first, new events go to new segment.
+     */
+    public List<String> read(Path segment) throws IOException {
+        if (segment.equals(currentPath)) {
+            closeCurrent();
+        }
+
+        final List<String> events = new ArrayList<>();
+        for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                events.add(line);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Removes segment after all its events are replayed, or keeps only events which are not replayed yet.
+     */
+    public void complete(Path segment, List<String> remaining) throws IOException {
+        sizeInBytes -= Files.size(segment);
+        if (remaining.isEmpty()) {
+            Files.deleteIfExists(segment);
+            return;
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        for (String event : remaining) {
+            builder.append(event).append('\n');
+        }
+        final byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(segment, bytes, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        sizeInBytes += bytes.length;
+    }
+
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void closeCurrent() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+            currentPath = null;
+        }
+    }
+
+    public void close() throws IOException {
+        closeCurrent();
+    }
+}
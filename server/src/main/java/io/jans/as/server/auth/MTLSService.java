@@ -19,10 +19,10 @@ import io.jans.as.model.jwk.JSONWebKeySet;
 import io.jans.as.model.token.TokenErrorResponseType;
 import io.jans.as.model.util.CertUtils;
 import io.jans.as.model.util.HashUtil;
-import io.jans.as.model.util.JwtUtil;
 import io.jans.as.server.model.common.SessionId;
 import io.jans.as.server.model.common.SessionIdState;
 import io.jans.as.server.service.SessionIdService;
+import io.jans.as.server.service.net.JwksResolver;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.json.JSONObject;
@@ -64,6 +64,9 @@ public class MTLSService {
     @Inject
     private ErrorResponseFactory errorResponseFactory;
 
+    @Inject
+    private JwksResolver jwksResolver;
+
     public boolean processMTLS(HttpServletRequest httpRequest, HttpServletResponse httpResponse, FilterChain filterChain, Client client) throws Exception {
         log.debug("Trying to authenticate client {} via {} ...", client.getClientId(),
                 client.getAuthenticationMethod());
@@ -121,7 +124,7 @@ public class MTLSService {
             final byte[] encodedKey = publicKey.getEncoded();
 
             JSONObject jsonWebKeys = Strings.isNullOrEmpty(client.getJwks())
-                    ? JwtUtil.getJSONWebKeys(client.getJwksUri())
+                    ? jwksResolver.getJwks(client.getJwksUri())
                     : new JSONObject(client.getJwks());
 
             if (jsonWebKeys == null) {
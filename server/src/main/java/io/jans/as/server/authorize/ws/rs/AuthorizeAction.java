@@ -30,14 +30,11 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.ws.rs.HttpMethod;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.logging.log4j.util.Strings;
-import org.jboss.resteasy.client.ClientRequest;
-import org.jboss.resteasy.client.ClientResponse;
 import org.slf4j.Logger;
 
 import io.jans.as.common.model.common.User;
@@ -49,8 +46,6 @@ import io.jans.as.model.crypto.AbstractCryptoProvider;
 import io.jans.as.model.error.ErrorResponseFactory;
 import io.jans.as.model.exception.InvalidJwtException;
 import io.jans.as.model.jwt.JwtClaimName;
-import io.jans.as.model.util.Base64Util;
-import io.jans.as.model.util.JwtUtil;
 import io.jans.as.model.util.Util;
 import io.jans.as.persistence.model.Scope;
 import io.jans.as.server.auth.Authenticator;
@@ -80,6 +75,8 @@ import io.jans.as.server.service.external.ExternalAuthenticationService;
 import io.jans.as.server.service.external.ExternalConsentGatheringService;
 import io.jans.as.server.service.external.ExternalPostAuthnService;
 import io.jans.as.server.service.external.context.ExternalPostAuthnContext;
+import io.jans.as.server.service.net.RemoteDocumentFetcher;
+import io.jans.as.server.service.net.RemoteDocumentFetcher.Document;
 import io.jans.as.server.util.ServerUtil;
 import io.jans.jsf2.message.FacesMessages;
 import io.jans.jsf2.service.FacesService;
@@ -180,6 +177,9 @@ public class AuthorizeAction {
     @Inject
     private CibaRequestService cibaRequestService;
 
+    @Inject
+    private RemoteDocumentFetcher remoteDocumentFetcher;
+
 	@Inject
 	private Identity identity;
 
@@ -495,22 +495,15 @@ public class AuthorizeAction {
                 String reqUriHash = reqUri.getFragment();
                 String reqUriWithoutFragment = reqUri.getScheme() + ":" + reqUri.getSchemeSpecificPart();
 
-                ClientRequest clientRequest = new ClientRequest(reqUriWithoutFragment);
-                clientRequest.setHttpMethod(HttpMethod.GET);
+                final long lifetime = appConfiguration.getRequestUriCacheLifetimeInSeconds() * 1000L;
+                Document document = remoteDocumentFetcher.get(reqUriWithoutFragment, lifetime, 0,
+                        entity -> StringUtils.isBlank(reqUriHash) || StringUtils.equals(reqUriHash, JwtAuthorizationRequest.requestUriHash(entity)));
 
-                ClientResponse<String> clientResponse = clientRequest.get(String.class);
-                int status = clientResponse.getStatus();
+                if (document != null) {
+                    String entity = document.getContent();
 
-                if (status == 200) {
-                    String entity = clientResponse.getEntity(String.class);
-
-                    if (StringUtils.isBlank(reqUriHash)) {
+                    if (StringUtils.isBlank(reqUriHash) || StringUtils.equals(reqUriHash, JwtAuthorizationRequest.requestUriHash(entity))) {
                         requestJwt = entity;
-                    } else {
-                        String hash = Base64Util.base64urlencode(JwtUtil.getMessageDigestSHA256(entity));
-                        if (StringUtils.equals(reqUriHash, hash)) {
-                            requestJwt = entity;
-                        }
                     }
                 }
             } catch (Exception e) {
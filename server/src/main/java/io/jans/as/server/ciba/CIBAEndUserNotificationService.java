@@ -31,6 +31,7 @@ import io.jans.as.client.ciba.fcm.FirebaseCloudMessagingResponse;
 import io.jans.as.common.util.RedirectUri;
 import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.server.service.ciba.CibaEncryptionService;
+import io.jans.as.server.service.ciba.CibaNotificationEngine;
 import io.jans.as.server.service.external.ExternalCibaEndUserNotificationService;
 import io.jans.as.server.service.external.context.ExternalCibaEndUserNotificationContext;
 
@@ -50,6 +51,9 @@ public class CIBAEndUserNotificationService {
     @Inject
     private CibaEncryptionService cibaEncryptionService;
 
+    @Inject
+    private CibaNotificationEngine cibaNotificationEngine;
+
     @Inject
     private ExternalCibaEndUserNotificationService externalCibaEndUserNotificationService;
 
@@ -100,11 +104,16 @@ public class CIBAEndUserNotificationService {
         String clickAction = authorizationRequestUri.toString();
 
         FirebaseCloudMessagingRequest firebaseCloudMessagingRequest = new FirebaseCloudMessagingRequest(key, to, title, body, clickAction);
-        FirebaseCloudMessagingClient firebaseCloudMessagingClient = new FirebaseCloudMessagingClient(url);
-        firebaseCloudMessagingClient.setRequest(firebaseCloudMessagingRequest);
-        FirebaseCloudMessagingResponse firebaseCloudMessagingResponse = firebaseCloudMessagingClient.exec();
-
-        log.debug("CIBA: firebase cloud messaging result status " + firebaseCloudMessagingResponse.getStatus());
+        cibaNotificationEngine.send(url, () -> {
+            FirebaseCloudMessagingClient firebaseCloudMessagingClient = new FirebaseCloudMessagingClient(url);
+            firebaseCloudMessagingClient.setExecutor(cibaNotificationEngine.createClientExecutor(false));
+            firebaseCloudMessagingClient.setRequest(firebaseCloudMessagingRequest);
+            FirebaseCloudMessagingResponse firebaseCloudMessagingResponse = firebaseCloudMessagingClient.exec();
+
+            final int status = firebaseCloudMessagingResponse != null ? firebaseCloudMessagingResponse.getStatus() : -1;
+            log.debug("CIBA: firebase cloud messaging result status " + status);
+            return status;
+        });
     }
 
 }
\ No newline at end of file
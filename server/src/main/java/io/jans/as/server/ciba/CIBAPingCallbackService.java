@@ -17,6 +17,7 @@ import io.jans.as.client.ciba.ping.PingCallbackClient;
 import io.jans.as.client.ciba.ping.PingCallbackRequest;
 import io.jans.as.client.ciba.ping.PingCallbackResponse;
 import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.service.ciba.CibaNotificationEngine;
 
 /**
  * @author Javier Rojas Blum
@@ -31,16 +32,25 @@ public class CIBAPingCallbackService {
     @Inject
     private AppConfiguration appConfiguration;
 
+    @Inject
+    private CibaNotificationEngine cibaNotificationEngine;
+
     public void pingCallback(String authReqId, String clientNotificationEndpoint, String clientNotificationToken) {
         PingCallbackRequest pingCallbackRequest = new PingCallbackRequest();
 
         pingCallbackRequest.setClientNotificationToken(clientNotificationToken);
         pingCallbackRequest.setAuthReqId(authReqId);
 
-        PingCallbackClient pingCallbackClient = new PingCallbackClient(clientNotificationEndpoint, appConfiguration.getFapiCompatibility());
-        pingCallbackClient.setRequest(pingCallbackRequest);
-        PingCallbackResponse pingCallbackResponse = pingCallbackClient.exec();
-
-        log.debug("CIBA: ping callback result status " + pingCallbackResponse.getStatus());
+        final boolean fapiCompatibility = appConfiguration.getFapiCompatibility();
+        cibaNotificationEngine.send(clientNotificationEndpoint, () -> {
+            PingCallbackClient pingCallbackClient = new PingCallbackClient(clientNotificationEndpoint, fapiCompatibility);
+            pingCallbackClient.setExecutor(cibaNotificationEngine.createClientExecutor(fapiCompatibility));
+            pingCallbackClient.setRequest(pingCallbackRequest);
+            PingCallbackResponse pingCallbackResponse = pingCallbackClient.exec();
+
+            final int status = pingCallbackResponse != null ? pingCallbackResponse.getStatus() : -1;
+            log.debug("CIBA: ping callback result status " + status);
+            return status;
+        });
     }
 }
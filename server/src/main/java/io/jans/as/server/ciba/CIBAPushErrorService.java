@@ -7,6 +7,7 @@
 package io.jans.as.server.ciba;
 
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.slf4j.Logger;
@@ -16,6 +17,8 @@ import io.jans.as.client.ciba.push.PushErrorClient;
 import io.jans.as.client.ciba.push.PushErrorRequest;
 import io.jans.as.client.ciba.push.PushErrorResponse;
 import io.jans.as.model.ciba.PushErrorResponseType;
+import io.jans.as.server.service.ciba.CibaNotificationEngine;
+import io.jans.as.server.service.ciba.CibaNotificationEngine.RetryPolicy;
 
 /**
  * @author Javier Rojas Blum
@@ -27,6 +30,9 @@ public class CIBAPushErrorService {
 
     private final static Logger log = LoggerFactory.getLogger(CIBAPushErrorService.class);
 
+    @Inject
+    private CibaNotificationEngine cibaNotificationEngine;
+
     public void pushError(String authReqId, String clientNotificationEndpoint, String clientNotificationToken,
                           PushErrorResponseType error, String errorDescription) {
         PushErrorRequest pushErrorRequest = new PushErrorRequest();
@@ -36,10 +42,15 @@ public class CIBAPushErrorService {
         pushErrorRequest.setErrorType(error);
         pushErrorRequest.setErrorDescription(errorDescription);
 
-        PushErrorClient pushErrorClient = new PushErrorClient(clientNotificationEndpoint);
-        pushErrorClient.setRequest(pushErrorRequest);
-        PushErrorResponse pushErrorResponse = pushErrorClient.exec();
+        cibaNotificationEngine.send(clientNotificationEndpoint, RetryPolicy.NOT_PROCESSED, () -> {
+            PushErrorClient pushErrorClient = new PushErrorClient(clientNotificationEndpoint);
+            pushErrorClient.setExecutor(cibaNotificationEngine.createClientExecutor(false));
+            pushErrorClient.setRequest(pushErrorRequest);
+            PushErrorResponse pushErrorResponse = pushErrorClient.exec();
 
-        log.debug("CIBA: push error result status " + pushErrorResponse.getStatus());
+            final int status = pushErrorResponse != null ? pushErrorResponse.getStatus() : -1;
+            log.debug("CIBA: push error result status " + status);
+            return status;
+        });
     }
 }
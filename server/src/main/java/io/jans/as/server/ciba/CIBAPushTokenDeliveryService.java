@@ -7,6 +7,7 @@
 package io.jans.as.server.ciba;
 
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.slf4j.Logger;
@@ -16,6 +17,8 @@ import io.jans.as.client.ciba.push.PushTokenDeliveryClient;
 import io.jans.as.client.ciba.push.PushTokenDeliveryRequest;
 import io.jans.as.client.ciba.push.PushTokenDeliveryResponse;
 import io.jans.as.model.common.TokenType;
+import io.jans.as.server.service.ciba.CibaNotificationEngine;
+import io.jans.as.server.service.ciba.CibaNotificationEngine.RetryPolicy;
 
 /**
  * @author Javier Rojas Blum
@@ -27,6 +30,9 @@ public class CIBAPushTokenDeliveryService {
 
     private final static Logger log = LoggerFactory.getLogger(CIBAPushTokenDeliveryService.class);
 
+    @Inject
+    private CibaNotificationEngine cibaNotificationEngine;
+
     public void pushTokenDelivery(String authReqId, String clientNotificationEndpoint, String clientNotificationToken,
                                   String accessToken, String refreshToken, String idToken, Integer expiresIn) {
         PushTokenDeliveryRequest pushTokenDeliveryRequest = new PushTokenDeliveryRequest();
@@ -39,10 +45,15 @@ public class CIBAPushTokenDeliveryService {
         pushTokenDeliveryRequest.setExpiresIn(expiresIn);
         pushTokenDeliveryRequest.setIdToken(idToken);
 
-        PushTokenDeliveryClient pushTokenDeliveryClient = new PushTokenDeliveryClient(clientNotificationEndpoint);
-        pushTokenDeliveryClient.setRequest(pushTokenDeliveryRequest);
-        PushTokenDeliveryResponse pushTokenDeliveryResponse = pushTokenDeliveryClient.exec();
+        cibaNotificationEngine.send(clientNotificationEndpoint, RetryPolicy.NOT_PROCESSED, () -> {
+            PushTokenDeliveryClient pushTokenDeliveryClient = new PushTokenDeliveryClient(clientNotificationEndpoint);
+            pushTokenDeliveryClient.setExecutor(cibaNotificationEngine.createClientExecutor(false));
+            pushTokenDeliveryClient.setRequest(pushTokenDeliveryRequest);
+            PushTokenDeliveryResponse pushTokenDeliveryResponse = pushTokenDeliveryClient.exec();
 
-        log.debug("CIBA: push token delivery result status " + pushTokenDeliveryResponse.getStatus());
+            final int status = pushTokenDeliveryResponse != null ? pushTokenDeliveryResponse.getStatus() : -1;
+            log.debug("CIBA: push token delivery result status " + status);
+            return status;
+        });
     }
 }
@@ -16,12 +16,8 @@ import java.util.List;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.ws.rs.HttpMethod;
 
 import org.apache.logging.log4j.util.Strings;
-import org.jboss.resteasy.client.ClientRequest;
-import org.jboss.resteasy.client.ClientResponse;
-import org.json.JSONArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,7 +26,7 @@ import io.jans.as.model.common.GrantType;
 import io.jans.as.model.common.SubjectType;
 import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.model.crypto.signature.AsymmetricSignatureAlgorithm;
-import io.jans.as.model.util.Util;
+import io.jans.as.server.service.RedirectionUriService;
 
 /**
  * @author Javier Rojas Blum
@@ -45,6 +41,9 @@ public class CIBARegisterParamsValidatorService {
     @Inject
     private AppConfiguration appConfiguration;
 
+    @Inject
+    private RedirectionUriService redirectionUriService;
+
     public boolean validateParams(
             BackchannelTokenDeliveryMode backchannelTokenDeliveryMode, String backchannelClientNotificationEndpoint,
             AsymmetricSignatureAlgorithm backchannelAuthenticationRequestSigningAlg, Boolean backchannelUserCodeParameter,
@@ -88,29 +87,21 @@ public class CIBARegisterParamsValidatorService {
                 }
 
                 if (Strings.isNotBlank(sectorIdentifierUri)) {
-                    ClientRequest clientRequest = new ClientRequest(sectorIdentifierUri);
-                    clientRequest.setHttpMethod(HttpMethod.GET);
-
-                    ClientResponse<String> clientResponse = clientRequest.get(String.class);
-                    int status = clientResponse.getStatus();
-
-                    if (status != 200) {
+                    List<String> sectorRedirectUris = redirectionUriService.getSectorRedirectUris(sectorIdentifierUri);
+                    if (sectorRedirectUris.isEmpty()) {
                         return false;
                     }
 
-                    String entity = clientResponse.getEntity(String.class);
-                    JSONArray sectorIdentifierJsonArray = new JSONArray(entity);
-
                     if (backchannelTokenDeliveryMode == PING || backchannelTokenDeliveryMode == POLL) {
                         // If a sector_identifier_uri is explicitly provided, then the jwks_uri must be included in the list of
                         // URIs pointed to by the sector_identifier_uri.
-                        if (!Strings.isBlank(jwksUri) && !Util.asList(sectorIdentifierJsonArray).contains(jwksUri)) {
+                        if (!Strings.isBlank(jwksUri) && !sectorRedirectUris.contains(jwksUri)) {
                             return false;
                         }
                     } else if (backchannelTokenDeliveryMode == PUSH) {
                         // In case a sector_identifier_uri is explicitly provided, then the backchannel_client_notification_endpoint
                         // must be included in the list of URIs pointed to by the sector_identifier_uri.
-                        if (!Util.asList(sectorIdentifierJsonArray).contains(backchannelClientNotificationEndpoint)) {
+                        if (!sectorRedirectUris.contains(backchannelClientNotificationEndpoint)) {
                             return false;
                         }
                     }
@@ -23,6 +23,7 @@ import io.jans.as.server.model.common.AuthorizationGrant;
 import io.jans.as.server.model.common.AuthorizationGrantList;
 import io.jans.as.server.model.token.JwtSigner;
 import io.jans.as.server.service.ClientService;
+import io.jans.as.server.service.IntrospectionResponseCache;
 import io.jans.as.server.service.external.ExternalIntrospectionService;
 import io.jans.as.server.service.external.context.ExternalIntrospectionContext;
 import io.jans.as.server.service.token.TokenService;
@@ -80,6 +81,8 @@ public class IntrospectionWebService {
     private AttributeService attributeService;
     @Inject
     private WebKeysConfiguration webKeysConfiguration;
+    @Inject
+    private IntrospectionResponseCache introspectionResponseCache;
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
@@ -143,6 +146,18 @@ public class IntrospectionWebService {
         try {
             log.trace("Introspect token, authorization: {}, token to introspect: {}, tokenTypeHint: {}", p_authorization, p_token, tokenTypeHint);
 
+            final boolean asJwt = Boolean.TRUE.toString().equalsIgnoreCase(responseAsJwt);
+            final String callerKey = ServerUtil.isTrue(appConfiguration.getIntrospectionSkipAuthorization()) ?
+                    IntrospectionResponseCache.callerKey(null) : IntrospectionResponseCache.callerKey(tokenService.getToken(p_authorization));
+            final IntrospectionResponseCache.CachedResponse cachedResponse = introspectionResponseCache.isEnabled() && isBasicClientValid(p_authorization) ?
+                    introspectionResponseCache.get(callerKey, p_token, asJwt) : null;
+            if (cachedResponse != null) {
+                log.trace("Introspection response is taken from cache.");
+                return cachedResponse.isJwt() ?
+                        Response.status(Response.Status.OK).entity(cachedResponse.getEntity()).build() :
+                        Response.status(Response.Status.OK).entity(cachedResponse.getEntity()).type(MediaType.APPLICATION_JSON_TYPE).build();
+            }
+
             AuthorizationGrant authorizationGrant = validateAuthorization(p_authorization, p_token);
 
             if (StringUtils.isBlank(p_token)) {
@@ -152,7 +167,7 @@ public class IntrospectionWebService {
 
             final io.jans.as.model.common.IntrospectionResponse response = new io.jans.as.model.common.IntrospectionResponse(false);
 
-            final AuthorizationGrant grantOfIntrospectionToken = authorizationGrantList.getAuthorizationGrantByAccessToken(p_token);
+            final AuthorizationGrant grantOfIntrospectionToken = authorizationGrantList.getAuthorizationGrantByAccessToken(p_token, introspectionUserAttributes());
 
             AbstractToken tokenToIntrospect = null;
             if (grantOfIntrospectionToken != null) {
@@ -192,11 +207,16 @@ public class IntrospectionWebService {
             	String scopes = StringUtils.join(response.getScope().toArray(), " ");
             	responseAsJsonObject.put("scope", scopes);
             }
-            if (Boolean.TRUE.toString().equalsIgnoreCase(responseAsJwt)) {
-                return Response.status(Response.Status.OK).entity(createResponseAsJwt(responseAsJsonObject, grantOfIntrospectionToken)).build();
+            final String entity = asJwt ? createResponseAsJwt(responseAsJsonObject, grantOfIntrospectionToken) : responseAsJsonObject.toString();
+            if (response.isActive() && responseAsJsonObject.optBoolean("active", false)) {
+                introspectionResponseCache.put(callerKey, p_token, asJwt, entity, tokenToIntrospect.getExpirationDate());
             }
 
-            return Response.status(Response.Status.OK).entity(responseAsJsonObject.toString()).type(MediaType.APPLICATION_JSON_TYPE).build();
+            if (asJwt) {
+                return Response.status(Response.Status.OK).entity(entity).build();
+            }
+
+            return Response.status(Response.Status.OK).entity(entity).type(MediaType.APPLICATION_JSON_TYPE).build();
 
         } catch (WebApplicationException e) {
             log.error(e.getMessage(), e);
@@ -207,6 +227,18 @@ public class IntrospectionWebService {
         }
     }
 
+    /**
+     * Attributes of user needed for introspection response (username and sub). If introspection scripts are
+     * enabled they may read any user attribute, so all attributes are loaded.
+     */
+    private String[] introspectionUserAttributes() {
+        final String subAttribute = appConfiguration.getOpenidSubAttribute();
+        if (externalIntrospectionService.isEnabled() || StringUtils.isBlank(subAttribute)) {
+            return new String[0];
+        }
+        return new String[]{"uid", "inum", subAttribute};
+    }
+
     private String createResponseAsJwt(JSONObject response, AuthorizationGrant grant) throws Exception {
         final JwtSigner jwtSigner = JwtSigner.newJwtSigner(appConfiguration, webKeysConfiguration, grant.getClient());
         final Jwt jwt = jwtSigner.newJwt();
@@ -260,30 +292,49 @@ public class IntrospectionWebService {
         if (grant != null) {
             return new Pair<>(grant, false);
         }
-        if (tokenService.isBasicAuthToken(authorization)) {
-            
-            String encodedCredentials = tokenService.getBasicToken(authorization);
-
-            String token = new String(Base64.decodeBase64(encodedCredentials), Util.UTF8_STRING_ENCODING);
-
-            int delim = token.indexOf(":");
-
-            if (delim != -1) {
-                String clientId = URLDecoder.decode(token.substring(0, delim), Util.UTF8_STRING_ENCODING);
-                String password = URLDecoder.decode(token.substring(delim + 1), Util.UTF8_STRING_ENCODING);
-                if (clientService.authenticate(clientId, password)) {
-                    grant = authorizationGrantList.getAuthorizationGrantByAccessToken(accessToken);
-                    if (grant != null && !grant.getClientId().equals(clientId)) {
-                        log.trace("Failed to match grant object clientId and client id provided during authentication.");
-                        return EMPTY;
-                    }
-                    return new Pair<>(grant, true);
-                } else {
-                    log.trace("Failed to perform basic authentication for client: " + clientId);
-                }
+        final String clientId = authenticateBasicClient(authorization);
+        if (clientId != null) {
+            grant = authorizationGrantList.getAuthorizationGrantByAccessToken(accessToken);
+            if (grant != null && !grant.getClientId().equals(clientId)) {
+                log.trace("Failed to match grant object clientId and client id provided during authentication.");
+                return EMPTY;
             }
+            return new Pair<>(grant, true);
         }
         return EMPTY;
     }
 
+    /**
+     * @return client id if authorization has valid client credentials (basic), otherwise null
+     */
+    private String authenticateBasicClient(String authorization) throws UnsupportedEncodingException {
+        if (!tokenService.isBasicAuthToken(authorization)) {
+            return null;
+        }
+
+        String encodedCredentials = tokenService.getBasicToken(authorization);
+
+        String token = new String(Base64.decodeBase64(encodedCredentials), Util.UTF8_STRING_ENCODING);
+
+        int delim = token.indexOf(":");
+
+        if (delim != -1) {
+            String clientId = URLDecoder.decode(token.substring(0, delim), Util.UTF8_STRING_ENCODING);
+            String password = URLDecoder.decode(token.substring(delim + 1), Util.UTF8_STRING_ENCODING);
+            if (clientService.authenticate(clientId, password)) {
+                return clientId;
+            }
+            log.trace("Failed to perform basic authentication for client: " + clientId);
+        }
+        return null;
+    }
+
+    // client secret can be rotated or client removed while its caller key is cached, so client credentials are checked on every hit
+    private boolean isBasicClientValid(String authorization) throws UnsupportedEncodingException {
+        if (ServerUtil.isTrue(appConfiguration.getIntrospectionSkipAuthorization()) || !tokenService.isBasicAuthToken(authorization)) {
+            return true;
+        }
+        return authenticateBasicClient(authorization) != null;
+    }
+
 }
@@ -29,10 +29,11 @@ import io.jans.as.model.util.JwtUtil;
 import io.jans.as.model.util.Util;
 import io.jans.as.server.service.ClientService;
 import io.jans.as.server.service.RedirectUriResponse;
+import io.jans.as.server.service.net.JwksResolver;
+import io.jans.as.server.service.net.RemoteDocumentFetcher;
+import io.jans.as.server.service.net.RemoteDocumentFetcher.Document;
 import io.jans.service.cdi.util.CdiUtil;
 import org.apache.commons.lang.StringUtils;
-import org.jboss.resteasy.client.ClientRequest;
-import org.jboss.resteasy.client.ClientResponse;
 import org.jetbrains.annotations.Nullable;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -40,7 +41,6 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.ws.rs.HttpMethod;
 import javax.ws.rs.WebApplicationException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
@@ -309,7 +309,7 @@ public class JwtAuthorizationRequest {
         ClientService clientService = CdiUtil.bean(ClientService.class);
         String sharedSecret = clientService.decryptSecret(client.getClientSecret());
         JSONObject jwks = Strings.isNullOrEmpty(client.getJwks()) ?
-                JwtUtil.getJSONWebKeys(client.getJwksUri()) :
+                CdiUtil.bean(JwksResolver.class).getJwks(client.getJwksUri(), keyId) :
                 new JSONObject(client.getJwks());
         return cryptoProvider.verifySignature(signingInput, signature, keyId, jwks, sharedSecret, signatureAlgorithm);
     }
@@ -459,22 +459,15 @@ public class JwtAuthorizationRequest {
             String reqUriHash = reqUri.getFragment();
             String reqUriWithoutFragment = reqUri.getScheme() + ":" + reqUri.getSchemeSpecificPart();
 
-            ClientRequest clientRequest = new ClientRequest(reqUriWithoutFragment);
-            clientRequest.setHttpMethod(HttpMethod.GET);
-
-            ClientResponse<String> clientResponse = clientRequest.get(String.class);
-            int status = clientResponse.getStatus();
+            final long lifetime = appConfiguration.getRequestUriCacheLifetimeInSeconds() * 1000L;
+            final boolean verifyHash = StringUtils.isNotBlank(reqUriHash) && appConfiguration.getRequestUriHashVerificationEnabled();
+            Document document = CdiUtil.bean(RemoteDocumentFetcher.class).get(reqUriWithoutFragment, lifetime, 0,
+                    content -> !verifyHash || StringUtils.equals(reqUriHash, requestUriHash(content)));
 
             String request = null;
-            if (status == 200) {
-                request = clientResponse.getEntity(String.class);
-
-                if (StringUtils.isBlank(reqUriHash) || !appConfiguration.getRequestUriHashVerificationEnabled()) {
-                    validRequestUri = true;
-                } else {
-                    String hash = Base64Util.base64urlencode(JwtUtil.getMessageDigestSHA256(request));
-                    validRequestUri = StringUtils.equals(reqUriHash, hash);
-                }
+            if (document != null) {
+                request = document.getContent();
+                validRequestUri = !verifyHash || StringUtils.equals(reqUriHash, requestUriHash(request));
             }
 
             if (!validRequestUri && redirectUriResponse != null) {
@@ -489,6 +482,20 @@ public class JwtAuthorizationRequest {
         }
     }
 
+    /**
+     * @return base64url encoded SHA-256 hash of request object fetched from request_uri (compared to request_uri
+     * fragment), or null if it can't be computed
+     */
+    @Nullable
+    public static String requestUriHash(String content) {
+        try {
+            return Base64Util.base64urlencode(JwtUtil.getMessageDigestSHA256(content));
+        } catch (Exception e) {
+            log.error("Failed to compute hash of request uri content.", e);
+            return null;
+        }
+    }
+
     public static JwtAuthorizationRequest createJwtRequest(String request, String requestUri, Client client, RedirectUriResponse redirectUriResponse, AbstractCryptoProvider cryptoProvider, AppConfiguration appConfiguration) {
         final String requestFromClient = queryRequest(requestUri, redirectUriResponse, appConfiguration);
         if (StringUtils.isNotBlank(requestFromClient)) {
@@ -220,9 +220,16 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
 
     @Override
     public AuthorizationGrant getAuthorizationGrantByAccessToken(String accessToken) {
+        return getAuthorizationGrantByAccessToken(accessToken, new String[0]);
+    }
+
+    /**
+     * @param userAttributes attributes of user loaded into grant, all attributes are loaded if none is given
+     */
+    public AuthorizationGrant getAuthorizationGrantByAccessToken(String accessToken, String... userAttributes) {
         final TokenLdap tokenLdap = grantService.getGrantByCode(accessToken);
         if (tokenLdap != null && (tokenLdap.getTokenTypeEnum() == io.jans.as.server.model.ldap.TokenType.ACCESS_TOKEN || tokenLdap.getTokenTypeEnum() == io.jans.as.server.model.ldap.TokenType.LONG_LIVED_ACCESS_TOKEN)) {
-            return asGrant(tokenLdap);
+            return asGrant(tokenLdap, userAttributes);
         }
         return null;
     }
@@ -240,10 +247,14 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
     }
 
     public AuthorizationGrant asGrant(TokenLdap tokenLdap) {
+        return asGrant(tokenLdap, new String[0]);
+    }
+
+    public AuthorizationGrant asGrant(TokenLdap tokenLdap, String... userAttributes) {
         if (tokenLdap != null) {
             final AuthorizationGrantType grantType = AuthorizationGrantType.fromString(tokenLdap.getGrantType());
             if (grantType != null) {
-                final User user = userService.getUser(tokenLdap.getUserId());
+                final User user = userService.getUser(tokenLdap.getUserId(), userAttributes);
                 final Client client = clientService.getClient(tokenLdap.getClientId());
                 final Date authenticationTime = tokenLdap.getAuthenticationTime();
                 final String nonce = tokenLdap.getNonce();
@@ -6,8 +6,13 @@
 
 package io.jans.as.server.model.common;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import javax.enterprise.inject.Instance;
@@ -17,19 +22,41 @@ import org.apache.commons.lang.StringUtils;
 import io.jans.as.common.model.common.User;
 import io.jans.as.common.model.registration.Client;
 import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.service.ClientService;
+import io.jans.as.server.service.UserService;
+import io.jans.service.cdi.util.CdiUtil;
 
 /**
+ * Grant representation which is put in cache (authorization code, CIBA, device code).
+ * <p>
+ * Client is not serialized, only reference (client id) is kept and client is re-hydrated via client service (which
+ * has its own cache) on first access. User is kept the same way only if user cache is enabled
+ * (userCacheLifetimeInSeconds), otherwise re-hydration would cost persistence read per grant lookup, so user is
+ * embedded, trading cache bytes for that read. Serialized form is versioned binary (see {@link #writeExternal(ObjectOutput)}),
+ * new fields must be appended and guarded by version.
+ *
  * @author yuriyz
  * @version November 28, 2018
  */
-public class CacheGrant implements Serializable {
+public class CacheGrant implements Externalizable {
+
+    private static final long serialVersionUID = 3126403425397133853L;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte REF_NONE = 0;
+    private static final byte REF_ID = 1;
+    private static final byte REF_EMBEDDED = 2;
 
     private String authorizationCodeString;
     private Date authorizationCodeCreationDate;
     private Date authorizationCodeExpirationDate;
 
-    private User user;
-    private Client client;
+    private transient User user;
+    private transient Client client;
+    private transient boolean embedUser;
+    private String userDn;
+    private String clientId;
     private Date authenticationTime;
     private Set<String> scopes;
     private String grantId;
@@ -59,9 +86,10 @@ public class CacheGrant implements Serializable {
             authorizationCodeExpirationDate = grant.getAuthorizationCode().getExpirationDate();
         }
         initExpiresIn(grant, appConfiguration);
+        embedUser = appConfiguration.getUserCacheLifetimeInSeconds() <= 0;
 
-        user = grant.getUser();
-        client = grant.getClient();
+        setUser(grant.getUser());
+        setClient(grant.getClient());
         authenticationTime = grant.getAuthenticationTime();
         scopes = grant.getScopes();
         tokenBindingHash = grant.getTokenBindingHash();
@@ -81,9 +109,10 @@ public class CacheGrant implements Serializable {
             authorizationCodeExpirationDate = grant.getAuthorizationCode().getExpirationDate();
         }
         initExpiresIn(grant, appConfiguration);
+        embedUser = appConfiguration.getUserCacheLifetimeInSeconds() <= 0;
 
-        user = grant.getUser();
-        client = grant.getClient();
+        setUser(grant.getUser());
+        setClient(grant.getClient());
         authenticationTime = grant.getAuthenticationTime();
         scopes = grant.getScopes();
         tokenBindingHash = grant.getTokenBindingHash();
@@ -106,9 +135,10 @@ public class CacheGrant implements Serializable {
             authorizationCodeExpirationDate = grant.getAuthorizationCode().getExpirationDate();
         }
         initExpiresIn(grant, appConfiguration);
+        embedUser = appConfiguration.getUserCacheLifetimeInSeconds() <= 0;
 
-        user = grant.getUser();
-        client = grant.getClient();
+        setUser(grant.getUser());
+        setClient(grant.getClient());
         authenticationTime = grant.getAuthenticationTime();
         scopes = grant.getScopes();
         tokenBindingHash = grant.getTokenBindingHash();
@@ -143,11 +173,23 @@ public class CacheGrant implements Serializable {
     }
 
     public User getUser() {
+        if (user == null && StringUtils.isNotBlank(userDn)) {
+            user = CdiUtil.bean(UserService.class).getUserByDn(userDn);
+        }
         return user;
     }
 
     public void setUser(User user) {
         this.user = user;
+        this.userDn = user != null ? user.getDn() : null;
+    }
+
+    public String getUserDn() {
+        return userDn;
+    }
+
+    void setEmbedUser(boolean embedUser) {
+        this.embedUser = embedUser;
     }
 
     public Set<String> getScopes() {
@@ -167,11 +209,19 @@ public class CacheGrant implements Serializable {
     }
 
     public Client getClient() {
+        if (client == null && StringUtils.isNotBlank(clientId)) {
+            client = CdiUtil.bean(ClientService.class).getClient(clientId);
+        }
         return client;
     }
 
     public void setClient(Client client) {
         this.client = client;
+        this.clientId = client != null ? client.getClientId() : null;
+    }
+
+    public String getClientId() {
+        return clientId;
     }
 
     public Date getAuthenticationTime() {
@@ -240,7 +290,7 @@ public class CacheGrant implements Serializable {
 
     public AuthorizationCodeGrant asCodeGrant(Instance<AbstractAuthorizationGrant> grantInstance) {
         AuthorizationCodeGrant grant = grantInstance.select(AuthorizationCodeGrant.class).get();
-        grant.init(user, client, authenticationTime);
+        grant.init(getUser(), getClient(), authenticationTime);
 
         grant.setAuthorizationCode(new AuthorizationCode(authorizationCodeString, authorizationCodeCreationDate, authorizationCodeExpirationDate));
         grant.setScopes(scopes);
@@ -257,7 +307,7 @@ public class CacheGrant implements Serializable {
 
     public CIBAGrant asCibaGrant(Instance<AbstractAuthorizationGrant> grantInstance) {
         CIBAGrant grant = grantInstance.select(CIBAGrant.class).get();
-        grant.init(user, AuthorizationGrantType.CIBA,  client, authenticationTime);
+        grant.init(getUser(), AuthorizationGrantType.CIBA, getClient(), authenticationTime);
         grant.setScopes(scopes);
         grant.setGrantId(grantId);
         grant.setSessionDn(sessionDn);
@@ -274,7 +324,7 @@ public class CacheGrant implements Serializable {
 
     public DeviceCodeGrant asDeviceCodeGrant(Instance<AbstractAuthorizationGrant> grantInstance) {
         DeviceCodeGrant grant = grantInstance.select(DeviceCodeGrant.class).get();
-        grant.init(user, AuthorizationGrantType.DEVICE_CODE,  client, authenticationTime);
+        grant.init(getUser(), AuthorizationGrantType.DEVICE_CODE, getClient(), authenticationTime);
         grant.setScopes(scopes);
         grant.setGrantId(grantId);
         grant.setSessionDn(sessionDn);
@@ -319,12 +369,141 @@ public class CacheGrant implements Serializable {
         return deviceCode;
     }
 
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+
+        writeString(out, authorizationCodeString);
+        writeDate(out, authorizationCodeCreationDate);
+        writeDate(out, authorizationCodeExpirationDate);
+
+        if (StringUtils.isNotBlank(userDn) && (user == null || !embedUser)) {
+            out.writeByte(REF_ID);
+            writeString(out, userDn);
+        } else if (user != null) { // user cache is off or user is not persisted (e.g. created by script)
+            out.writeByte(REF_EMBEDDED);
+            out.writeObject(user);
+        } else {
+            out.writeByte(REF_NONE);
+        }
+
+        if (StringUtils.isNotBlank(clientId)) {
+            out.writeByte(REF_ID);
+            writeString(out, clientId);
+        } else if (client != null) {
+            out.writeByte(REF_EMBEDDED);
+            out.writeObject(client);
+        } else {
+            out.writeByte(REF_NONE);
+        }
+
+        writeDate(out, authenticationTime);
+        if (scopes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(scopes.size());
+            for (String scope : scopes) {
+                writeString(out, scope);
+            }
+        }
+        writeString(out, grantId);
+        writeString(out, tokenBindingHash);
+        writeString(out, nonce);
+        writeString(out, codeChallenge);
+        writeString(out, codeChallengeMethod);
+        writeString(out, claims);
+        writeString(out, deviceCode);
+        writeString(out, acrValues);
+        writeString(out, sessionDn);
+        out.writeInt(expiresIn);
+        writeString(out, authReqId);
+        out.writeBoolean(tokensDelivered);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        final byte version = in.readByte();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported cache grant format version: " + version);
+        }
+
+        authorizationCodeString = readString(in);
+        authorizationCodeCreationDate = readDate(in);
+        authorizationCodeExpirationDate = readDate(in);
+
+        final byte userRef = in.readByte();
+        if (userRef == REF_ID) {
+            userDn = readString(in);
+        } else if (userRef == REF_EMBEDDED) {
+            user = (User) in.readObject();
+            userDn = user != null ? user.getDn() : null;
+            embedUser = true;
+        }
+
+        final byte clientRef = in.readByte();
+        if (clientRef == REF_ID) {
+            clientId = readString(in);
+        } else if (clientRef == REF_EMBEDDED) {
+            client = (Client) in.readObject();
+        }
+
+        authenticationTime = readDate(in);
+        final int scopesSize = in.readInt();
+        if (scopesSize >= 0) {
+            scopes = new LinkedHashSet<>(scopesSize);
+            for (int i = 0; i < scopesSize; i++) {
+                scopes.add(readString(in));
+            }
+        }
+        grantId = readString(in);
+        tokenBindingHash = readString(in);
+        nonce = readString(in);
+        codeChallenge = readString(in);
+        codeChallengeMethod = readString(in);
+        claims = readString(in);
+        deviceCode = readString(in);
+        acrValues = readString(in);
+        sessionDn = readString(in);
+        expiresIn = in.readInt();
+        authReqId = readString(in);
+        tokensDelivered = in.readBoolean();
+    }
+
+    private static void writeString(ObjectOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ObjectInput in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(ObjectOutput out, Date date) throws IOException {
+        out.writeLong(date != null ? date.getTime() : Long.MIN_VALUE);
+    }
+
+    private static Date readDate(ObjectInput in) throws IOException {
+        final long time = in.readLong();
+        return time != Long.MIN_VALUE ? new Date(time) : null;
+    }
+
     @Override
     public String toString() {
         return "MemcachedGrant{" +
                 "authorizationCode=" + authorizationCodeString +
-                ", user=" + user +
-                ", client=" + client +
+                ", userDn=" + userDn +
+                ", clientId=" + clientId +
                 ", authenticationTime=" + authenticationTime +
                 '}';
     }
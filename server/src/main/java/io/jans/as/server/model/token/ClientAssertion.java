@@ -26,8 +26,8 @@ import io.jans.as.model.jwt.JwtClaimName;
 import io.jans.as.model.jwt.JwtHeaderName;
 import io.jans.as.model.jwt.JwtType;
 import io.jans.as.model.token.ClientAssertionType;
-import io.jans.as.model.util.JwtUtil;
 import io.jans.as.server.service.ClientService;
+import io.jans.as.server.service.net.JwksResolver;
 import io.jans.service.cdi.util.CdiUtil;
 import io.jans.util.security.StringEncrypter;
 
@@ -110,7 +110,7 @@ public class ClientAssertion {
                                         // Validate the crypto segment
                                         String keyId = jwt.getHeader().getKeyId();
                                         JSONObject jwks = Strings.isNullOrEmpty(client.getJwks()) ?
-                                                JwtUtil.getJSONWebKeys(client.getJwksUri()) :
+                                                CdiUtil.bean(JwksResolver.class).getJwks(client.getJwksUri(), keyId) :
                                                 new JSONObject(client.getJwks());
                                         String sharedSecret = clientService.decryptSecret(client.getClientSecret());
                                         boolean validSignature = cryptoProvider.verifySignature(jwt.getSigningInput(), jwt.getEncodedSignature(),
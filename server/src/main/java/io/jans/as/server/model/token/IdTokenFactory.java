@@ -11,7 +11,6 @@ import com.google.common.collect.Lists;
 import io.jans.as.common.claims.Audience;
 import io.jans.as.common.model.common.User;
 import io.jans.as.common.model.registration.Client;
-import io.jans.as.common.service.AttributeService;
 import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.model.exception.InvalidClaimException;
 import io.jans.as.model.jwt.JwtClaimName;
@@ -29,7 +28,8 @@ import io.jans.as.server.model.common.IAuthorizationGrant;
 import io.jans.as.server.model.common.RefreshToken;
 import io.jans.as.server.model.common.SessionId;
 import io.jans.as.server.model.common.UnmodifiableAuthorizationGrant;
-import io.jans.as.server.service.ScopeService;
+import io.jans.as.server.service.ClaimReleasePlan;
+import io.jans.as.server.service.ClaimReleasePlanService;
 import io.jans.as.server.service.SessionIdService;
 import io.jans.as.server.service.external.ExternalAuthenticationService;
 import io.jans.as.server.service.external.ExternalDynamicScopeService;
@@ -41,7 +41,6 @@ import io.jans.model.custom.script.type.auth.PersonAuthenticationType;
 import org.apache.commons.lang.StringUtils;
 import org.apache.logging.log4j.util.Strings;
 import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 
 import javax.ejb.Stateless;
@@ -52,17 +51,13 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
-import static io.jans.as.model.common.ScopeType.DYNAMIC;
-
 /**
  * JSON Web Token (JWT) is a compact token format intended for space constrained
  * environments such as HTTP Authorization headers and URI query parameters.
@@ -91,10 +86,7 @@ public class IdTokenFactory {
     private ExternalAuthenticationService externalAuthenticationService;
 
     @Inject
-    private ScopeService scopeService;
-
-    @Inject
-    private AttributeService attributeService;
+    private ClaimReleasePlanService claimReleasePlanService;
 
     @Inject
     private AppConfiguration appConfiguration;
@@ -185,20 +177,21 @@ public class IdTokenFactory {
         User user = authorizationGrant.getUser();
         List<Scope> dynamicScopes = new ArrayList<>();
         if (includeIdTokenClaims && authorizationGrant.getClient().isIncludeClaimsInIdToken()) {
-            for (String scopeName : scopes) {
-                Scope scope = scopeService.getScopeById(scopeName);
+            final ClaimReleasePlan plan = claimReleasePlanService.getPlan(scopes);
+            for (ClaimReleasePlan.ScopeEntry scopeEntry : plan.getScopes()) {
+                Scope scope = scopeEntry.getScope();
                 if (scope == null) {
                     continue;
                 }
 
-                if (DYNAMIC == scope.getScopeType()) {
+                if (scopeEntry.isDynamic()) {
                     dynamicScopes.add(scope);
                     continue;
                 }
 
-                Map<String, Object> claims = getClaims(user, scope);
+                Map<String, Object> claims = getClaims(user, scopeEntry);
 
-                if (Boolean.TRUE.equals(scope.isGroupClaims())) {
+                if (scopeEntry.isGroupClaims()) {
                     JwtSubClaimObject groupClaim = new JwtSubClaimObject();
                     groupClaim.setName(scope.getId());
                     for (Map.Entry<String, Object> entry : claims.entrySet()) {
@@ -277,29 +270,22 @@ public class IdTokenFactory {
      */
     private void setClaimsFromRequestedClaims(String requestedClaims, io.jans.as.model.token.JsonWebResponse jwr, User user)
             throws InvalidClaimException {
-        if (requestedClaims != null) {
-            JSONObject claimsObj = new JSONObject(requestedClaims);
-            if (claimsObj.has("id_token")) {
-                JSONObject idTokenObj = claimsObj.getJSONObject("id_token");
-                for (Iterator<String> it = idTokenObj.keys(); it.hasNext(); ) {
-                    String claimName = it.next();
-                    GluuAttribute gluuAttribute = attributeService.getByClaimName(claimName);
-
-                    if (gluuAttribute != null) {
-                        String ldapClaimName = gluuAttribute.getName();
-
-                        Object attribute = user.getAttribute(ldapClaimName, false, gluuAttribute.getOxMultiValuedAttribute());
-
-                        if (attribute instanceof List) {
-                            jwr.getClaims().setClaim(claimName, (List) attribute);
-                        } else if (attribute instanceof Boolean) {
-                            jwr.getClaims().setClaim(claimName, (Boolean) attribute);
-                        } else if (attribute instanceof Date) {
-                            jwr.getClaims().setClaim(claimName, ((Date) attribute).getTime());
-                        } else {
-                            jwr.setClaim(claimName, (String) attribute);
-                        }
-                    }
+        for (String claimName : claimReleasePlanService.getRequestedClaimNames(requestedClaims, "id_token")) {
+            GluuAttribute gluuAttribute = claimReleasePlanService.getAttributeByClaimName(claimName);
+
+            if (gluuAttribute != null) {
+                String ldapClaimName = gluuAttribute.getName();
+
+                Object attribute = user.getAttribute(ldapClaimName, false, gluuAttribute.getOxMultiValuedAttribute());
+
+                if (attribute instanceof List) {
+                    jwr.getClaims().setClaim(claimName, (List) attribute);
+                } else if (attribute instanceof Boolean) {
+                    jwr.getClaims().setClaim(claimName, (Boolean) attribute);
+                } else if (attribute instanceof Date) {
+                    jwr.getClaims().setClaim(claimName, ((Date) attribute).getTime());
+                } else {
+                    jwr.setClaim(claimName, (String) attribute);
                 }
             }
         }
@@ -323,9 +309,10 @@ public class IdTokenFactory {
             return;
         }
 
+        final ClaimReleasePlan plan = claimReleasePlanService.getPlan(scopes);
         for (Claim claim : requestObject.getIdTokenMember().getClaims()) {
             boolean optional = true; // ClaimValueType.OPTIONAL.equals(claim.getClaimValue().getClaimValueType());
-            GluuAttribute gluuAttribute = attributeService.getByClaimName(claim.getName());
+            GluuAttribute gluuAttribute = claimReleasePlanService.getAttributeByClaimName(claim.getName());
 
             if (gluuAttribute == null) {
                 continue;
@@ -333,7 +320,7 @@ public class IdTokenFactory {
 
             Client client = authorizationGrant.getClient();
 
-            if (validateRequesteClaim(gluuAttribute, client.getClaims(), scopes)) {
+            if (validateRequesteClaim(gluuAttribute, client.getClaims(), plan)) {
                 String ldapClaimName = gluuAttribute.getName();
                 Object attribute = authorizationGrant.getUser().getAttribute(ldapClaimName, optional, gluuAttribute.getOxMultiValuedAttribute());
                 jwr.getClaims().setClaimFromJsonObject(claim.getName(), attribute);
@@ -357,7 +344,7 @@ public class IdTokenFactory {
         return jwrService.encode(jwr, client);
     }
 
-    private boolean validateRequesteClaim(GluuAttribute gluuAttribute, String[] clientAllowedClaims, Collection<String> scopes) {
+    private boolean validateRequesteClaim(GluuAttribute gluuAttribute, String[] clientAllowedClaims, ClaimReleasePlan plan) {
         if (gluuAttribute == null) {
             return false;
         }
@@ -370,65 +357,49 @@ public class IdTokenFactory {
             }
         }
 
-        for (String scopeName : scopes) {
-            Scope scope = scopeService.getScopeById(scopeName);
-
-            if (scope != null && scope.getClaims() != null) {
-                for (String claimDn : scope.getClaims()) {
-                    if (gluuAttribute.getDisplayName().equals(attributeService.getAttributeByDn(claimDn).getDisplayName())) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return plan.containsClaimDisplayName(gluuAttribute.getDisplayName());
     }
 
-    public Map<String, Object> getClaims(User user, Scope scope) throws InvalidClaimException, ParseException {
+    public Map<String, Object> getClaims(User user, ClaimReleasePlan.ScopeEntry scopeEntry) throws InvalidClaimException, ParseException {
         Map<String, Object> claims = new HashMap<>();
 
-        if (scope == null || scope.getClaims() == null) {
+        if (scopeEntry.getScope() == null) {
             return claims;
         }
 
-        for (String claimDn : scope.getClaims()) {
-            GluuAttribute gluuAttribute = attributeService.getAttributeByDn(claimDn);
-
-            String claimName = gluuAttribute.getClaimName();
-            String ldapName = gluuAttribute.getName();
+        for (ClaimReleasePlan.ClaimEntry claimEntry : scopeEntry.getClaims()) {
+            String claimName = claimEntry.getClaimName();
             Object attribute = null;
 
-            if (StringUtils.isNotBlank(claimName) && StringUtils.isNotBlank(ldapName)) {
-                if (ldapName.equals("uid")) {
-                    attribute = user.getUserId();
-                } else if (ldapName.equals("updatedAt")) {
-                    attribute = user.getUpdatedAt();
-                } if (AttributeDataType.BOOLEAN.equals(gluuAttribute.getDataType())) {
-                    attribute = Boolean.parseBoolean(String.valueOf(user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute())));
-                } else if (AttributeDataType.DATE.equals(gluuAttribute.getDataType())) {
-                    SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss.SSS'Z'");
-                    Object attributeValue = user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute());
-                    if (attributeValue != null) {
-                        attribute = format.parse(attributeValue.toString());
-                    }
-                } else {
-                    attribute = user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute());
+            if (claimEntry.isUid()) {
+                attribute = user.getUserId();
+            } else if (claimEntry.isUpdatedAt()) {
+                attribute = user.getUpdatedAt();
+            } if (AttributeDataType.BOOLEAN.equals(claimEntry.getDataType())) {
+                attribute = Boolean.parseBoolean(String.valueOf(user.getAttribute(claimEntry.getLdapName(), true, claimEntry.isMultiValued())));
+            } else if (AttributeDataType.DATE.equals(claimEntry.getDataType())) {
+                SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss.SSS'Z'");
+                Object attributeValue = user.getAttribute(claimEntry.getLdapName(), true, claimEntry.isMultiValued());
+                if (attributeValue != null) {
+                    attribute = format.parse(attributeValue.toString());
                 }
+            } else {
+                attribute = user.getAttribute(claimEntry.getLdapName(), true, claimEntry.isMultiValued());
+            }
 
-                if (attribute != null) {
-                    if (attribute instanceof JSONArray) {
-                        JSONArray jsonArray = (JSONArray) attribute;
-                        List<String> values = new ArrayList<>();
-                        for (int i = 0; i < jsonArray.length(); i++) {
-                            String value = jsonArray.optString(i);
-                            if (value != null) {
-                                values.add(value);
-                            }
+            if (attribute != null) {
+                if (attribute instanceof JSONArray) {
+                    JSONArray jsonArray = (JSONArray) attribute;
+                    List<String> values = new ArrayList<>();
+                    for (int i = 0; i < jsonArray.length(); i++) {
+                        String value = jsonArray.optString(i);
+                        if (value != null) {
+                            values.add(value);
                         }
-                        claims.put(claimName, values);
-                    } else {
-                        claims.put(claimName, attribute);
                     }
+                    claims.put(claimName, values);
+                } else {
+                    claims.put(claimName, attribute);
                 }
             }
         }
@@ -25,6 +25,8 @@ import io.jans.as.server.service.logger.LoggerService;
 import io.jans.as.server.service.stat.StatService;
 import io.jans.as.server.service.stat.StatTimer;
 import io.jans.as.server.service.status.ldap.LdapStatusTimer;
+import io.jans.as.server.service.token.TokenPersistenceQueue;
+import io.jans.as.server.session.ws.rs.EndSessionTeardownQueue;
 import io.jans.exception.ConfigurationException;
 import io.jans.model.AuthenticationScriptUsageType;
 import io.jans.model.SimpleProperty;
@@ -181,6 +183,15 @@ public class AppInitializer {
     @Inject
     private StatService statService;
 
+	@Inject
+	private TokenPersistenceQueue tokenPersistenceQueue;
+
+	@Inject
+	private EndSessionTeardownQueue endSessionTeardownQueue;
+
+	@Inject
+	private ClientAccessTimeRecorder clientAccessTimeRecorder;
+
 	private AtomicBoolean isActive;
 	private long lastFinishedTime;
 	private AuthenticationMode authenticationMode;
@@ -236,6 +247,8 @@ public class AppInitializer {
 		keyGeneratorTimer.initTimer();
         statTimer.initTimer();
 		expirationNotificatorTimer.initTimer();
+		tokenPersistenceQueue.init();
+		clientAccessTimeRecorder.initTimer();
 		initTimer();
 		initCibaRequestsProcessor();
 
@@ -687,6 +700,9 @@ public class AppInitializer {
 		log.debug("Checking who intiated destory", new Throwable());
 
 		metricService.close();
+		endSessionTeardownQueue.destroy();
+		tokenPersistenceQueue.destroy();
+		clientAccessTimeRecorder.flush();
 
 		PersistenceEntryManager persistenceEntryManager = persistenceEntryManagerInstance.get();
 		closePersistenceEntryManager(persistenceEntryManager, ApplicationFactory.PERSISTENCE_ENTRY_MANAGER_NAME);
@@ -596,6 +596,8 @@ public class AuthenticationService {
 		} catch (EntryPersistenceException epe) {
 			log.error("Failed to update jansLastLogonTime of user '{}'", user.getUserId());
 			log.trace("Failed to update user:", epe);epe.printStackTrace();
+		} finally {
+			userService.invalidateCachedUser(user.getDn());
 		}
 	}
 
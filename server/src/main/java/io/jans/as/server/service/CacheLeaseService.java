@@ -0,0 +1,72 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.util.UUID;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.slf4j.Logger;
+
+import io.jans.service.CacheService;
+
+/**
+ * Leases of background jobs kept in shared cache, so nodes of cluster do not process the same work at the same time.
+ * <p>
+ * Lease is cache entry with id of owner node which expires after lease time. Cache has no atomic put-if-absent, so
+ * lease is best effort: owner is read back after put, yet two nodes can still both take lease in rare race. Jobs
+ * which use lease must tolerate it. If cache fails, lease is reported as acquired, so job runs without it.
+ */
+@ApplicationScoped
+@Named
+public class CacheLeaseService {
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private CacheService cacheService;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * @param key                lease key
+     * @param leaseTimeInSeconds lease time, lease expires if owner does not release it (e.g. node is stopped)
+     * @return true if this node owns lease
+     */
+    public boolean acquire(String key, int leaseTimeInSeconds) {
+        try {
+            final Object owner = cacheService.get(key);
+            if (owner != null && !nodeId.equals(owner)) {
+                return false;
+            }
+
+            cacheService.put(Math.max(leaseTimeInSeconds, 1), key, nodeId);
+            return nodeId.equals(cacheService.get(key));
+        } catch (Exception e) {
+            log.error("Failed to acquire lease " + key + ", run without it.", e);
+            return true;
+        }
+    }
+
+    /**
+     * Releases lease if it is owned by this node.
+     *
+     * @param key lease key
+     */
+    public void release(String key) {
+        try {
+            if (nodeId.equals(cacheService.get(key))) {
+                cacheService.remove(key);
+            }
+        } catch (Exception e) {
+            log.error("Failed to release lease " + key, e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import io.jans.as.model.common.ScopeType;
+import io.jans.as.persistence.model.Scope;
+import io.jans.model.GluuAttribute;
+import io.jans.model.attribute.AttributeDataType;
+
+/**
+ * Immutable scope-to-claims release plan compiled for a set of scopes.
+ * <p>
+ * Scopes and claim attributes are resolved once when plan is compiled, so building claims of userinfo and id_token
+ * is a single pass over compiled claim entries without scope and attribute lookups.
+ */
+public class ClaimReleasePlan {
+
+    private final List<ScopeEntry> scopes;
+    private final Set<String> claimDisplayNames;
+
+    ClaimReleasePlan(List<ScopeEntry> scopes, Set<String> claimDisplayNames) {
+        this.scopes = Collections.unmodifiableList(scopes);
+        this.claimDisplayNames = Collections.unmodifiableSet(claimDisplayNames);
+    }
+
+    /**
+     * @return scope entries in the order of requested scopes
+     */
+    public List<ScopeEntry> getScopes() {
+        return scopes;
+    }
+
+    /**
+     * @return whether any scope of the plan releases claim with given display name
+     */
+    public boolean containsClaimDisplayName(String displayName) {
+        return displayName != null && claimDisplayNames.contains(displayName);
+    }
+
+    public static class ScopeEntry {
+
+        private final String scopeName;
+        private final Scope scope;
+        private final List<ClaimEntry> claims;
+
+        ScopeEntry(String scopeName, Scope scope, List<ClaimEntry> claims) {
+            this.scopeName = scopeName;
+            this.scope = scope;
+            this.claims = Collections.unmodifiableList(claims);
+        }
+
+        public String getScopeName() {
+            return scopeName;
+        }
+
+        /**
+         * @return scope or null if scope is not found in persistence
+         */
+        public Scope getScope() {
+            return scope;
+        }
+
+        public boolean isDynamic() {
+            return scope != null && ScopeType.DYNAMIC == scope.getScopeType();
+        }
+
+        public boolean isGroupClaims() {
+            return scope != null && Boolean.TRUE.equals(scope.isGroupClaims());
+        }
+
+        public List<ClaimEntry> getClaims() {
+            return claims;
+        }
+    }
+
+    public static class ClaimEntry {
+
+        private final String claimName;
+        private final String ldapName;
+        private final boolean multiValued;
+        private final AttributeDataType dataType;
+
+        ClaimEntry(GluuAttribute attribute) {
+            this.claimName = attribute.getClaimName();
+            this.ldapName = attribute.getName();
+            this.multiValued = Boolean.TRUE.equals(attribute.getOxMultiValuedAttribute());
+            this.dataType = attribute.getDataType();
+        }
+
+        public String getClaimName() {
+            return claimName;
+        }
+
+        public String getLdapName() {
+            return ldapName;
+        }
+
+        public boolean isMultiValued() {
+            return multiValued;
+        }
+
+        public AttributeDataType getDataType() {
+            return dataType;
+        }
+
+        public boolean isUid() {
+            return "uid".equals(ldapName);
+        }
+
+        public boolean isUpdatedAt() {
+            return "updatedAt".equals(ldapName);
+        }
+    }
+}
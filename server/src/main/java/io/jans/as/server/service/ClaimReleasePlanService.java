@@ -0,0 +1,215 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.jans.as.common.service.AttributeService;
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.persistence.model.Scope;
+import io.jans.as.server.service.cdi.event.AuthConfigurationEvent;
+import io.jans.model.GluuAttribute;
+import io.jans.service.cdi.async.Asynchronous;
+import io.jans.service.cdi.event.Scheduled;
+
+/**
+ * Compiles and caches {@link ClaimReleasePlan} per set of scopes.
+ * <p>
+ * Plan does not depend on client (client allowed claims are checked separately), so it is keyed by scopes only.
+ * Plans live for claimReleasePlanCacheLifetimeInSeconds, which by default matches lifetime of cached scopes and
+ * attributes, so scope or attribute changes are picked up in the same time as before. Attributes resolved by claim
+ * name and parsed "claims" request parameter are cached the same way.
+ */
+@ApplicationScoped
+@Named
+public class ClaimReleasePlanService {
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private ScopeService scopeService;
+
+    @Inject
+    private AttributeService attributeService;
+
+    private volatile Cache<String, ClaimReleasePlan> plans;
+    private volatile Cache<String, Optional<GluuAttribute>> attributesByClaimName;
+    private volatile Cache<String, List<String>> requestedClaimNames;
+
+    private int currentLifetime;
+    private int currentMaxSize;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    @Asynchronous
+    public void reloadConfigurationTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
+        if (currentLifetime != appConfiguration.getClaimReleasePlanCacheLifetimeInSeconds()
+                || currentMaxSize != appConfiguration.getClaimReleasePlanCacheMaxSize()) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        currentLifetime = appConfiguration.getClaimReleasePlanCacheLifetimeInSeconds();
+        currentMaxSize = appConfiguration.getClaimReleasePlanCacheMaxSize();
+
+        final int lifetime = Math.max(1, currentLifetime);
+        final int maxSize = Math.max(1, currentMaxSize);
+        plans = CacheBuilder.newBuilder().expireAfterWrite(lifetime, TimeUnit.SECONDS).maximumSize(maxSize).build();
+        attributesByClaimName = CacheBuilder.newBuilder().expireAfterWrite(lifetime, TimeUnit.SECONDS).maximumSize(maxSize).build();
+        requestedClaimNames = CacheBuilder.newBuilder().expireAfterWrite(lifetime, TimeUnit.SECONDS).maximumSize(maxSize).build();
+    }
+
+    private boolean isCacheEnabled() {
+        return appConfiguration.getClaimReleasePlanCacheLifetimeInSeconds() > 0;
+    }
+
+    public ClaimReleasePlan getPlan(Collection<String> scopes) {
+        if (scopes == null || scopes.isEmpty()) {
+            return compile(Collections.emptyList());
+        }
+        if (!isCacheEnabled()) {
+            return compile(scopes);
+        }
+
+        final String key = StringUtils.join(scopes, " ");
+        ClaimReleasePlan plan = plans.getIfPresent(key);
+        if (plan == null) {
+            plan = compile(scopes);
+            plans.put(key, plan);
+        }
+        return plan;
+    }
+
+    private ClaimReleasePlan compile(Collection<String> scopeNames) {
+        final List<ClaimReleasePlan.ScopeEntry> scopes = new ArrayList<>();
+        final Set<String> claimDisplayNames = new HashSet<>();
+
+        for (String scopeName : scopeNames) {
+            final Scope scope = scopeService.getScopeById(scopeName);
+            final List<ClaimReleasePlan.ClaimEntry> claims = new ArrayList<>();
+
+            if (scope != null && scope.getClaims() != null) {
+                for (String claimDn : scope.getClaims()) {
+                    final GluuAttribute attribute = attributeService.getAttributeByDn(claimDn);
+                    if (attribute == null) {
+                        log.error("Failed to find attribute of claim, dn: {}, scope: {}", claimDn, scopeName);
+                        continue;
+                    }
+                    if (attribute.getDisplayName() != null) {
+                        claimDisplayNames.add(attribute.getDisplayName());
+                    }
+                    if (StringUtils.isBlank(attribute.getClaimName())) {
+                        log.error("Failed to get claim because claim name is not set for attribute, id: " + attribute.getDn());
+                        continue;
+                    }
+                    if (StringUtils.isBlank(attribute.getName())) {
+                        log.error("Failed to get claim because name is not set for attribute, id: " + attribute.getDn());
+                        continue;
+                    }
+                    claims.add(new ClaimReleasePlan.ClaimEntry(attribute));
+                }
+            }
+
+            scopes.add(new ClaimReleasePlan.ScopeEntry(scopeName, scope, claims));
+        }
+
+        log.trace("Compiled claim release plan for scopes: {}", scopeNames);
+        return new ClaimReleasePlan(scopes, claimDisplayNames);
+    }
+
+    /**
+     * Returns attribute by claim name (same as {@link AttributeService#getByClaimName(String)} but cached locally).
+     */
+    public GluuAttribute getAttributeByClaimName(String claimName) {
+        if (claimName == null) {
+            return null;
+        }
+        if (!isCacheEnabled()) {
+            return attributeService.getByClaimName(claimName);
+        }
+
+        Optional<GluuAttribute> attribute = attributesByClaimName.getIfPresent(claimName);
+        if (attribute == null) {
+            attribute = Optional.ofNullable(attributeService.getByClaimName(claimName));
+            attributesByClaimName.put(claimName, attribute);
+        }
+        return attribute.orElse(null);
+    }
+
+    /**
+     * Returns names of claims requested in given member ("userinfo" or "id_token") of "claims" request parameter.
+     *
+     * @param claims value of "claims" request parameter (json)
+     * @param member name of member
+     * @return names of requested claims, empty list if member is not present
+     */
+    public List<String> getRequestedClaimNames(String claims, String member) {
+        if (StringUtils.isBlank(claims)) {
+            return Collections.emptyList();
+        }
+        if (!isCacheEnabled()) {
+            return parseRequestedClaimNames(claims, member);
+        }
+
+        final String key = member + " " + claims;
+        List<String> names = requestedClaimNames.getIfPresent(key);
+        if (names == null) {
+            names = parseRequestedClaimNames(claims, member);
+            requestedClaimNames.put(key, names);
+        }
+        return names;
+    }
+
+    private static List<String> parseRequestedClaimNames(String claims, String member) {
+        final JSONObject claimsObj = new JSONObject(claims);
+        if (!claimsObj.has(member)) {
+            return Collections.emptyList();
+        }
+
+        final List<String> names = new ArrayList<>();
+        final JSONObject memberObj = claimsObj.getJSONObject(member);
+        for (Iterator<String> it = memberObj.keys(); it.hasNext(); ) {
+            names.add(it.next());
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    public void clear() {
+        plans.invalidateAll();
+        attributesByClaimName.invalidateAll();
+        requestedClaimNames.invalidateAll();
+    }
+}
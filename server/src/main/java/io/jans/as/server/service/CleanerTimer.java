@@ -23,6 +23,7 @@ import io.jans.as.server.service.fido.u2f.RequestService;
 import io.jans.as.server.uma.authorization.UmaPCT;
 import io.jans.as.server.uma.service.UmaPctService;
 import io.jans.as.server.uma.service.UmaResourceService;
+import io.jans.as.server.util.ServerUtil;
 import io.jans.model.ApplicationType;
 import io.jans.model.metric.ldap.MetricEntry;
 import io.jans.orm.PersistenceEntryManager;
@@ -33,20 +34,33 @@ import io.jans.service.cdi.event.CleanerEvent;
 import io.jans.service.cdi.event.Scheduled;
 import io.jans.service.timer.event.TimerEvent;
 import io.jans.service.timer.schedule.TimerSchedule;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 
+import javax.annotation.PreDestroy;
 import javax.ejb.DependsOn;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.jans.as.server.util.ServerUtil.isTrue;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -60,6 +74,8 @@ public class CleanerTimer {
 
     public final static int BATCH_SIZE = 1000;
     private final static int DEFAULT_INTERVAL = 30; // 30 seconds
+    private final static int MIN_BATCH_SIZE = 10;
+    private final static long PARTITION_WINDOW_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
 
     @Inject
     private Logger log;
@@ -92,6 +108,12 @@ public class CleanerTimer {
     @Inject
 	private MetricService metricService;
 
+    @Inject
+    private CacheLeaseService cacheLeaseService;
+
+    private final Map<String, BranchStat> branchStats = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
     private long lastFinishedTime;
 
     private AtomicBoolean isActive;
@@ -153,6 +175,7 @@ public class CleanerTimer {
             Date now = new Date();
 
             final Set<String> processedBaseDns = new HashSet<>();
+            final List<Future<?>> tasks = new ArrayList<>();
             for (Map.Entry<String, Class<?>> baseDn : createCleanServiceBaseDns().entrySet()) {
                 try {
                     if (entryManager.hasExpirationSupport(baseDn.getKey())) {
@@ -167,25 +190,137 @@ public class CleanerTimer {
 
                     processedBaseDns.add(processedBaseDn);
 
-                    log.debug("Start clean up for baseDn: " + baseDn.getValue() + ", class: " + baseDn.getValue());
-                    final Stopwatch started = Stopwatch.createStarted();
-
-                    int removed = cleanup(baseDn, now, chunkSize);
-
-                    log.debug("Finished clean up for baseDn: {}, takes: {}ms, removed items: {}", baseDn, started.elapsed(TimeUnit.MILLISECONDS), removed);
+                    final int initialChunkSize = chunkSize;
+                    tasks.add(getExecutor().submit(() -> cleanupBranch(processedBaseDn, baseDn, now, initialChunkSize)));
                 } catch (Exception e) {
                     log.error("Failed to process clean up for baseDn: " + baseDn + ", class: " + baseDn.getValue(), e);
                 }
             }
 
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    log.error("Failed to process clean up.", e.getCause());
+                }
+            }
+
             processCache(now);
 
             this.lastFinishedTime = System.currentTimeMillis();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Failed to process clean up.", e);
         }
     }
 
+    private void cleanupBranch(String branchKey, Map.Entry<String, Class<?>> baseDn, Date now, int chunkSize) {
+        final BranchStat stat = branchStats.computeIfAbsent(branchKey, k -> new BranchStat(chunkSize));
+        final int minBatchSize = Math.min(MIN_BATCH_SIZE, chunkSize);
+        final int maxBatchSize = Math.max(appConfiguration.getCleanServiceMaxBatchChunkSize(), chunkSize);
+        final long targetDuration = Math.max(appConfiguration.getCleanServiceTargetBatchDurationInMillis(), 1);
+        final long deadline = System.currentTimeMillis() + Math.max(appConfiguration.getCleanServiceMaxBranchDurationInSeconds(), 1) * 1000L;
+
+        log.debug("Start clean up for baseDn: " + baseDn.getKey() + ", class: " + baseDn.getValue());
+        final Stopwatch started = Stopwatch.createStarted();
+
+        int removed = 0;
+        boolean backlog = false;
+        for (Partition partition : partitions(now)) {
+            if (!acquireLease(branchKey, partition)) {
+                log.trace("Partition {} of baseDn {} is cleaned by other node", partition.index, baseDn.getKey());
+                continue;
+            }
+
+            try {
+                while (true) {
+                    final int batchSize = stat.batchSize;
+                    final Stopwatch batchStarted = Stopwatch.createStarted();
+                    final int batchRemoved = cleanup(baseDn, partition.from, partition.to, batchSize);
+                    final long batchDuration = batchStarted.elapsed(TimeUnit.MILLISECONDS);
+                    removed += batchRemoved;
+
+                    final boolean full = batchRemoved >= batchSize;
+                    stat.adaptBatchSize(full, batchDuration, targetDuration, minBatchSize, maxBatchSize);
+
+                    if (!full) {
+                        break;
+                    }
+                    if (System.currentTimeMillis() >= deadline) {
+                        backlog = true;
+                        break;
+                    }
+                }
+            } finally {
+                releaseLease(branchKey, partition);
+            }
+
+            if (backlog) {
+                break;
+            }
+        }
+
+        final long duration = started.elapsed(TimeUnit.MILLISECONDS);
+        stat.record(removed, duration, backlog);
+        log.debug("Finished clean up for baseDn: {}, takes: {}ms, removed items: {}, backlog: {}, next batch size: {}", baseDn, duration, removed, backlog, stat.batchSize);
+    }
+
+    /**
+     * Partitions are hourly expiration windows going back from now, the last one includes everything older.
+     */
+    private List<Partition> partitions(Date now) {
+        final int count = Math.max(appConfiguration.getCleanServicePartitionCount(), 1);
+        final List<Partition> partitions = new ArrayList<>(count);
+        // oldest first, it usually holds biggest part of backlog
+        for (int i = count - 1; i >= 0; i--) {
+            final Date to = new Date(now.getTime() - i * PARTITION_WINDOW_IN_MILLIS);
+            final Date from = i == count - 1 ? null : new Date(to.getTime() - PARTITION_WINDOW_IN_MILLIS);
+            partitions.add(new Partition(i, from, to));
+        }
+        return partitions;
+    }
+
+    private boolean acquireLease(String branchKey, Partition partition) {
+        if (!isTrue(appConfiguration.getCleanServiceClusterLockEnabled())) {
+            return true;
+        }
+        final int leaseTime = Math.max(appConfiguration.getCleanServiceMaxBranchDurationInSeconds(), 1) * 2;
+        return cacheLeaseService.acquire(leaseKey(branchKey, partition), leaseTime);
+    }
+
+    private void releaseLease(String branchKey, Partition partition) {
+        if (isTrue(appConfiguration.getCleanServiceClusterLockEnabled())) {
+            cacheLeaseService.release(leaseKey(branchKey, partition));
+        }
+    }
+
+    private static String leaseKey(String branchKey, Partition partition) {
+        return "cleaner_lease_" + DigestUtils.sha256Hex(branchKey) + "_" + partition.index;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            final int parallelism = Math.max(appConfiguration.getCleanServiceParallelism(), 1);
+            executor = Executors.newFixedThreadPool(parallelism, ServerUtil.daemonThreadFactory());
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return clean up statistic per base DN: last run duration, removed items, backlog flag and current batch size
+     */
+    public Map<String, BranchStat> getBranchStats() {
+        return Collections.unmodifiableMap(branchStats);
+    }
+
     private Map<String, Class<?>> createCleanServiceBaseDns() {
         final String u2fBase = staticConfiguration.getBaseDn().getU2fBase();
 
@@ -208,10 +343,17 @@ public class CleanerTimer {
     }
 
     public int cleanup(final Map.Entry<String, Class<?>> baseDn, final Date now, final int batchSize) {
+        return cleanup(baseDn, null, now, batchSize);
+    }
+
+    public int cleanup(final Map.Entry<String, Class<?>> baseDn, final Date from, final Date to, final int batchSize) {
         try {
             Filter filter = Filter.createANDFilter(
                     Filter.createEqualityFilter("del", true),
-                    Filter.createLessOrEqualFilter("exp", entryManager.encodeTime(baseDn.getKey(), now)));
+                    Filter.createLessOrEqualFilter("exp", entryManager.encodeTime(baseDn.getKey(), to)));
+            if (from != null) {
+                filter = Filter.createANDFilter(filter, Filter.createGreaterOrEqualFilter("exp", entryManager.encodeTime(baseDn.getKey(), from)));
+            }
 
             int removedCount = entryManager.remove(baseDn.getKey(), baseDn.getValue(), filter, batchSize);
             log.trace("Removed " + removedCount + " entries from " + baseDn.getKey());
@@ -230,4 +372,78 @@ public class CleanerTimer {
             log.error("Failed to clean up cache.", e);
         }
     }
+
+    private static class Partition {
+
+        private final int index;
+        private final Date from; // null - open ended
+        private final Date to;
+
+        private Partition(int index, Date from, Date to) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    public static class BranchStat {
+
+        private volatile int batchSize;
+        private volatile long lastRemoved;
+        private volatile long lastDurationInMillis;
+        private volatile boolean backlog;
+        private final AtomicLong totalRemoved = new AtomicLong();
+
+        private BranchStat(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        private void adaptBatchSize(boolean full, long batchDuration, long targetDuration, int min, int max) {
+            if (batchDuration > targetDuration) {
+                batchSize = Math.max(min, batchSize / 2);
+            } else if (full && batchDuration < targetDuration / 2) {
+                batchSize = Math.min(max, batchSize * 2);
+            }
+        }
+
+        private void record(int removed, long duration, boolean backlog) {
+            this.lastRemoved = removed;
+            this.lastDurationInMillis = duration;
+            this.backlog = backlog;
+            this.totalRemoved.addAndGet(removed);
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public long getLastRemoved() {
+            return lastRemoved;
+        }
+
+        public long getLastDurationInMillis() {
+            return lastDurationInMillis;
+        }
+
+        /**
+         * @return removed items per second during last run
+         */
+        public double getLastThroughput() {
+            return lastDurationInMillis > 0 ? lastRemoved * 1000.0 / lastDurationInMillis : lastRemoved;
+        }
+
+        public boolean hasBacklog() {
+            return backlog;
+        }
+
+        public long getTotalRemoved() {
+            return totalRemoved.get();
+        }
+
+        @Override
+        public String toString() {
+            return "BranchStat{batchSize=" + batchSize + ", lastRemoved=" + lastRemoved + ", lastDurationInMillis=" + lastDurationInMillis +
+                    ", backlog=" + backlog + ", totalRemoved=" + totalRemoved + '}';
+        }
+    }
 }
\ No newline at end of file
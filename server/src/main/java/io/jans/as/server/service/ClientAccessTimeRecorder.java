@@ -0,0 +1,189 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ejb.DependsOn;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.service.cdi.event.ClientAccessTimeEvent;
+import io.jans.orm.PersistenceEntryManager;
+import io.jans.orm.exception.EntryPersistenceException;
+import io.jans.orm.model.base.CustomAttribute;
+import io.jans.orm.model.base.CustomEntry;
+import io.jans.service.cdi.async.Asynchronous;
+import io.jans.service.cdi.event.Scheduled;
+import io.jans.service.timer.event.TimerEvent;
+import io.jans.service.timer.schedule.TimerSchedule;
+
+/**
+ * Coalesces client jansLastAccessTime/jansLastLogonTime updates in memory and writes them every
+ * clientAccessTimeFlushIntervalInSeconds, so each client gets at most one write per interval.
+ */
+@ApplicationScoped
+@DependsOn("appInitializer")
+@Named
+public class ClientAccessTimeRecorder {
+
+    private static final int TIMER_TICK_INTERVAL_IN_SECONDS = 10;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private PersistenceEntryManager ldapEntryManager;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private Event<TimerEvent> timerEvent;
+
+    private final ConcurrentMap<String, AccessTime> pending = new ConcurrentHashMap<>();
+
+    private AtomicBoolean isActive;
+    private volatile boolean initialized;
+    private long lastFinishedTime;
+
+    public void initTimer() {
+        log.debug("Initializing Client Access Time Timer");
+        this.isActive = new AtomicBoolean(false);
+
+        timerEvent.fire(new TimerEvent(new TimerSchedule(TIMER_TICK_INTERVAL_IN_SECONDS, TIMER_TICK_INTERVAL_IN_SECONDS), new ClientAccessTimeEvent(), Scheduled.Literal.INSTANCE));
+
+        this.lastFinishedTime = System.currentTimeMillis();
+        this.initialized = true;
+    }
+
+    public boolean isEnabled() {
+        return initialized && appConfiguration.getClientAccessTimeFlushIntervalInSeconds() > 0;
+    }
+
+    /**
+     * Records client access. It is written to persistence with next flush.
+     *
+     * @param clientDn          client dn
+     * @param isUpdateLogonTime whether jansLastLogonTime has to be updated too
+     */
+    public void record(String clientDn, boolean isUpdateLogonTime) {
+        if (StringUtils.isBlank(clientDn)) {
+            return;
+        }
+
+        final Date now = now();
+        pending.merge(clientDn, new AccessTime(now, isUpdateLogonTime ? now : null), AccessTime::merge);
+    }
+
+    @Asynchronous
+    public void process(@Observes @Scheduled ClientAccessTimeEvent event) {
+        if (this.isActive.get()) {
+            return;
+        }
+
+        if (!this.isActive.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            final long interval = Math.max(appConfiguration.getClientAccessTimeFlushIntervalInSeconds(), 0) * 1000L;
+            if (System.currentTimeMillis() - this.lastFinishedTime < interval) {
+                return;
+            }
+
+            flush();
+            this.lastFinishedTime = System.currentTimeMillis();
+        } catch (Exception ex) {
+            log.error("Exception happened while flushing client access time", ex);
+        } finally {
+            this.isActive.set(false);
+        }
+    }
+
+    /**
+     * Writes all pending access times. Called by timer and on shutdown.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int count = 0;
+        for (Map.Entry<String, AccessTime> entry : pending.entrySet()) {
+            final String clientDn = entry.getKey();
+            final AccessTime accessTime = entry.getValue();
+            if (!pending.remove(clientDn, accessTime)) {
+                continue; // updated concurrently, will be written with next flush
+            }
+
+            persist(clientDn, accessTime.lastAccessTime, accessTime.lastLogonTime);
+            count++;
+        }
+        log.trace("Flushed access time of {} clients", count);
+    }
+
+    /**
+     * Writes client access time synchronously.
+     */
+    public void persist(String clientDn, Date lastAccessTime, Date lastLogonTime) {
+        CustomEntry customEntry = new CustomEntry();
+        customEntry.setDn(clientDn);
+        customEntry.setCustomObjectClasses(ClientService.CLIENT_OBJECT_CLASSES);
+
+        CustomAttribute customAttributeLastAccessTime = new CustomAttribute("jansLastAccessTime", ldapEntryManager.encodeTime(clientDn, lastAccessTime));
+        customEntry.getCustomAttributes().add(customAttributeLastAccessTime);
+
+        if (lastLogonTime != null) {
+            CustomAttribute customAttributeLastLogonTime = new CustomAttribute("jansLastLogonTime", ldapEntryManager.encodeTime(clientDn, lastLogonTime));
+            customEntry.getCustomAttributes().add(customAttributeLastLogonTime);
+        }
+
+        try {
+            ldapEntryManager.merge(customEntry);
+        } catch (EntryPersistenceException epe) {
+            log.error("Failed to update jansLastAccessTime and jansLastLogonTime of client '{}'", clientDn);
+            log.trace("Failed to update client:", epe);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public static Date now() {
+        return new GregorianCalendar(TimeZone.getTimeZone("UTC")).getTime();
+    }
+
+    private static class AccessTime {
+
+        private final Date lastAccessTime;
+        private final Date lastLogonTime;
+
+        private AccessTime(Date lastAccessTime, Date lastLogonTime) {
+            this.lastAccessTime = lastAccessTime;
+            this.lastLogonTime = lastLogonTime;
+        }
+
+        private static AccessTime merge(AccessTime existing, AccessTime update) {
+            return new AccessTime(update.lastAccessTime, update.lastLogonTime != null ? update.lastLogonTime : existing.lastLogonTime);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps salted SHA-256 hash of decrypted client secret so that client authentication does not need to decrypt
+ * client secret on every request.
+ * <p>
+ * Entries are keyed by client DN and bound to encrypted secret they were built from, so changed secret never
+ * matches stale entry even if it was not invalidated explicitly.
+ */
+@ApplicationScoped
+@Named
+public class ClientSecretVerificationCache {
+
+    private static final int MAX_SIZE = 10000;
+    private static final int SALT_LENGTH = 16;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Cache<String, Entry> cache = CacheBuilder.newBuilder().maximumSize(MAX_SIZE).build();
+
+    /**
+     * @param clientDn              client dn
+     * @param encryptedClientSecret encrypted client secret as it is stored in client entry
+     * @param password              secret presented by client
+     * @return TRUE or FALSE if verification data is cached for given encrypted secret, otherwise null
+     */
+    public Boolean verify(String clientDn, String encryptedClientSecret, String password) {
+        if (StringUtils.isBlank(clientDn) || encryptedClientSecret == null || password == null) {
+            return null;
+        }
+
+        final Entry entry = cache.getIfPresent(clientDn);
+        if (entry == null || !entry.encryptedSecret.equals(encryptedClientSecret)) {
+            return null;
+        }
+        return MessageDigest.isEqual(entry.hash, hash(entry.salt, password));
+    }
+
+    public void put(String clientDn, String encryptedClientSecret, String decryptedClientSecret) {
+        if (StringUtils.isBlank(clientDn) || encryptedClientSecret == null || decryptedClientSecret == null) {
+            return;
+        }
+
+        final byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        cache.put(clientDn, new Entry(encryptedClientSecret, salt, hash(salt, decryptedClientSecret)));
+    }
+
+    public void invalidate(String clientDn) {
+        if (StringUtils.isNotBlank(clientDn)) {
+            cache.invalidate(clientDn);
+        }
+    }
+
+    private static byte[] hash(byte[] salt, String value) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return digest.digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class Entry {
+
+        private final String encryptedSecret;
+        private final byte[] salt;
+        private final byte[] hash;
+
+        private Entry(String encryptedSecret, byte[] salt, byte[] hash) {
+            this.encryptedSecret = encryptedSecret;
+            this.salt = salt;
+            this.hash = hash;
+        }
+    }
+}
@@ -6,12 +6,12 @@
 
 package io.jans.as.server.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Collection;
 import java.util.Date;
-import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Set;
-import java.util.TimeZone;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
@@ -31,9 +31,7 @@ import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.model.exception.InvalidClaimException;
 import io.jans.as.persistence.model.Scope;
 import io.jans.orm.PersistenceEntryManager;
-import io.jans.orm.exception.EntryPersistenceException;
 import io.jans.orm.model.base.CustomAttribute;
-import io.jans.orm.model.base.CustomEntry;
 import io.jans.service.BaseCacheService;
 import io.jans.service.CacheService;
 import io.jans.service.LocalCacheService;
@@ -72,6 +70,12 @@ public class ClientService {
 	@Inject
 	private EncryptionService encryptionService;
 
+	@Inject
+	private ClientSecretVerificationCache clientSecretVerificationCache;
+
+	@Inject
+	private ClientAccessTimeRecorder clientAccessTimeRecorder;
+
 	@Inject
 	private AppConfiguration appConfiguration;
 
@@ -85,6 +89,7 @@ public class ClientService {
 	public void merge(Client client) {
 		ldapEntryManager.merge(client);
 		removeFromCache(client);
+		clientSecretVerificationCache.invalidate(client.getDn());
 	}
 
 	/**
@@ -106,8 +111,15 @@ public class ClientService {
 				log.debug("Failed to find client = {}", clientId);
 				return authenticated;
 			}
+			final Boolean verified = clientSecretVerificationCache.verify(client.getDn(), client.getClientSecret(), password);
+			if (verified != null) {
+				return verified;
+			}
+
 			String decryptedClientSecret = decryptSecret(client.getClientSecret());
-			authenticated = client != null && decryptedClientSecret != null && decryptedClientSecret.equals(password);
+			clientSecretVerificationCache.put(client.getDn(), client.getClientSecret(), decryptedClientSecret);
+			authenticated = decryptedClientSecret != null && password != null && MessageDigest.isEqual(
+					decryptedClientSecret.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8));
 		} catch (StringEncrypter.EncryptionException e) {
 			log.error(e.getMessage(), e);
 		}
@@ -247,6 +259,7 @@ public class ClientService {
 	public void remove(Client client) {
 		if (client != null) {
 			removeFromCache(client);
+			clientSecretVerificationCache.invalidate(client.getDn());
 
 			String clientDn = client.getDn();
 			ldapEntryManager.removeRecursively(clientDn, Client.class);
@@ -267,29 +280,13 @@ public class ClientService {
 			return;
 		}
 
-		String clientDn = client.getDn();
-
-		CustomEntry customEntry = new CustomEntry();
-		customEntry.setDn(clientDn);
-		customEntry.setCustomObjectClasses(CLIENT_OBJECT_CLASSES);
-
-		Date now = new GregorianCalendar(TimeZone.getTimeZone("UTC")).getTime();
-		String nowDateString = ldapEntryManager.encodeTime(customEntry.getDn(), now);
-
-		CustomAttribute customAttributeLastAccessTime = new CustomAttribute("jansLastAccessTime", nowDateString);
-		customEntry.getCustomAttributes().add(customAttributeLastAccessTime);
-
-		if (isUpdateLogonTime) {
-			CustomAttribute customAttributeLastLogonTime = new CustomAttribute("jansLastLogonTime", nowDateString);
-			customEntry.getCustomAttributes().add(customAttributeLastLogonTime);
+		if (clientAccessTimeRecorder.isEnabled()) {
+			clientAccessTimeRecorder.record(client.getDn(), isUpdateLogonTime); // written later, cached client stays valid
+			return;
 		}
 
-		try {
-			ldapEntryManager.merge(customEntry);
-		} catch (EntryPersistenceException epe) {
-			log.error("Failed to update jansLastAccessTime and jansLastLogonTime of client '{}'", clientDn);
-			log.trace("Failed to update user:", epe);epe.printStackTrace();
-		}
+		Date now = ClientAccessTimeRecorder.now();
+		clientAccessTimeRecorder.persist(client.getDn(), now, isUpdateLogonTime ? now : null);
 
 		removeFromCache(client);
 	}
@@ -10,8 +10,11 @@ import static io.jans.as.server.util.ServerUtil.isTrue;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
@@ -28,6 +31,8 @@ import io.jans.as.server.model.common.AuthorizationGrant;
 import io.jans.as.server.model.common.CacheGrant;
 import io.jans.as.server.model.ldap.TokenLdap;
 import io.jans.as.server.model.ldap.TokenType;
+import io.jans.as.server.service.token.TokenIndexService;
+import io.jans.as.server.service.token.TokenPersistenceQueue;
 import io.jans.as.server.util.TokenHashUtil;
 import io.jans.orm.PersistenceEntryManager;
 import io.jans.orm.search.filter.Filter;
@@ -44,6 +49,8 @@ import io.jans.service.cache.CacheProviderType;
 @Named
 public class GrantService {
 
+    private static final int BATCH_SIZE = 100;
+
     @Inject
     private Logger log;
 
@@ -65,6 +72,15 @@ public class GrantService {
     @Inject
     private CacheConfiguration cacheConfiguration;
 
+    @Inject
+    private TokenPersistenceQueue tokenPersistenceQueue;
+
+    @Inject
+    private IntrospectionResponseCache introspectionResponseCache;
+
+    @Inject
+    private TokenIndexService tokenIndexService;
+
     public static String generateGrantId() {
         return UUID.randomUUID().toString();
     }
@@ -83,6 +99,7 @@ public class GrantService {
 
     public void mergeSilently(TokenLdap p_token) {
         try {
+            tokenPersistenceQueue.persistNow(p_token); // entry has to exist before it can be merged
             persistenceEntryManager.merge(p_token);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -108,23 +125,40 @@ public class GrantService {
     }
 
     public void persist(TokenLdap token) {
+        if (tokenPersistenceQueue.isEnabled() && tokenPersistenceQueue.enqueue(token)) {
+            tokenIndexService.add(token);
+            return; // persisted asynchronously by write-behind queue
+        }
         persistenceEntryManager.persist(token);
+        tokenIndexService.add(token);
     }
 
     public void remove(TokenLdap p_token) {
+        introspectionResponseCache.invalidate(p_token.getTokenCode());
+        cacheService.remove(p_token.getTokenCode());
+        // queue can have pending tokens even if write-behind was switched off since, discard is no-op for idle queue
+        if (tokenPersistenceQueue.discard(p_token)) {
+            log.trace("Removed pending token from write-behind queue, code: " + p_token.getTokenCode());
+            return;
+        }
         persistenceEntryManager.remove(p_token);
         log.trace("Removed token from LDAP, code: " + p_token.getTokenCode());
     }
 
-    public void removeSilently(TokenLdap token) {
+    /**
+     * @return true if token is removed, false if removal failed (failure is logged)
+     */
+    public boolean removeSilently(TokenLdap token) {
         try {
             remove(token);
 
             if (StringUtils.isNotBlank(token.getAuthorizationCode())) {
                 cacheService.remove(CacheGrant.cacheKey(token.getAuthorizationCode(), token.getGrantId()));
             }
+            return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
+            return false;
         }
     }
 
@@ -140,12 +174,56 @@ public class GrantService {
         }
     }
 
-    public void removeSilently(List<TokenLdap> p_entries) {
-        if (p_entries != null && !p_entries.isEmpty()) {
-            for (TokenLdap t : p_entries) {
-                removeSilently(t);
+    /**
+     * Removes tokens with single delete request per batch (falls back to one by one removal if batch delete fails).
+     *
+     * @return true if all tokens are removed, false if removal of some of them failed (failures are logged)
+     */
+    public boolean removeSilently(List<TokenLdap> p_entries) {
+        if (p_entries == null || p_entries.isEmpty()) {
+            return true;
+        }
+        if (p_entries.size() == 1) {
+            return removeSilently(p_entries.get(0));
+        }
+
+        final List<TokenLdap> persisted = new ArrayList<>(p_entries.size());
+        final List<String> persistedHashes = new ArrayList<>(p_entries.size());
+        for (TokenLdap token : p_entries) {
+            introspectionResponseCache.invalidate(token.getTokenCode());
+            cacheService.remove(token.getTokenCode());
+            if (StringUtils.isNotBlank(token.getAuthorizationCode())) {
+                cacheService.remove(CacheGrant.cacheKey(token.getAuthorizationCode(), token.getGrantId()));
+            }
+            if (tokenPersistenceQueue.discard(token)) {
+                continue; // not persisted yet
+            }
+            persisted.add(token);
+            persistedHashes.add(token.getTokenCode());
+        }
+
+        boolean removed = true;
+        for (int from = 0; from < persisted.size(); from += BATCH_SIZE) {
+            final int to = Math.min(from + BATCH_SIZE, persisted.size());
+            try {
+                persistenceEntryManager.remove(tokenBaseDn(), TokenLdap.class, tokenCodeFilter(persistedHashes.subList(from, to)), to - from);
+                log.trace("Removed {} tokens from LDAP", to - from);
+            } catch (Exception e) {
+                log.error("Failed to remove tokens in batch, fall back to one by one removal.", e);
+                for (TokenLdap token : persisted.subList(from, to)) {
+                    removed &= removeSilently(token);
+                }
             }
         }
+        return removed;
+    }
+
+    private static Filter tokenCodeFilter(List<String> hashes) {
+        Filter[] filters = new Filter[hashes.size()];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = Filter.createEqualityFilter("tknCde", hashes.get(i));
+        }
+        return filters.length == 1 ? filters[0] : Filter.createORFilter(filters);
     }
 
     public void remove(AuthorizationGrant p_grant) {
@@ -187,39 +265,112 @@ public class GrantService {
         return null;
     }
 
-    public List<TokenLdap> getGrantsByGrantId(String p_grantId) {
-        try {
-            return persistenceEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("grtId", p_grantId));
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
+    /**
+     * Loads tokens by hashes (from token index). Tokens which are not persisted yet are taken from cache, tokens
+     * which are already gone are skipped.
+     */
+    private List<TokenLdap> getGrantsByHashes(Set<String> hashes) {
+        final List<TokenLdap> result = new ArrayList<>();
+        if (hashes.isEmpty()) {
+            return result;
         }
-        return Collections.emptyList();
+
+        final Set<String> missing = new HashSet<>(hashes);
+        for (List<String> batch : Lists.partition(new ArrayList<>(hashes), BATCH_SIZE)) {
+            final List<TokenLdap> found = persistenceEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, tokenCodeFilter(batch));
+            if (found != null) {
+                for (TokenLdap token : found) {
+                    missing.remove(token.getTokenCode());
+                    result.add(token);
+                }
+            }
+        }
+        for (String hash : missing) {
+            final Object cached = cacheService.get(hash);
+            if (cached instanceof TokenLdap) {
+                result.add((TokenLdap) cached);
+            }
+        }
+        return result;
     }
 
-    public List<TokenLdap> getGrantsByAuthorizationCode(String p_authorizationCode) {
+    // index is only a hint (entry can miss tokens after concurrent update), it is added to search result, not used instead of it
+    private List<TokenLdap> addIndexed(List<TokenLdap> grants, TokenIndexService.IndexType type, String value) {
+        return TokenIndexService.merge(grants, tokenIndexService.get(type, value), hashes -> {
+            try {
+                return getGrantsByHashes(hashes);
+            } catch (Exception e) {
+                log.error("Failed to load tokens by index.", e);
+                return Collections.emptyList();
+            }
+        });
+    }
+
+    /**
+     * @return tokens found by filter or null if search failed (failure is logged)
+     */
+    private List<TokenLdap> searchTokens(Filter filter) {
         try {
-            return persistenceEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("authzCode", TokenHashUtil.hash(p_authorizationCode)));
+            final List<TokenLdap> ldapGrants = persistenceEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, filter);
+            return ldapGrants != null ? new ArrayList<>(ldapGrants) : new ArrayList<>();
         } catch (Exception e) {
             log.error(e.getMessage(), e);
+            return null;
         }
-        return Collections.emptyList();
+    }
+
+    public List<TokenLdap> getGrantsByGrantId(String p_grantId) {
+        final List<TokenLdap> found = searchTokens(Filter.createEqualityFilter("grtId", p_grantId));
+        final List<TokenLdap> grants = addIndexed(found != null ? found : new ArrayList<>(), TokenIndexService.IndexType.GRANT, p_grantId);
+        return addPending(grants, token -> p_grantId != null && p_grantId.equals(token.getGrantId()));
+    }
+
+    public List<TokenLdap> getGrantsByAuthorizationCode(String p_authorizationCode) {
+        final String hash = TokenHashUtil.hash(p_authorizationCode);
+        final List<TokenLdap> found = searchTokens(Filter.createEqualityFilter("authzCode", hash));
+        final List<TokenLdap> grants = addIndexed(found != null ? found : new ArrayList<>(), TokenIndexService.IndexType.AUTHORIZATION_CODE, hash);
+        return addPending(grants, token -> hash.equals(token.getAuthorizationCode()));
     }
 
     public List<TokenLdap> getGrantsBySessionDn(String sessionDn) {
-        List<TokenLdap> grants = new ArrayList<>();
-        try {
-            List<TokenLdap> ldapGrants = persistenceEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("ssnId", sessionDn));
-            if (ldapGrants != null) {
-                grants.addAll(ldapGrants);
+        final List<TokenLdap> found = searchTokens(Filter.createEqualityFilter("ssnId", sessionDn));
+        return getGrantsBySessionDn(found != null ? found : new ArrayList<>(), sessionDn);
+    }
+
+    private List<TokenLdap> getGrantsBySessionDn(List<TokenLdap> found, String sessionDn) {
+        final List<TokenLdap> grants = addIndexed(found, TokenIndexService.IndexType.SESSION, sessionDn);
+        return addPending(grants, token -> sessionDn != null && sessionDn.equals(token.getSessionDn()));
+    }
+
+    // tokens queued by write-behind queue are not found by search until they are persisted
+    private List<TokenLdap> addPending(List<TokenLdap> grants, Predicate<TokenLdap> filter) {
+        final List<TokenLdap> pending = tokenPersistenceQueue.getPending(filter);
+        if (pending.isEmpty()) {
+            return grants;
+        }
+        final Set<String> dns = new HashSet<>();
+        for (TokenLdap grant : grants) {
+            dns.add(grant.getDn());
+        }
+        for (TokenLdap token : pending) {
+            if (dns.add(token.getDn())) {
+                grants.add(token);
             }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
         }
         return grants;
     }
 
-    public void logout(String sessionDn) {
-        final List<TokenLdap> tokens = getGrantsBySessionDn(sessionDn);
+    /**
+     * Removes tokens of session. Tokens which can be found are removed even if search or removal of other tokens
+     * fails.
+     *
+     * @return true if all tokens of session are removed, false if search or removal of some tokens failed (failures
+     * are logged, caller can retry)
+     */
+    public boolean logout(String sessionDn) {
+        final List<TokenLdap> found = searchTokens(Filter.createEqualityFilter("ssnId", sessionDn));
+        final List<TokenLdap> tokens = getGrantsBySessionDn(found != null ? found : new ArrayList<>(), sessionDn);
+        boolean keepIndex = found == null; // retry needs index to find tokens of other nodes
         if (!appConfiguration.getRemoveRefreshTokensForClientOnLogout()) {
             List<TokenLdap> refreshTokens = Lists.newArrayList();
             for (TokenLdap token : tokens) {
@@ -230,13 +381,19 @@ public class GrantService {
             if (!refreshTokens.isEmpty()) {
                 log.trace("Refresh tokens are not removed on logout (because removeRefreshTokensForClientOnLogout configuration property is false)");
                 tokens.removeAll(refreshTokens);
+                keepIndex = true; // index still points to refresh tokens
             }
         }
-        removeSilently(tokens);
+        final boolean removed = removeSilently(tokens);
+        if (!keepIndex && removed) {
+            tokenIndexService.remove(TokenIndexService.IndexType.SESSION, sessionDn);
+        }
+        return found != null && removed;
     }
 
     public void removeAllTokensBySession(String sessionDn, boolean logout) {
         removeSilently(getGrantsBySessionDn(sessionDn));
+        tokenIndexService.remove(TokenIndexService.IndexType.SESSION, sessionDn);
     }
 
     /**
@@ -259,10 +416,12 @@ public class GrantService {
 
     public void removeAllByAuthorizationCode(String p_authorizationCode) {
         removeSilently(getGrantsByAuthorizationCode(p_authorizationCode));
+        tokenIndexService.remove(TokenIndexService.IndexType.AUTHORIZATION_CODE, TokenHashUtil.hash(p_authorizationCode));
     }
 
     public void removeAllByGrantId(String p_grantId) {
         removeSilently(getGrantsByGrantId(p_grantId));
+        tokenIndexService.remove(TokenIndexService.IndexType.GRANT, p_grantId);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.service.cdi.event.AuthConfigurationEvent;
+import io.jans.as.server.util.ServerUtil;
+import io.jans.as.server.util.TokenHashUtil;
+import io.jans.service.cdi.async.Asynchronous;
+import io.jans.service.cdi.event.Scheduled;
+
+/**
+ * Short living local cache of built introspection responses.
+ * <p>
+ * Responses are keyed by hash of introspected token and hash of caller token (authorization). Entry is
+ * dropped when token is removed (see {@link GrantService#remove(io.jans.as.server.model.ldap.TokenLdap)}),
+ * when introspected token expires or after introspectionResponseCacheLifetimeInSeconds. Only active responses
+ * are cached. Responses cached for callers without authorization are served only while
+ * introspectionSkipAuthorization is set. Caller key of client credentials (basic authorization) is not invalidated
+ * when client changes, so caller has to authenticate client again before cached response is used.
+ */
+@ApplicationScoped
+@Named
+public class IntrospectionResponseCache {
+
+    private static final String SKIPPED_AUTHORIZATION_KEY = "-";
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    // introspected token hash -> (caller key -> response)
+    private Cache<String, ConcurrentMap<String, CachedResponse>> responses;
+    // caller keys which passed authorization
+    private Cache<String, Boolean> authorizedCallers;
+
+    private int currentLifetime;
+    private int currentMaxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    @Asynchronous
+    public void reloadConfigurationTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
+        if (currentLifetime != appConfiguration.getIntrospectionResponseCacheLifetimeInSeconds()
+                || currentMaxSize != appConfiguration.getIntrospectionResponseCacheMaxSize()) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        currentLifetime = Math.max(1, appConfiguration.getIntrospectionResponseCacheLifetimeInSeconds());
+        currentMaxSize = Math.max(1, appConfiguration.getIntrospectionResponseCacheMaxSize());
+
+        responses = CacheBuilder.newBuilder()
+                .expireAfterWrite(currentLifetime, TimeUnit.SECONDS).maximumSize(currentMaxSize).build();
+        authorizedCallers = CacheBuilder.newBuilder()
+                .expireAfterWrite(currentLifetime, TimeUnit.SECONDS).maximumSize(currentMaxSize).build();
+    }
+
+    public boolean isEnabled() {
+        return ServerUtil.isTrue(appConfiguration.getIntrospectionResponseCacheEnabled());
+    }
+
+    public static String callerKey(String callerToken) {
+        return StringUtils.isBlank(callerToken) ? SKIPPED_AUTHORIZATION_KEY : TokenHashUtil.hash(callerToken);
+    }
+
+    public CachedResponse get(String callerKey, String token, boolean asJwt) {
+        if (!isEnabled() || StringUtils.isBlank(token)) {
+            return null;
+        }
+
+        final ConcurrentMap<String, CachedResponse> byCaller = responses.getIfPresent(TokenHashUtil.hash(token));
+        final CachedResponse response = byCaller != null ? byCaller.get(responseKey(callerKey, asJwt)) : null;
+        if (response == null || response.isExpired() || !isAuthorizedCaller(callerKey)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return response;
+    }
+
+    private boolean isAuthorizedCaller(String callerKey) {
+        if (SKIPPED_AUTHORIZATION_KEY.equals(callerKey)) {
+            return ServerUtil.isTrue(appConfiguration.getIntrospectionSkipAuthorization());
+        }
+        return authorizedCallers.getIfPresent(callerKey) != null;
+    }
+
+    public void put(String callerKey, String token, boolean asJwt, String entity, Date tokenExpirationDate) {
+        if (!isEnabled() || StringUtils.isBlank(token) || entity == null) {
+            return;
+        }
+
+        final long expiresAt = tokenExpirationDate != null ? tokenExpirationDate.getTime() : Long.MAX_VALUE;
+        try {
+            responses.get(TokenHashUtil.hash(token), ConcurrentHashMap::new)
+                    .put(responseKey(callerKey, asJwt), new CachedResponse(entity, asJwt, expiresAt));
+            authorizedCallers.put(callerKey, Boolean.TRUE);
+        } catch (Exception e) {
+            // cache is optimization, ignore failure
+        }
+    }
+
+    /**
+     * Evicts responses of token and marks it as not authorized anymore to call introspection.
+     *
+     * @param hashedToken hashed token code
+     */
+    public void invalidate(String hashedToken) {
+        if (StringUtils.isBlank(hashedToken)) {
+            return;
+        }
+        responses.invalidate(hashedToken);
+        authorizedCallers.invalidate(hashedToken);
+    }
+
+    public void clear() {
+        responses.invalidateAll();
+        authorizedCallers.invalidateAll();
+    }
+
+    private static String responseKey(String callerKey, boolean asJwt) {
+        return callerKey + (asJwt ? "_jwt" : "_json");
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public static class CachedResponse {
+
+        private final String entity;
+        private final boolean jwt;
+        private final long expiresAt;
+
+        public CachedResponse(String entity, boolean jwt, long expiresAt) {
+            this.entity = entity;
+            this.jwt = jwt;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public boolean isJwt() {
+            return jwt;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
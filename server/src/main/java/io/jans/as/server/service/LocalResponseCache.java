@@ -1,25 +1,25 @@
 package io.jans.as.server.service;
 
-import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.json.JSONObject;
-
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
 import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.server.service.cdi.event.AuthConfigurationEvent;
 import io.jans.service.cdi.async.Asynchronous;
+import io.jans.service.cdi.event.ConfigurationUpdate;
 import io.jans.service.cdi.event.Scheduled;
 
 /**
+ * Keeps pre-rendered discovery and webfinger responses. Responses are dropped when configuration is updated and
+ * expire after discoveryCacheLifetimeInMinutes (discovery depends also on scopes, claims and scripts).
+ *
  * @author Yuriy Zabrovarnyy
  */
 @ApplicationScoped
@@ -27,68 +27,53 @@ import io.jans.service.cdi.event.Scheduled;
 public class LocalResponseCache {
 
     public static final int DEFAULT_DISCOVERY_LIFETIME = 60;
-    public static final int DEFAULT_SECTOR_IDENTIFIER_LIFETIME = 1440; // 1 day
+    public static final int WEBFINGER_CACHE_MAX_SIZE = 1000;
 
     private static final String DISCOVERY_CACHE_KEY = "DISCOVERY_CACHE_KEY";
 
     @Inject
     private AppConfiguration appConfiguration;
 
-    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
-    private Cache<String, JSONObject> discoveryCache = CacheBuilder.newBuilder()
+    // replaced atomically on lifetime change, readers keep using previous instance meanwhile
+    private volatile Cache<String, PreRenderedResponse> discoveryCache = CacheBuilder.newBuilder()
             .expireAfterWrite(DEFAULT_DISCOVERY_LIFETIME, TimeUnit.MINUTES).build();
-    private Cache<String, List<String>> sectorIdentifierCache = CacheBuilder.newBuilder()
-            .expireAfterWrite(DEFAULT_SECTOR_IDENTIFIER_LIFETIME, TimeUnit.MINUTES).build();
+    private volatile Cache<String, PreRenderedResponse> webFingerCache = CacheBuilder.newBuilder()
+            .expireAfterWrite(DEFAULT_DISCOVERY_LIFETIME, TimeUnit.MINUTES).maximumSize(WEBFINGER_CACHE_MAX_SIZE).build();
 
     private int currentDiscoveryLifetime = DEFAULT_DISCOVERY_LIFETIME;
-    private int currentSectorIdentifierLifetime = DEFAULT_SECTOR_IDENTIFIER_LIFETIME;
 
     @Asynchronous
     public void reloadConfigurationTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
-        try {
-            if (rebuilding.get())
-                return;
-
-            rebuilding.set(true);
-
-            if (currentDiscoveryLifetime != appConfiguration.getDiscoveryCacheLifetimeInMinutes()) {
-                currentDiscoveryLifetime = appConfiguration.getDiscoveryCacheLifetimeInMinutes();
-                discoveryCache = CacheBuilder.newBuilder()
-                        .expireAfterWrite(appConfiguration.getDiscoveryCacheLifetimeInMinutes(), TimeUnit.MINUTES).build();
-            }
-            if (currentSectorIdentifierLifetime != appConfiguration.getSectorIdentifierCacheLifetimeInMinutes()) {
-                currentSectorIdentifierLifetime = appConfiguration.getSectorIdentifierCacheLifetimeInMinutes();
-                sectorIdentifierCache = CacheBuilder.newBuilder()
-                        .expireAfterWrite(appConfiguration.getSectorIdentifierCacheLifetimeInMinutes(), TimeUnit.MINUTES).build();
-            }
-        } finally {
-            rebuilding.set(false);
+        if (currentDiscoveryLifetime != appConfiguration.getDiscoveryCacheLifetimeInMinutes()) {
+            currentDiscoveryLifetime = appConfiguration.getDiscoveryCacheLifetimeInMinutes();
+            discoveryCache = CacheBuilder.newBuilder()
+                    .expireAfterWrite(appConfiguration.getDiscoveryCacheLifetimeInMinutes(), TimeUnit.MINUTES).build();
+            webFingerCache = CacheBuilder.newBuilder()
+                    .expireAfterWrite(appConfiguration.getDiscoveryCacheLifetimeInMinutes(), TimeUnit.MINUTES)
+                    .maximumSize(WEBFINGER_CACHE_MAX_SIZE).build();
         }
     }
 
-    public List<String> getSectorRedirectUris(String sectorIdentifierUri) {
-        if (sectorIdentifierCache == null || rebuilding.get())
-            return null;
-        return sectorIdentifierCache.getIfPresent(sectorIdentifierUri);
+    public void updateConfiguration(@Observes @ConfigurationUpdate AppConfiguration appConfiguration) {
+        discoveryCache.invalidateAll();
+        webFingerCache.invalidateAll();
     }
 
-    public void putSectorRedirectUris(String sectorIdentifierUri, List<String> redirectUris) {
-        if (sectorIdentifierCache == null || rebuilding.get())
-            return;
-
-        sectorIdentifierCache.put(sectorIdentifierUri, redirectUris);
+    public PreRenderedResponse getDiscoveryResponse() {
+        return discoveryCache.getIfPresent(DISCOVERY_CACHE_KEY);
     }
 
-    public JSONObject getDiscoveryResponse() {
-        if (discoveryCache == null || rebuilding.get())
-            return null;
-        return discoveryCache.getIfPresent(DISCOVERY_CACHE_KEY);
+    public void putDiscoveryResponse(PreRenderedResponse response) {
+        discoveryCache.put(DISCOVERY_CACHE_KEY, response);
     }
 
-    public void putDiscoveryResponse(JSONObject response) {
-        if (discoveryCache == null || rebuilding.get())
-            return;
+    public PreRenderedResponse getWebFingerResponse(String resource) {
+        return resource != null ? webFingerCache.getIfPresent(resource) : null;
+    }
 
-        discoveryCache.put(DISCOVERY_CACHE_KEY, response);
+    public void putWebFingerResponse(String resource, PreRenderedResponse response) {
+        if (resource != null) {
+            webFingerCache.put(resource, response);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.service.cdi.event.AuthConfigurationEvent;
+import io.jans.as.server.util.ServerUtil;
+import io.jans.service.cdi.async.Asynchronous;
+import io.jans.service.cdi.event.Scheduled;
+
+/**
+ * Local read-through cache of persistent pairwise identifiers keyed by (user, sector, client).
+ * <p>
+ * Pairwise identifier never changes once it is created, so positive entries live for
+ * pairwiseIdCacheLifetimeInSeconds. Misses are cached for pairwiseIdNegativeCacheLifetimeInSeconds only, because
+ * identifier can be created by other node. Users with existing pairwise branch are remembered as well to skip
+ * branch lookup.
+ */
+@ApplicationScoped
+@Named
+public class PairwiseIdentifierCache {
+
+    private static final String NOT_FOUND = "";
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private Cache<String, String> identifiers;
+    private Cache<String, String> misses;
+    private Cache<String, Boolean> branches;
+
+    private int currentLifetime;
+    private int currentNegativeLifetime;
+    private int currentMaxSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    @Asynchronous
+    public void reloadConfigurationTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
+        if (currentLifetime != appConfiguration.getPairwiseIdCacheLifetimeInSeconds()
+                || currentNegativeLifetime != appConfiguration.getPairwiseIdNegativeCacheLifetimeInSeconds()
+                || currentMaxSize != appConfiguration.getPairwiseIdCacheMaxSize()) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        currentLifetime = Math.max(1, appConfiguration.getPairwiseIdCacheLifetimeInSeconds());
+        currentNegativeLifetime = Math.max(1, appConfiguration.getPairwiseIdNegativeCacheLifetimeInSeconds());
+        currentMaxSize = Math.max(1, appConfiguration.getPairwiseIdCacheMaxSize());
+
+        identifiers = CacheBuilder.newBuilder()
+                .expireAfterWrite(currentLifetime, TimeUnit.SECONDS).maximumSize(currentMaxSize).build();
+        misses = CacheBuilder.newBuilder()
+                .expireAfterWrite(currentNegativeLifetime, TimeUnit.SECONDS).maximumSize(currentMaxSize).build();
+        branches = CacheBuilder.newBuilder()
+                .expireAfterWrite(currentLifetime, TimeUnit.SECONDS).maximumSize(currentMaxSize).build();
+    }
+
+    public boolean isEnabled() {
+        return ServerUtil.isTrue(appConfiguration.getPairwiseIdCacheEnabled());
+    }
+
+    public static String key(String userInum, String sectorIdentifier, String clientId) {
+        return userInum + "|" + sectorIdentifier + "|" + (clientId != null ? clientId : "");
+    }
+
+    /**
+     * @return cached pairwise identifier, empty string if it is known that identifier does not exist, or null if
+     * there is no cached information
+     */
+    public String get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final String id = identifiers.getIfPresent(key);
+        if (id != null) {
+            hitCount.incrementAndGet();
+            return id;
+        }
+        if (misses.getIfPresent(key) != null) {
+            hitCount.incrementAndGet();
+            return NOT_FOUND;
+        }
+
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    public static boolean isNotFound(String cachedValue) {
+        return NOT_FOUND.equals(cachedValue);
+    }
+
+    public void put(String key, String pairwiseId) {
+        if (!isEnabled() || key == null || pairwiseId == null) {
+            return;
+        }
+
+        misses.invalidate(key);
+        identifiers.put(key, pairwiseId);
+    }
+
+    public void putNotFound(String key) {
+        if (isEnabled() && key != null) {
+            misses.put(key, Boolean.TRUE.toString());
+        }
+    }
+
+    public boolean isKnownBranch(String userInum) {
+        return isEnabled() && userInum != null && branches.getIfPresent(userInum) != null;
+    }
+
+    public void putKnownBranch(String userInum) {
+        if (isEnabled() && userInum != null) {
+            branches.put(userInum, Boolean.TRUE);
+        }
+    }
+
+    public void clear() {
+        identifiers.invalidateAll();
+        misses.invalidateAll();
+        branches.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+}
@@ -44,6 +44,9 @@ public class PairwiseIdentifierService {
     @Inject
     private AppConfiguration appConfiguration;
 
+    @Inject
+    private PairwiseIdentifierCache pairwiseIdentifierCache;
+
     public void addBranch(final String userInum) {
         SimpleBranch branch = new SimpleBranch();
         branch.setOrganizationalUnitName("pairwiseIdentifiers");
@@ -61,16 +64,33 @@ public class PairwiseIdentifierService {
             return;
         }
 
+        if (pairwiseIdentifierCache.isKnownBranch(userInum)) {
+            return;
+        }
+
         // Create pairwise identifier branch if needed
         if (!containsBranch(userInum)) {
             addBranch(userInum);
         }
+        pairwiseIdentifierCache.putKnownBranch(userInum);
     }
 
     public PairwiseIdentifier findPairWiseIdentifier(String userInum, String sectorIdentifier, String clientId) throws Exception {
         PairwiseIdType pairwiseIdType = PairwiseIdType.fromString(appConfiguration.getPairwiseIdType());
 
         if (PairwiseIdType.PERSISTENT == pairwiseIdType) {
+            final String cacheKey = cacheKey(userInum, sectorIdentifier, clientId);
+            final String cachedId = pairwiseIdentifierCache.get(cacheKey);
+            if (PairwiseIdentifierCache.isNotFound(cachedId)) {
+                return null;
+            }
+            if (cachedId != null) {
+                PairwiseIdentifier pairwiseIdentifier = new PairwiseIdentifier(sectorIdentifier, clientId, userInum);
+                pairwiseIdentifier.setId(cachedId);
+                pairwiseIdentifier.setDn(getDnForPairwiseIdentifier(cachedId, userInum));
+                return pairwiseIdentifier;
+            }
+
             prepareBranch(userInum);
 
             String baseDnForPairwiseIdentifiers = getBaseDnForPairwiseIdentifiers(userInum);
@@ -98,16 +118,19 @@ public class PairwiseIdentifierService {
                         log.error("PairwiseIdentifier: {}", pairwiseIdentifier);
                     }
                 }
+                pairwiseIdentifierCache.put(cacheKey, entries.get(0).getId());
                 return entries.get(0);
             }
+            pairwiseIdentifierCache.putNotFound(cacheKey);
         } else { // PairwiseIdType.ALGORITHMIC
             String key = appConfiguration.getPairwiseCalculationKey();
             String salt = appConfiguration.getPairwiseCalculationSalt();
             String localAccountId = appConfiguration.isShareSubjectIdBetweenClientsWithSameSectorId() ?
                     userInum : userInum + clientId;
 
+            // computed locally, no persistence access
             String calculatedSub = SubjectIdentifierGenerator.generatePairwiseSubjectIdentifier(
-                    sectorIdentifier, localAccountId, key, salt, appConfiguration);
+                    sectorIdentifier, localAccountId, key, salt);
 
             PairwiseIdentifier pairwiseIdentifier = new PairwiseIdentifier(sectorIdentifier, clientId, userInum);
             pairwiseIdentifier.setId(calculatedSub);
@@ -123,6 +146,14 @@ public class PairwiseIdentifierService {
         userService.addUserAttributeByUserInum(userInum, "jansPPID", pairwiseIdentifier.getId());
 
         ldapEntryManager.persist(pairwiseIdentifier);
+        pairwiseIdentifierCache.put(cacheKey(userInum, pairwiseIdentifier.getSectorIdentifier(), pairwiseIdentifier.getClientId()),
+                pairwiseIdentifier.getId());
+    }
+
+    private String cacheKey(String userInum, String sectorIdentifier, String clientId) {
+        // sub is shared between clients of the same sector, so client is not part of the key
+        final boolean shared = appConfiguration.isShareSubjectIdBetweenClientsWithSameSectorId();
+        return PairwiseIdentifierCache.key(userInum, sectorIdentifier, shared ? null : clientId);
     }
 
     public String getDnForPairwiseIdentifier(String jsId, String userInum) {
@@ -0,0 +1,138 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+
+import io.jans.as.model.util.Base64Util;
+
+/**
+ * Immutable response rendered once to bytes (plain and gzip) with strong ETag per representation.
+ * <p>
+ * Serving it does not touch JSON: request with If-None-Match matching ETag of representation which would be sent gets
+ * 304, otherwise bytes are written as is. Gzip representation has "-gzip" suffix in its ETag.
+ */
+public class PreRenderedResponse {
+
+    private final String contentType;
+    private final byte[] plain;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    private PreRenderedResponse(String contentType, byte[] plain, byte[] gzip, String tag) {
+        this.contentType = contentType;
+        this.plain = plain;
+        this.gzip = gzip;
+        this.etag = "\"" + tag + "\"";
+        this.gzipEtag = "\"" + tag + "-gzip\"";
+    }
+
+    public static PreRenderedResponse of(String body, String contentType) throws IOException {
+        final byte[] plain = body.getBytes(StandardCharsets.UTF_8);
+
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream(plain.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(plain);
+        }
+
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(plain);
+            return new PreRenderedResponse(contentType, plain, gzipped.toByteArray(), Base64Util.base64urlencode(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    public int getLength() {
+        return plain.length;
+    }
+
+    /**
+     * Writes response (or 304 if client has the same representation).
+     *
+     * @param maxAgeInSeconds Cache-Control max-age, zero or negative value sends no-cache
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, int maxAgeInSeconds) throws IOException {
+        final boolean useGzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+        final String tag = useGzip ? gzipEtag : etag;
+
+        response.setHeader("ETag", tag);
+        response.setHeader("Cache-Control", maxAgeInSeconds > 0 ? "public, max-age=" + maxAgeInSeconds : "no-cache");
+        response.setHeader("Vary", "Accept-Encoding");
+
+        if (matches(request.getHeader("If-None-Match"), tag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        final byte[] body;
+        if (useGzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            body = gzip;
+        } else {
+            body = plain;
+        }
+
+        response.setContentType(contentType);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(body.length);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(body);
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (StringUtils.isBlank(ifNoneMatch)) {
+            return false;
+        }
+
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) { // weak comparison is used for If-None-Match (RFC 7232)
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (StringUtils.isBlank(acceptEncoding)) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
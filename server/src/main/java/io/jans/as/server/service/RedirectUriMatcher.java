@@ -0,0 +1,72 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pre-compiled set of registered redirect uris.
+ * <p>
+ * Matches the same uris as {@link RedirectionUriService#isUriEqual(String, String[])}: uri is accepted if it is
+ * equal to registered one, or if it has the same part before '?' and the same query parameters (in any order).
+ * Registered uris are parsed once, matching parses only the given uri.
+ */
+public class RedirectUriMatcher {
+
+    private final String[] source;
+    private final Set<String> exact;
+    private final Map<String, List<Map<String, String>>> paramsByBase;
+
+    private RedirectUriMatcher(String[] source) {
+        this.source = source;
+        this.exact = new HashSet<>();
+        this.paramsByBase = new HashMap<>();
+
+        for (String uri : source) {
+            if (uri == null) {
+                continue;
+            }
+            exact.add(uri);
+            paramsByBase.computeIfAbsent(RedirectionUriService.uriWithoutParams(uri), k -> new ArrayList<>())
+                    .add(Collections.unmodifiableMap(RedirectionUriService.getParams(uri)));
+        }
+    }
+
+    public static RedirectUriMatcher compile(String[] uris) {
+        return new RedirectUriMatcher(uris != null ? uris : new String[0]);
+    }
+
+    public boolean matches(String uri) {
+        if (uri == null) {
+            return false;
+        }
+        if (exact.contains(uri)) {
+            return true;
+        }
+
+        final List<Map<String, String>> candidates = paramsByBase.get(RedirectionUriService.uriWithoutParams(uri));
+        return candidates != null && candidates.contains(RedirectionUriService.getParams(uri));
+    }
+
+    /**
+     * @return whether matcher was compiled from given uris (same array or equal content)
+     */
+    public boolean isCompiledFrom(String[] uris) {
+        return source == uris || Arrays.equals(source, uris);
+    }
+
+    public int size() {
+        return source.length;
+    }
+}
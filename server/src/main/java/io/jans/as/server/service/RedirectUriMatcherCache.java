@@ -0,0 +1,54 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps compiled redirect uri matchers by client. Matcher is recompiled when uris of client differ from uris it
+ * was compiled from, so changed client never uses stale matcher.
+ */
+@ApplicationScoped
+@Named
+public class RedirectUriMatcherCache {
+
+    private static final int MAX_SIZE = 10000;
+
+    private final Cache<String, RedirectUriMatcher> cache = CacheBuilder.newBuilder().maximumSize(MAX_SIZE).build();
+
+    /**
+     * @param key  cache key, e.g. client dn
+     * @param uris registered uris
+     * @return matcher compiled from given uris
+     */
+    public RedirectUriMatcher getMatcher(String key, String[] uris) {
+        if (StringUtils.isBlank(key)) {
+            return RedirectUriMatcher.compile(uris);
+        }
+
+        final RedirectUriMatcher cached = cache.getIfPresent(key);
+        if (cached != null && cached.isCompiledFrom(uris)) {
+            return cached;
+        }
+
+        final RedirectUriMatcher matcher = RedirectUriMatcher.compile(uris);
+        cache.put(key, matcher);
+        return matcher;
+    }
+
+    public void invalidate(String key) {
+        if (StringUtils.isNotBlank(key)) {
+            cache.invalidate(key);
+        }
+    }
+}
@@ -6,6 +6,8 @@
 
 package io.jans.as.server.service;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,12 +16,9 @@ import java.util.Set;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang.StringUtils;
-import org.jboss.resteasy.client.ClientRequest;
-import org.jboss.resteasy.client.ClientResponse;
 import org.jetbrains.annotations.NotNull;
 import org.json.JSONArray;
 import org.slf4j.Logger;
@@ -35,6 +34,8 @@ import io.jans.as.model.error.ErrorResponseFactory;
 import io.jans.as.model.session.EndSessionErrorResponseType;
 import io.jans.as.model.util.Util;
 import io.jans.as.server.model.common.SessionId;
+import io.jans.as.server.service.net.RemoteDocumentFetcher;
+import io.jans.as.server.service.net.RemoteDocumentFetcher.Document;
 
 /**
  * @author Javier Rojas Blum
@@ -57,7 +58,10 @@ public class RedirectionUriService {
     private AppConfiguration appConfiguration;
 
     @Inject
-    private LocalResponseCache localResponseCache;
+    private RemoteDocumentFetcher remoteDocumentFetcher;
+
+    @Inject
+    private RedirectUriMatcherCache redirectUriMatcherCache;
 
     public String validateRedirectionUri(String clientIdentifier, String redirectionUri) {
         Client client = clientService.getClient(clientIdentifier);
@@ -68,32 +72,35 @@ public class RedirectionUriService {
     }
 
     public List<String> getSectorRedirectUris(String sectorIdentiferUri) throws Exception {
-        List<String> result = Lists.newArrayList();
-        if (StringUtils.isBlank(sectorIdentiferUri)) {
-            return result;
-        }
+        final String[] uris = getSectorRedirectUriArray(sectorIdentiferUri);
+        return uris != null ? Collections.unmodifiableList(Arrays.asList(uris)) : Lists.newArrayList();
+    }
 
-        final List<String> sectorRedirectUris = localResponseCache.getSectorRedirectUris(sectorIdentiferUri);
-        if (sectorRedirectUris != null) {
-            return sectorRedirectUris;
+    /**
+     * @return redirect uris of sector identifier document (the same array instance while document is cached, so
+     * matcher compiled from it is reused) or null if there is no document
+     */
+    private String[] getSectorRedirectUriArray(String sectorIdentiferUri) {
+        if (StringUtils.isBlank(sectorIdentiferUri)) {
+            return null;
         }
 
-        ClientRequest clientRequest = new ClientRequest(sectorIdentiferUri);
-        clientRequest.setHttpMethod(HttpMethod.GET);
-
-        ClientResponse<String> clientResponse = clientRequest.get(String.class);
-        int status = clientResponse.getStatus();
-        if (status != 200) {
-            return result;
+        // Cache-Control of sector identifier document is ignored, it is kept for sectorIdentifierCacheLifetimeInMinutes
+        final long lifetime = appConfiguration.getSectorIdentifierCacheLifetimeInMinutes() * 60 * 1000L;
+        final Document document = remoteDocumentFetcher.get(sectorIdentiferUri, lifetime, lifetime);
+        if (document == null) {
+            return null;
         }
 
-        String entity = clientResponse.getEntity(String.class);
-        JSONArray sectorIdentifierJsonArray = new JSONArray(entity);
+        return document.getParsed(String[].class, RedirectionUriService::parseSectorRedirectUris);
+    }
 
-        for (int i = 0; i < sectorIdentifierJsonArray.length(); i++) {
-            result.add(sectorIdentifierJsonArray.getString(i));
+    private static String[] parseSectorRedirectUris(String content) {
+        JSONArray sectorIdentifierJsonArray = new JSONArray(content);
+        String[] result = new String[sectorIdentifierJsonArray.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sectorIdentifierJsonArray.getString(i);
         }
-        localResponseCache.putSectorRedirectUris(sectorIdentiferUri, result);
         return result;
     }
 
@@ -103,14 +110,14 @@ public class RedirectionUriService {
             String[] redirectUris = client.getRedirectUris();
 
             if (StringUtils.isNotBlank(sectorIdentifierUri)) {
-                redirectUris = getSectorRedirectUris(sectorIdentifierUri).toArray(new String[0]);
+                redirectUris = getSectorRedirectUriArray(sectorIdentifierUri);
             }
 
             if (StringUtils.isNotBlank(redirectionUri) && redirectUris != null) {
                 log.debug("Validating redirection URI: clientIdentifier = {}, redirectionUri = {}, found = {}",
                         client.getClientId(), redirectionUri, redirectUris.length);
 
-                if (isUriEqual(redirectionUri, redirectUris)) {
+                if (redirectUriMatcherCache.getMatcher(client.getDn(), redirectUris).matches(redirectionUri)) {
                     return redirectionUri;
                 }
             } else {
@@ -127,6 +134,7 @@ public class RedirectionUriService {
 
     public boolean isUriEqual(String redirectionUri, String[] redirectUris) {
         final String redirectUriWithoutParams = uriWithoutParams(redirectionUri);
+        Map<String, String> redirectUriParams = null; // parsed lazily, only if some registered uri has the same base
 
         for (String uri : redirectUris) {
             log.debug("Comparing {} == {}", uri, redirectionUri);
@@ -134,11 +142,13 @@ public class RedirectionUriService {
                 return true;
             }
 
-            String uriWithoutParams = uriWithoutParams(uri);
-            final Map<String, String> params = getParams(uri);
-
-            if ((uriWithoutParams.equals(redirectUriWithoutParams) && params.size() == 0 && getParams(redirectionUri).size() == 0) ||
-                    uriWithoutParams.equals(redirectUriWithoutParams) && params.size() > 0 && compareParams(redirectionUri, uri)) {
+            if (!uriWithoutParams(uri).equals(redirectUriWithoutParams)) {
+                continue;
+            }
+            if (redirectUriParams == null) {
+                redirectUriParams = getParams(redirectionUri);
+            }
+            if (getParams(uri).equals(redirectUriParams)) {
                 return true;
             }
         }
@@ -59,6 +59,16 @@ public class UserService extends io.jans.as.common.service.common.UserService {
 		return staticConfiguration.getBaseDn().getPeople();
 	}
 
+    @Override
+    protected int getUserCacheLifetimeInSeconds() {
+        return appConfiguration.getUserCacheLifetimeInSeconds();
+    }
+
+    @Override
+    protected int getUserCacheMaxSize() {
+        return appConfiguration.getUserCacheMaxSize();
+    }
+
     public long countFido2RegisteredDevices(String username) {
         String userInum = getUserInum(username);
         if (userInum == null) {
@@ -0,0 +1,10 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.cdi.event;
+
+public class ClientAccessTimeEvent {
+}
@@ -0,0 +1,275 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.ciba;
+
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jboss.resteasy.client.ClientExecutor;
+import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
+import org.slf4j.Logger;
+
+import com.google.common.cache.CacheBuilder;
+
+import io.jans.as.client.ciba.ping.PingCallbackClient;
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.util.ServerUtil;
+
+/**
+ * Sends CIBA notifications (ping callback, push token delivery, push error, end-user notification).
+ * <p>
+ * All notifications share pooled keep-alive http clients and a bounded thread pool, concurrent calls to the same
+ * endpoint host are limited by cibaNotificationMaxConcurrencyPerEndpoint. Failed calls are retried with jittered
+ * exponential backoff according to {@link RetryPolicy} of the call. If the queue is full the notification is sent by
+ * calling thread. If endpoint stays busy for more than {@link #MAX_ENDPOINT_BUSY_DELAYS} delays notification fails.
+ * Permits of endpoint host are dropped after host was not called for {@link #ENDPOINT_PERMITS_IDLE_TIME_IN_MINUTES}
+ * minutes.
+ */
+@ApplicationScoped
+@Named
+public class CibaNotificationEngine {
+
+    private static final int TIMEOUT_IN_MILLIS = 10000;
+    private static final long ENDPOINT_BUSY_DELAY_IN_MILLIS = 100;
+    private static final int MAX_ENDPOINT_BUSY_DELAYS = 600; // 1 minute
+    private static final int MAX_BACKOFF_SHIFT = 10;
+    private static final int ENDPOINT_PERMITS_IDLE_TIME_IN_MINUTES = 10; // much longer than single call
+
+    public enum RetryPolicy {
+        /**
+         * Retries 5xx and calls without response (I/O error, timeout). For idempotent calls.
+         */
+        ANY_FAILURE,
+        /**
+         * Retries only 503, i.e. when endpoint did not process request. Call without response may have been
+         * processed (e.g. read timeout), so it is not retried. For non-idempotent calls.
+         */
+        NOT_PROCESSED
+    }
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final ConcurrentMap<String, Semaphore> endpointPermits = CacheBuilder.newBuilder()
+            .expireAfterAccess(ENDPOINT_PERMITS_IDLE_TIME_IN_MINUTES, TimeUnit.MINUTES).<String, Semaphore>build().asMap();
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong succeededCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final LongAdder totalLatencyInMillis = new LongAdder();
+    private final LongAdder callCount = new LongAdder();
+
+    private CloseableHttpClient httpClient;
+    private volatile CloseableHttpClient fapiHttpClient;
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        final int threads = Math.max(appConfiguration.getCibaNotificationThreadPoolSize(), 1);
+        final int perEndpoint = Math.max(appConfiguration.getCibaNotificationMaxConcurrencyPerEndpoint(), 1);
+        final int queueCapacity = Math.max(appConfiguration.getCibaNotificationQueueCapacity(), 1);
+
+        PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+        cm.setMaxTotal(threads * perEndpoint);
+        cm.setDefaultMaxPerRoute(perEndpoint);
+        this.httpClient = HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom().setCookieSpec(CookieSpecs.STANDARD)
+                        .setConnectTimeout(TIMEOUT_IN_MILLIS).setSocketTimeout(TIMEOUT_IN_MILLIS).build())
+                .setConnectionManager(cm).build();
+
+        this.workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), ServerUtil.daemonThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(ServerUtil.daemonThreadFactory());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        closeQuietly(httpClient);
+        closeQuietly(fapiHttpClient);
+    }
+
+    /**
+     * Returns executor backed by shared pooled http client. Closing it does not close shared connection pool.
+     *
+     * @param fapiCompatibility whether FAPI-CIBA TLS settings are required
+     */
+    public ClientExecutor createClientExecutor(boolean fapiCompatibility) {
+        return new ApacheHttpClient4Executor(fapiCompatibility ? getFapiHttpClient() : httpClient);
+    }
+
+    private CloseableHttpClient getFapiHttpClient() {
+        if (fapiHttpClient == null) {
+            synchronized (this) {
+                if (fapiHttpClient == null) {
+                    fapiHttpClient = PingCallbackClient.createHttpClientForMTLS();
+                }
+            }
+        }
+        return fapiHttpClient;
+    }
+
+    /**
+     * Sends idempotent notification asynchronously.
+     *
+     * @param endpoint endpoint which is called, used to limit concurrency per host
+     * @param call     performs http call and returns response status (or -1 if there is no response)
+     */
+    public void send(String endpoint, IntSupplier call) {
+        send(endpoint, RetryPolicy.ANY_FAILURE, call);
+    }
+
+    /**
+     * Sends notification asynchronously.
+     *
+     * @param endpoint    endpoint which is called, used to limit concurrency per host
+     * @param retryPolicy which failed calls are retried
+     * @param call        performs http call and returns response status (or -1 if there is no response)
+     */
+    public void send(String endpoint, RetryPolicy retryPolicy, IntSupplier call) {
+        submittedCount.incrementAndGet();
+        workers.execute(() -> deliver(endpoint, retryPolicy, call, 0, 0));
+    }
+
+    /**
+     * Runs task on notification thread pool.
+     */
+    public void execute(Runnable task) {
+        workers.execute(task);
+    }
+
+    private void deliver(String endpoint, RetryPolicy retryPolicy, IntSupplier call, int attempt, int busyDelays) {
+        final Semaphore permits = endpointPermits.computeIfAbsent(host(endpoint),
+                k -> new Semaphore(Math.max(appConfiguration.getCibaNotificationMaxConcurrencyPerEndpoint(), 1)));
+        if (!permits.tryAcquire()) { // endpoint is busy, try later without blocking worker
+            if (busyDelays >= MAX_ENDPOINT_BUSY_DELAYS) {
+                failedCount.incrementAndGet();
+                log.warn("CIBA: notification to {} is dropped, endpoint is busy", endpoint);
+                return;
+            }
+            schedule(() -> deliver(endpoint, retryPolicy, call, attempt, busyDelays + 1), ENDPOINT_BUSY_DELAY_IN_MILLIS);
+            return;
+        }
+
+        int status = -1;
+        final long started = System.currentTimeMillis();
+        try {
+            status = call.getAsInt();
+        } catch (Exception e) {
+            log.error("CIBA: failed to send notification to " + endpoint, e);
+        } finally {
+            permits.release();
+            totalLatencyInMillis.add(System.currentTimeMillis() - started);
+            callCount.increment();
+        }
+
+        if (status >= 200 && status < 300) {
+            succeededCount.incrementAndGet();
+            return;
+        }
+
+        if (isRetryable(retryPolicy, status) && attempt < appConfiguration.getCibaNotificationMaxRetries()) {
+            final long base = Math.max(appConfiguration.getCibaNotificationRetryInitialDelayInMillis(), 0) * (1L << Math.min(attempt, MAX_BACKOFF_SHIFT));
+            final long delay = base / 2 + (base > 0 ? ThreadLocalRandom.current().nextLong(base) : 0); // 0.5x - 1.5x
+            retriedCount.incrementAndGet();
+            log.debug("CIBA: notification to {} failed with status {}, retry in {}ms", endpoint, status, delay);
+            schedule(() -> deliver(endpoint, retryPolicy, call, attempt + 1, 0), delay);
+            return;
+        }
+
+        failedCount.incrementAndGet();
+        log.debug("CIBA: notification to {} failed with status {}", endpoint, status);
+    }
+
+    private static boolean isRetryable(RetryPolicy retryPolicy, int status) {
+        if (retryPolicy == RetryPolicy.NOT_PROCESSED) {
+            return status == 503;
+        }
+        return status < 0 || status >= 500;
+    }
+
+    private void schedule(Runnable task, long delayInMillis) {
+        scheduler.schedule(() -> workers.execute(task), delayInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static String host(String uri) {
+        try {
+            final String host = URI.create(uri).getHost();
+            return StringUtils.isNotBlank(host) ? host : String.valueOf(uri);
+        } catch (Exception e) {
+            return String.valueOf(uri);
+        }
+    }
+
+    private void closeQuietly(CloseableHttpClient client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (Exception e) {
+            log.trace("Failed to close http client", e);
+        }
+    }
+
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return workers.getActiveCount();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getSucceededCount() {
+        return succeededCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    public long getAverageLatencyInMillis() {
+        final long count = callCount.sum();
+        return count > 0 ? totalLatencyInMillis.sum() / count : 0;
+    }
+}
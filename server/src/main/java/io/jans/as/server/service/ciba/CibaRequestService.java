@@ -6,8 +6,11 @@
 
 package io.jans.as.server.service.ciba;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
@@ -108,6 +111,49 @@ public class CibaRequestService {
         }
     }
 
+    /**
+     * Generates a list of expired requests with any of given statuses, limited to given partition.
+     * @param partitionFilter Additional filter which limits requests (e.g. to a partition), can be null.
+     * @param maxRequestsToGet Limit of requests that would be returned.
+     * @param statuses Statuses used to filter entries.
+     */
+    public List<CIBARequest> loadExpired(Filter partitionFilter, int maxRequestsToGet, CibaRequestStatus... statuses) {
+        try {
+            Date now = new Date();
+            List<Filter> filters = new ArrayList<>();
+            filters.add(statusFilter(statuses));
+            filters.add(Filter.createLessOrEqualFilter("exp", entryManager.encodeTime(this.cibaBaseDn(), now)));
+            if (partitionFilter != null) {
+                filters.add(partitionFilter);
+            }
+            return entryManager.findEntries(this.cibaBaseDn(), CIBARequest.class,
+                    Filter.createANDFilter(filters.toArray(new Filter[0])), maxRequestsToGet);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Creates filter which matches requests which auth_req_id starts with any of given prefixes.
+     * @param prefixes Prefixes of auth_req_id (hex digits).
+     */
+    public Filter createAuthReqIdPrefixFilter(List<String> prefixes) {
+        Filter[] filters = new Filter[prefixes.size()];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = Filter.createSubstringFilter("authReqId", prefixes.get(i), null, null);
+        }
+        return filters.length == 1 ? filters[0] : Filter.createORFilter(filters);
+    }
+
+    private static Filter statusFilter(CibaRequestStatus... statuses) {
+        Filter[] filters = new Filter[statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            filters[i] = Filter.createEqualityFilter("jansStatus", statuses[i].getValue());
+        }
+        return filters.length == 1 ? filters[0] : Filter.createORFilter(filters);
+    }
+
     /**
      * Change the status field in database for a specific request.
      * @param cibaRequest Entry containing information of the CIBA request.
@@ -122,6 +168,54 @@ public class CibaRequestService {
         }
     }
 
+    /**
+     * Changes status of given requests, requests which already have this status are not written.
+     * @param cibaRequests Entries containing information of the CIBA requests.
+     * @param authorizationStatus New status.
+     * @return Requests which have given status after the call.
+     */
+    public List<CIBARequest> updateStatus(List<CIBARequest> cibaRequests, CibaRequestStatus authorizationStatus) {
+        List<CIBARequest> updated = new ArrayList<>(cibaRequests.size());
+        for (CIBARequest cibaRequest : cibaRequests) {
+            if (authorizationStatus.getValue().equals(cibaRequest.getStatus())) {
+                updated.add(cibaRequest);
+                continue;
+            }
+            try {
+                cibaRequest.setStatus(authorizationStatus.getValue());
+                entryManager.merge(cibaRequest);
+                updated.add(cibaRequest);
+            } catch (Exception e) {
+                log.error("Failed to update status of CIBA request, authReqId: " + cibaRequest.getAuthReqId(), e);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Removes given CibaRequest objects from the database with single request.
+     * @param cibaRequests Objects to be removed.
+     * @return Number of removed entries.
+     */
+    public int removeCibaRequests(List<CIBARequest> cibaRequests) {
+        if (cibaRequests.isEmpty()) {
+            return 0;
+        }
+
+        Filter[] filters = new Filter[cibaRequests.size()];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = Filter.createEqualityFilter("authReqId", cibaRequests.get(i).getAuthReqId());
+        }
+        Filter filter = filters.length == 1 ? filters[0] : Filter.createORFilter(filters);
+        try {
+            return entryManager.remove(this.cibaBaseDn(), CIBARequest.class, filter, filters.length);
+        } catch (Exception e) {
+            log.error("Failed to remove CIBA requests in batch, fall back to one by one removal.", e);
+            cibaRequests.forEach(this::removeCibaRequest);
+            return cibaRequests.size();
+        }
+    }
+
     /**
      * Removes a CibaRequest object from the database.
      * @param cibaRequest Object to be removed.
@@ -190,6 +284,27 @@ public class CibaRequestService {
         return cachedObject instanceof CibaRequestCacheControl ? (CibaRequestCacheControl) cachedObject : null;
     }
 
+    /**
+     * Get CibaRequestCacheControl objects from Cache service. Unlike {@link #getCibaRequest(String)} missed
+     * entries are not retried, it is meant for expired requests which are often already evicted from cache.
+     * @param authReqIds Identifiers of the objects to be gotten.
+     * @return Map of found objects by authReqId.
+     */
+    public Map<String, CibaRequestCacheControl> getCibaRequests(List<String> authReqIds) {
+        Map<String, CibaRequestCacheControl> result = new HashMap<>();
+        for (String authReqId : authReqIds) {
+            try {
+                Object cachedObject = cacheService.get(authReqId);
+                if (cachedObject instanceof CibaRequestCacheControl) {
+                    result.put(authReqId, (CibaRequestCacheControl) cachedObject);
+                }
+            } catch (Exception e) {
+                log.error("Failed to fetch CIBA request from cache, authReqId: " + authReqId, e);
+            }
+        }
+        return result;
+    }
+
     /**
      * Removes from cache a request.
      * @param cacheKey Object to be removed from Cache.
@@ -6,10 +6,12 @@
 
 package io.jans.as.server.service.ciba;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import javax.ejb.DependsOn;
 import javax.enterprise.context.ApplicationScoped;
@@ -28,7 +30,9 @@ import io.jans.as.server.ciba.CIBAPushErrorService;
 import io.jans.as.server.model.common.CibaRequestCacheControl;
 import io.jans.as.server.model.common.CibaRequestStatus;
 import io.jans.as.server.model.ldap.CIBARequest;
+import io.jans.as.server.service.CacheLeaseService;
 import io.jans.as.server.util.ServerUtil;
+import io.jans.orm.search.filter.Filter;
 import io.jans.service.cdi.async.Asynchronous;
 import io.jans.service.cdi.event.CibaRequestsProcessorEvent;
 import io.jans.service.cdi.event.Scheduled;
@@ -37,6 +41,11 @@ import io.jans.service.timer.schedule.TimerSchedule;
 
 /**
  * Job responsible to process all expired CIBA requests and update their status.
+ * <p>
+ * Requests are split into backchannelRequestsProcessorJobPartitionCount partitions by first hex digit of
+ * auth_req_id. If backchannelRequestsProcessorJobClusterLockEnabled is true, node takes lease in cache for a
+ * partition before processing it, so nodes process disjoint partitions concurrently. Each partition chunk is
+ * claimed, fetched from cache and removed with batch calls.
  *
  * @author Milton BO
  * @version May 20, 2020
@@ -47,6 +56,7 @@ import io.jans.service.timer.schedule.TimerSchedule;
 public class CibaRequestsProcessorJob {
 
     public static final int CHUNK_SIZE = 500; // Default value whether there isn't backchannelRequestsProcessorJobChunkSize json property value
+    public static final int MAX_PARTITION_COUNT = 16; // auth_req_id is hex string
 
     @Inject
     private Logger log;
@@ -66,12 +76,13 @@ public class CibaRequestsProcessorJob {
     @Inject
     private CibaRequestService cibaRequestService;
 
+    @Inject
+    private CacheLeaseService cacheLeaseService;
+
     private long lastFinishedTime;
 
     private AtomicBoolean isActive;
 
-    private ExecutorService executorService;
-
     /**
      * Method invoked from the appInitializer to start processing every some time.
      */
@@ -85,7 +96,6 @@ public class CibaRequestsProcessorJob {
                 new CibaRequestsProcessorEvent(), Scheduled.Literal.INSTANCE));
 
         this.lastFinishedTime = System.currentTimeMillis();
-        this.executorService = Executors.newCachedThreadPool(ServerUtil.daemonThreadFactory());
     }
 
     @Asynchronous
@@ -132,26 +142,91 @@ public class CibaRequestsProcessorJob {
         try {
             int chunkSize = appConfiguration.getBackchannelRequestsProcessorJobChunkSize() <= 0 ?
                     CHUNK_SIZE : appConfiguration.getBackchannelRequestsProcessorJobChunkSize();
+            int partitionCount = getPartitionCount();
 
-            List<CIBARequest> expiredRequests = cibaRequestService.loadExpiredByStatus(
-                    CibaRequestStatus.PENDING, chunkSize);
-            expiredRequests.forEach(cibaRequest -> cibaRequestService.updateStatus(cibaRequest,
-                    CibaRequestStatus.IN_PROCESS));
-
-            for (CIBARequest expiredRequest : expiredRequests) {
-                CibaRequestCacheControl cibaRequest = cibaRequestService.getCibaRequest(expiredRequest.getAuthReqId());
-                if (cibaRequest != null) {
-                    executorService.execute(() ->
-                        processExpiredRequest(cibaRequest, expiredRequest.getAuthReqId())
-                    );
+            // start from random partition so nodes don't contend for the same lease first
+            int offset = partitionCount > 1 ? ThreadLocalRandom.current().nextInt(partitionCount) : 0;
+            for (int i = 0; i < partitionCount; i++) {
+                int partition = (offset + i) % partitionCount;
+                if (!acquireLease(partition)) {
+                    log.trace("CIBA requests partition {} is processed by another node, skipping it", partition);
+                    continue;
+                }
+                try {
+                    processPartition(partition, partitionCount, chunkSize);
+                } finally {
+                    releaseLease(partition);
                 }
-                cibaRequestService.removeCibaRequest(expiredRequest);
             }
         } catch (Exception e) {
             log.error("Failed to process CIBA request from cache.", e);
         }
     }
 
+    private void processPartition(int partition, int partitionCount, int chunkSize) {
+        Filter partitionFilter = partitionCount > 1 ?
+                cibaRequestService.createAuthReqIdPrefixFilter(partitionPrefixes(partition, partitionCount)) : null;
+
+        // with lease partition belongs to this node, so requests left in process by failed run are picked up too
+        List<CIBARequest> expiredRequests = isClusterLockEnabled() ?
+                cibaRequestService.loadExpired(partitionFilter, chunkSize, CibaRequestStatus.PENDING, CibaRequestStatus.IN_PROCESS) :
+                cibaRequestService.loadExpired(partitionFilter, chunkSize, CibaRequestStatus.PENDING);
+        if (expiredRequests.isEmpty()) {
+            return;
+        }
+
+        List<CIBARequest> claimed = cibaRequestService.updateStatus(expiredRequests, CibaRequestStatus.IN_PROCESS);
+        List<String> authReqIds = claimed.stream().map(CIBARequest::getAuthReqId).collect(Collectors.toList());
+        Map<String, CibaRequestCacheControl> cibaRequests = cibaRequestService.getCibaRequests(authReqIds);
+
+        for (String authReqId : authReqIds) {
+            CibaRequestCacheControl cibaRequest = cibaRequests.get(authReqId);
+            if (cibaRequest != null) {
+                processExpiredRequest(cibaRequest, authReqId); // callbacks are sent asynchronously by CibaNotificationEngine
+            }
+        }
+
+        int removed = cibaRequestService.removeCibaRequests(claimed);
+        log.debug("Processed {} expired CIBA requests of partition {}, removed: {}", claimed.size(), partition, removed);
+    }
+
+    private int getPartitionCount() {
+        return Math.min(Math.max(appConfiguration.getBackchannelRequestsProcessorJobPartitionCount(), 1), MAX_PARTITION_COUNT);
+    }
+
+    private boolean isClusterLockEnabled() {
+        return ServerUtil.isTrue(appConfiguration.getBackchannelRequestsProcessorJobClusterLockEnabled());
+    }
+
+    /**
+     * Hex digits assigned to partition, digit belongs to partition digit % partitionCount.
+     */
+    static List<String> partitionPrefixes(int partition, int partitionCount) {
+        List<String> prefixes = new ArrayList<>();
+        for (int digit = partition; digit < MAX_PARTITION_COUNT; digit += partitionCount) {
+            prefixes.add(Integer.toHexString(digit));
+        }
+        return prefixes;
+    }
+
+    private boolean acquireLease(int partition) {
+        if (!isClusterLockEnabled()) {
+            return true;
+        }
+        final int leaseTime = Math.max(appConfiguration.getBackchannelRequestsProcessorJobIntervalSec(), 1) * 2;
+        return cacheLeaseService.acquire(leaseKey(partition), leaseTime);
+    }
+
+    private void releaseLease(int partition) {
+        if (isClusterLockEnabled()) {
+            cacheLeaseService.release(leaseKey(partition));
+        }
+    }
+
+    private static String leaseKey(int partition) {
+        return "ciba_processor_lease_" + partition;
+    }
+
     /**
      * Method responsible to process expired CIBA requests, set them as expired in cache
      * and send callbacks to the client
@@ -0,0 +1,201 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.external;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.collect.Sets;
+
+import io.jans.model.AuthenticationScriptUsageType;
+import io.jans.model.custom.script.CustomScriptType;
+import io.jans.model.custom.script.conf.CustomScriptConfiguration;
+import io.jans.model.custom.script.model.CustomScript;
+import io.jans.model.custom.script.type.BaseExternalType;
+import io.jans.util.StringHelper;
+
+/**
+ * Immutable lookup tables of authentication scripts, built once per script reload.
+ * <p>
+ * Script names and aliases (acr values) are keys in lower case, so lookup is one map get. If alias is the same as
+ * name of another script, the script name wins. Lookups by acr (including {@link #getScriptName(String)}) go through
+ * the same table. Scripts of each usage type are also kept sorted by level (highest
+ * first, stable for equal levels), so default authenticator is the first one.
+ */
+final class AuthenticationScriptIndex {
+
+    static final AuthenticationScriptIndex EMPTY = new AuthenticationScriptIndex(Collections.emptyMap(),
+            new EnumMap<>(AuthenticationScriptUsageType.class));
+
+    private final Map<AuthenticationScriptUsageType, List<CustomScriptConfiguration>> scriptsByUsageType;
+    private final Map<AuthenticationScriptUsageType, List<CustomScriptConfiguration>> scriptsByLevel;
+    private final Map<AuthenticationScriptUsageType, Map<String, CustomScriptConfiguration>> scriptsByAcr;
+    private final Map<AuthenticationScriptUsageType, Map<Integer, CustomScriptConfiguration>> scriptByAuthLevel;
+    private final Map<String, CustomScriptConfiguration> allScriptsByAcr;
+    private final Set<CustomScriptConfiguration> selectableScripts;
+    private final List<String> acrValues;
+    private final Map<Integer, Set<String>> levelToAcr;
+    private final Map<String, Integer> acrToLevel;
+
+    AuthenticationScriptIndex(Map<String, CustomScriptConfiguration> scriptsByName,
+                              Map<AuthenticationScriptUsageType, List<CustomScriptConfiguration>> scriptsByUsageType) {
+        final Set<String> acrs = new LinkedHashSet<>();
+        for (Map.Entry<String, CustomScriptConfiguration> entry : scriptsByName.entrySet()) {
+            acrs.add(entry.getKey());
+
+            final List<String> scriptAliasList = entry.getValue().getCustomScript().getAliases();
+            if (scriptAliasList != null) {
+                for (String alias : scriptAliasList) {
+                    if (StringUtils.isNotBlank(alias)) {
+                        acrs.add(alias);
+                    }
+                }
+            }
+        }
+        this.acrValues = Collections.unmodifiableList(new ArrayList<>(acrs));
+        this.allScriptsByAcr = Collections.unmodifiableMap(byAcr(scriptsByName.values()));
+
+        final Set<CustomScriptConfiguration> selectable = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CustomScriptConfiguration script : scriptsByName.values()) {
+            if (canBeSelected(script)) {
+                selectable.add(script);
+            }
+        }
+        this.selectableScripts = Collections.unmodifiableSet(selectable);
+
+        final Map<AuthenticationScriptUsageType, List<CustomScriptConfiguration>> byUsageType = new EnumMap<>(AuthenticationScriptUsageType.class);
+        final Map<AuthenticationScriptUsageType, List<CustomScriptConfiguration>> byLevel = new EnumMap<>(AuthenticationScriptUsageType.class);
+        final Map<AuthenticationScriptUsageType, Map<String, CustomScriptConfiguration>> byAcrMap = new EnumMap<>(AuthenticationScriptUsageType.class);
+        final Map<AuthenticationScriptUsageType, Map<Integer, CustomScriptConfiguration>> byAuthLevel = new EnumMap<>(AuthenticationScriptUsageType.class);
+        for (AuthenticationScriptUsageType usageType : AuthenticationScriptUsageType.values()) {
+            final List<CustomScriptConfiguration> scripts = scriptsByUsageType.containsKey(usageType) ?
+                    scriptsByUsageType.get(usageType) : Collections.<CustomScriptConfiguration>emptyList();
+            byUsageType.put(usageType, Collections.unmodifiableList(new ArrayList<>(scripts)));
+
+            final List<CustomScriptConfiguration> sorted = new ArrayList<>(scripts);
+            sorted.sort(Comparator.comparingInt(CustomScriptConfiguration::getLevel).reversed()); // stable
+            byLevel.put(usageType, Collections.unmodifiableList(sorted));
+
+            byAcrMap.put(usageType, Collections.unmodifiableMap(byAcr(scripts)));
+
+            final Map<Integer, CustomScriptConfiguration> authLevels = new HashMap<>();
+            for (CustomScriptConfiguration script : scripts) {
+                authLevels.putIfAbsent(script.getLevel(), script);
+            }
+            byAuthLevel.put(usageType, Collections.unmodifiableMap(authLevels));
+        }
+        this.scriptsByUsageType = Collections.unmodifiableMap(byUsageType);
+        this.scriptsByLevel = Collections.unmodifiableMap(byLevel);
+        this.scriptsByAcr = Collections.unmodifiableMap(byAcrMap);
+        this.scriptByAuthLevel = Collections.unmodifiableMap(byAuthLevel);
+
+        final Map<Integer, Set<String>> levelToAcrMap = new HashMap<>();
+        final Map<String, Integer> acrToLevelMap = new HashMap<>();
+        for (CustomScriptConfiguration script : scriptsByName.values()) {
+            final Set<String> acrs = levelToAcrMap.computeIfAbsent(script.getLevel(), k -> Sets.newHashSet());
+            acrs.add(script.getName());
+
+            acrToLevelMap.put(script.getName(), script.getCustomScript().isInternal() ? -1 : script.getLevel());
+        }
+        for (Map.Entry<Integer, Set<String>> entry : levelToAcrMap.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+        this.levelToAcr = Collections.unmodifiableMap(levelToAcrMap);
+        this.acrToLevel = Collections.unmodifiableMap(acrToLevelMap);
+    }
+
+    private static Map<String, CustomScriptConfiguration> byAcr(Iterable<CustomScriptConfiguration> scripts) {
+        final Map<String, CustomScriptConfiguration> result = new HashMap<>();
+        for (CustomScriptConfiguration script : scripts) { // aliases first, names override them
+            final List<String> aliases = script.getCustomScript().getAliases();
+            if (aliases != null) {
+                for (String alias : aliases) {
+                    if (StringUtils.isNotBlank(alias)) {
+                        result.putIfAbsent(StringHelper.toLowerCase(alias), script);
+                    }
+                }
+            }
+        }
+        for (CustomScriptConfiguration script : scripts) {
+            result.put(StringHelper.toLowerCase(script.getName()), script);
+        }
+        return result;
+    }
+
+    /**
+     * Script can be selected by acr if it is internal or has its own (not default) implementation.
+     */
+    private static boolean canBeSelected(CustomScriptConfiguration script) {
+        final CustomScript customScript = script.getCustomScript();
+        if (customScript.isInternal()) {
+            return true;
+        }
+
+        final CustomScriptType customScriptType = customScript.getScriptType();
+        final BaseExternalType defaultImplementation = customScriptType.getDefaultImplementation();
+        final BaseExternalType pythonImplementation = script.getExternalType();
+        return pythonImplementation != null && defaultImplementation != pythonImplementation;
+    }
+
+    List<CustomScriptConfiguration> getScripts(AuthenticationScriptUsageType usageType) {
+        return scriptsByUsageType.get(usageType);
+    }
+
+    CustomScriptConfiguration getDefault(AuthenticationScriptUsageType usageType) {
+        final List<CustomScriptConfiguration> scripts = scriptsByLevel.get(usageType);
+        return scripts.isEmpty() ? null : scripts.get(0);
+    }
+
+    CustomScriptConfiguration getByAcr(AuthenticationScriptUsageType usageType, String acr) {
+        return acr != null ? scriptsByAcr.get(usageType).get(StringHelper.toLowerCase(acr)) : null;
+    }
+
+    CustomScriptConfiguration getByAcr(String acr) {
+        return acr != null ? allScriptsByAcr.get(StringHelper.toLowerCase(acr)) : null;
+    }
+
+    CustomScriptConfiguration getByAuthLevel(AuthenticationScriptUsageType usageType, int authLevel) {
+        return scriptByAuthLevel.get(usageType).get(authLevel);
+    }
+
+    /**
+     * @return name of script with given name or alias (acr), or acr itself if there is no such script
+     */
+    String getScriptName(String acr) {
+        final CustomScriptConfiguration script = getByAcr(acr);
+        return script != null ? script.getName() : acr;
+    }
+
+    boolean isSelectable(CustomScriptConfiguration script) {
+        return selectableScripts.contains(script);
+    }
+
+    /**
+     * @return script names and aliases
+     */
+    List<String> getAcrValues() {
+        return acrValues;
+    }
+
+    Map<Integer, Set<String>> getLevelToAcr() {
+        return levelToAcr;
+    }
+
+    Map<String, Integer> getAcrToLevel() {
+        return acrToLevel;
+    }
+}
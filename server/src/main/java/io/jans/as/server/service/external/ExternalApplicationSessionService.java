@@ -10,6 +10,7 @@ import java.util.Map;
 
 import javax.ejb.DependsOn;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
 
@@ -34,6 +35,9 @@ public class ExternalApplicationSessionService extends ExternalScriptService {
 
     private static final long serialVersionUID = 2316361273036208685L;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalApplicationSessionService() {
         super(CustomScriptType.APPLICATION_SESSION);
     }
@@ -43,7 +47,7 @@ public class ExternalApplicationSessionService extends ExternalScriptService {
             log.trace("Executing python 'startSession' method");
             ApplicationSessionType applicationSessionType = (ApplicationSessionType) customScriptConfiguration.getExternalType();
             Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-            return applicationSessionType.startSession(httpRequest, sessionId, configurationAttributes);
+            return externalScriptExecutor.execute(customScriptConfiguration, "startSession", false, () -> applicationSessionType.startSession(httpRequest, sessionId, configurationAttributes));
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -71,7 +75,7 @@ public class ExternalApplicationSessionService extends ExternalScriptService {
             log.trace("Executing python 'endSession' method");
             ApplicationSessionType applicationSessionType = (ApplicationSessionType) customScriptConfiguration.getExternalType();
             Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-            return applicationSessionType.endSession(httpRequest, sessionId, configurationAttributes);
+            return externalScriptExecutor.execute(customScriptConfiguration, "endSession", false, () -> applicationSessionType.endSession(httpRequest, sessionId, configurationAttributes));
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -107,7 +111,7 @@ public class ExternalApplicationSessionService extends ExternalScriptService {
             log.trace("Executing python 'onEvent' method of script: " + scriptConfiguration.getName() + ", event: " + event);
             event.setScriptConfiguration(scriptConfiguration);
             ApplicationSessionType applicationSessionType = (ApplicationSessionType) scriptConfiguration.getExternalType();
-            applicationSessionType.onEvent(event);
+            externalScriptExecutor.execute(scriptConfiguration, "onEvent", () -> applicationSessionType.onEvent(event));
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(scriptConfiguration.getCustomScript(), ex);
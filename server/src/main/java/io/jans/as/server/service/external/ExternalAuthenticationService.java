@@ -10,7 +10,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -18,11 +17,6 @@ import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.apache.commons.lang.StringUtils;
-
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
-
 import io.jans.as.common.service.common.ApplicationFactory;
 import io.jans.as.server.service.cdi.event.ReloadAuthScript;
 import io.jans.as.server.service.external.internal.InternalDefaultPersonAuthenticationType;
@@ -32,7 +26,6 @@ import io.jans.model.custom.script.CustomScriptType;
 import io.jans.model.custom.script.conf.CustomScriptConfiguration;
 import io.jans.model.custom.script.model.CustomScript;
 import io.jans.model.custom.script.model.auth.AuthenticationCustomScript;
-import io.jans.model.custom.script.type.BaseExternalType;
 import io.jans.model.custom.script.type.auth.PersonAuthenticationType;
 import io.jans.model.ldap.GluuLdapConfiguration;
 import io.jans.service.custom.script.ExternalScriptService;
@@ -57,9 +50,10 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 
 	private static final long serialVersionUID = 7339887464253044927L;
 
-	private Map<AuthenticationScriptUsageType, List<CustomScriptConfiguration>> customScriptConfigurationsMapByUsageType;
-	private Map<AuthenticationScriptUsageType, CustomScriptConfiguration> defaultExternalAuthenticators;
-	private Map<String, String> scriptAliasMap;
+	@Inject
+	private ExternalScriptExecutor externalScriptExecutor;
+
+	private volatile AuthenticationScriptIndex scriptIndex = AuthenticationScriptIndex.EMPTY;
 
 	public ExternalAuthenticationService() {
 		super(CustomScriptType.PERSON_AUTHENTICATION);
@@ -74,44 +68,14 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			return null;
 		}
 
-		if (scriptAliasMap.containsKey(acr)) {
-			return scriptAliasMap.get(acr);
-		}
-
-		return acr;
+		return scriptIndex.getScriptName(acr);
 	}
 
 	@Override
 	protected void reloadExternal() {
-		// Group external authenticator configurations by usage type
-		this.customScriptConfigurationsMapByUsageType = groupCustomScriptConfigurationsMapByUsageType(this.customScriptConfigurationsNameMap);
-
-		// Build aliases map
-		this.scriptAliasMap = buildScriptAliases();
-
-		// Determine default authenticator for every usage type
-		this.defaultExternalAuthenticators = determineDefaultCustomScriptConfigurationsMap(this.customScriptConfigurationsNameMap);
-	}
-
-	private HashMap<String, String> buildScriptAliases() {
-		HashMap<String, String> newScriptAliases = new HashMap<String, String>();
-		for (Entry<String, CustomScriptConfiguration> script : customScriptConfigurationsNameMap.entrySet()) {
-			String name = script.getKey();
-			CustomScript customScript = script.getValue().getCustomScript();
-
-			newScriptAliases.put(name, name);
-
-			List<String> aliases = customScript.getAliases();
-			if (aliases != null) {
-				for (String alias : aliases) {
-					if (StringUtils.isNotBlank(alias)) {
-						newScriptAliases.put(alias, name);
-					}
-				}
-			}
-		}
-		
-		return newScriptAliases;
+		// Group external authenticator configurations by usage type and build lookup tables, new index replaces old one at once
+		this.scriptIndex = new AuthenticationScriptIndex(this.customScriptConfigurationsNameMap,
+				groupCustomScriptConfigurationsMapByUsageType(this.customScriptConfigurationsNameMap));
 	}
 
 	@Override
@@ -147,31 +111,12 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 		return newCustomScriptConfigurationsMapByUsageType;
 	}
 
-	private Map<AuthenticationScriptUsageType, CustomScriptConfiguration> determineDefaultCustomScriptConfigurationsMap(Map<String,  CustomScriptConfiguration> customScriptConfigurationsMap) {
-		Map<AuthenticationScriptUsageType, CustomScriptConfiguration> newDefaultCustomScriptConfigurationsMap = new HashMap<AuthenticationScriptUsageType, CustomScriptConfiguration>();
-
-		for (AuthenticationScriptUsageType usageType : AuthenticationScriptUsageType.values()) {
-			CustomScriptConfiguration defaultExternalAuthenticator = null;
-			for (CustomScriptConfiguration customScriptConfiguration : customScriptConfigurationsMapByUsageType.get(usageType)) {
-				// Determine default authenticator. It has bigger level than others
-				if ((defaultExternalAuthenticator == null)
-						|| (defaultExternalAuthenticator.getLevel() < customScriptConfiguration.getLevel())) {
-					defaultExternalAuthenticator = customScriptConfiguration;
-				}
-			}
-
-			newDefaultCustomScriptConfigurationsMap.put(usageType, defaultExternalAuthenticator);
-		}
-
-		return newDefaultCustomScriptConfigurationsMap;
-	}
-
 	private boolean executeExternalIsValidAuthenticationMethod(AuthenticationScriptUsageType usageType, CustomScriptConfiguration customScriptConfiguration) {
 		try {
 			log.debug("Executing python 'isValidAuthenticationMethod' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.isValidAuthenticationMethod(usageType, configurationAttributes);
+			return externalScriptExecutor.execute(customScriptConfiguration, "isValidAuthenticationMethod", false, () -> externalAuthenticator.isValidAuthenticationMethod(usageType, configurationAttributes));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -185,7 +130,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'getAlternativeAuthenticationMethod' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.getAlternativeAuthenticationMethod(usageType, configurationAttributes);
+			return externalScriptExecutor.execute(customScriptConfiguration, "getAlternativeAuthenticationMethod", null, () -> externalAuthenticator.getAlternativeAuthenticationMethod(usageType, configurationAttributes));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -199,7 +144,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'getCountAuthenticationSteps' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.getCountAuthenticationSteps(configurationAttributes);
+			return externalScriptExecutor.execute(customScriptConfiguration, "getCountAuthenticationSteps", -1, () -> externalAuthenticator.getCountAuthenticationSteps(configurationAttributes));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -213,7 +158,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'authenticate' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.authenticate(configurationAttributes, requestParameters, step);
+			return externalScriptExecutor.execute(customScriptConfiguration, "authenticate", false, () -> externalAuthenticator.authenticate(configurationAttributes, requestParameters, step));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -227,7 +172,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'getNextStep' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.getNextStep(configurationAttributes, requestParameters, step);
+			return externalScriptExecutor.execute(customScriptConfiguration, "getNextStep", -1, () -> externalAuthenticator.getNextStep(configurationAttributes, requestParameters, step));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -241,7 +186,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'logout' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.logout(configurationAttributes, requestParameters);
+			return externalScriptExecutor.execute(customScriptConfiguration, "logout", false, () -> externalAuthenticator.logout(configurationAttributes, requestParameters));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -255,7 +200,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'getLogouExternalUrl' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.getLogoutExternalUrl(configurationAttributes, requestParameters);
+			return externalScriptExecutor.execute(customScriptConfiguration, "getLogoutExternalUrl", null, () -> externalAuthenticator.getLogoutExternalUrl(configurationAttributes, requestParameters));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -269,7 +214,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'prepareForStep' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.prepareForStep(configurationAttributes, requestParameters, step);
+			return externalScriptExecutor.execute(customScriptConfiguration, "prepareForStep", false, () -> externalAuthenticator.prepareForStep(configurationAttributes, requestParameters, step));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -283,7 +228,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'getExtraParametersForStep' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.getExtraParametersForStep(configurationAttributes, step);
+			return externalScriptExecutor.execute(customScriptConfiguration, "getExtraParametersForStep", null, () -> externalAuthenticator.getExtraParametersForStep(configurationAttributes, step));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -297,7 +242,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 			log.trace("Executing python 'getPageForStep' authenticator method");
 			PersonAuthenticationType externalAuthenticator = (PersonAuthenticationType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return externalAuthenticator.getPageForStep(configurationAttributes, step);
+			return externalScriptExecutor.execute(customScriptConfiguration, "getPageForStep", null, () -> externalAuthenticator.getPageForStep(configurationAttributes, step));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -320,24 +265,11 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 	}
 
 	public boolean isEnabled(AuthenticationScriptUsageType usageType) {
-		return this.customScriptConfigurationsMapByUsageType != null &&
-                this.customScriptConfigurationsMapByUsageType.get(usageType).size() > 0;
+		return !this.scriptIndex.getScripts(usageType).isEmpty();
     }
 
 	public CustomScriptConfiguration getExternalAuthenticatorByAuthLevel(AuthenticationScriptUsageType usageType, int authLevel) {
-		CustomScriptConfiguration resultDefaultExternalAuthenticator = null;
-		for (CustomScriptConfiguration customScriptConfiguration : this.customScriptConfigurationsMapByUsageType.get(usageType)) {
-			// Determine authenticator
-			if (customScriptConfiguration.getLevel() != authLevel) {
-				continue;
-			}
-
-			if (resultDefaultExternalAuthenticator == null) {
-				resultDefaultExternalAuthenticator = customScriptConfiguration;
-			}
-		}
-
-		return resultDefaultExternalAuthenticator;
+		return this.scriptIndex.getByAuthLevel(usageType, authLevel);
 	}
 
 	public CustomScriptConfiguration determineCustomScriptConfiguration(AuthenticationScriptUsageType usageType, int authStep, String acr) {
@@ -356,15 +288,15 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 	}
 
 	public CustomScriptConfiguration determineCustomScriptConfiguration(AuthenticationScriptUsageType usageType, List<String> acrValues) {
-		List<String> authModes = getAuthModesByAcrValues(acrValues);
-		
-		if (authModes.size() > 0) {
-			for (String authMode : authModes) {
-				for (CustomScriptConfiguration customScriptConfiguration : this.customScriptConfigurationsMapByUsageType.get(usageType)) {
-					if (StringHelper.equalsIgnoreCase(authMode, customScriptConfiguration.getName())) {
-						return customScriptConfiguration;
-					}
-				}
+		final AuthenticationScriptIndex index = this.scriptIndex;
+		for (String acrValue : acrValues) {
+			if (StringHelper.isEmpty(acrValue)) {
+				continue;
+			}
+
+			CustomScriptConfiguration customScriptConfiguration = index.getByAcr(usageType, acrValue);
+			if (customScriptConfiguration != null && index.isSelectable(customScriptConfiguration)) {
+				return customScriptConfiguration;
 			}
 		}
 
@@ -374,25 +306,12 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 	public List<String> getAuthModesByAcrValues(List<String> acrValues) {
 		List<String> authModes = new ArrayList<String>();
 
+		final AuthenticationScriptIndex index = this.scriptIndex;
 		for (String acrValue : acrValues) {
 			if (StringHelper.isNotEmpty(acrValue)) {
-				String customScriptName = StringHelper.toLowerCase(scriptName(acrValue));
-				if (customScriptConfigurationsNameMap.containsKey(customScriptName)) {
-					CustomScriptConfiguration customScriptConfiguration = customScriptConfigurationsNameMap.get(customScriptName);
-					CustomScript customScript = customScriptConfiguration.getCustomScript();
-
-					// Handle internal authentication method
-					if (customScript.isInternal()) {
-						authModes.add(scriptName(acrValue));
-						continue;
-					}
-
-					CustomScriptType customScriptType = customScriptConfiguration.getCustomScript().getScriptType();
-					BaseExternalType defaultImplementation = customScriptType.getDefaultImplementation();
-					BaseExternalType pythonImplementation = customScriptConfiguration.getExternalType();
-					if ((pythonImplementation != null) && (defaultImplementation != pythonImplementation)) {
-						authModes.add(scriptName(acrValue));
-					}
+				CustomScriptConfiguration customScriptConfiguration = index.getByAcr(acrValue);
+				if (customScriptConfiguration != null && index.isSelectable(customScriptConfiguration)) {
+					authModes.add(customScriptConfiguration.getName());
 				}
 			}
 		}
@@ -426,31 +345,15 @@ public class ExternalAuthenticationService extends ExternalScriptService {
     }
 
 	public CustomScriptConfiguration getDefaultExternalAuthenticator(AuthenticationScriptUsageType usageType) {
-		if (this.defaultExternalAuthenticators != null) {
-			return this.defaultExternalAuthenticators.get(usageType);
-		}
-		
-		return null;
+		return this.scriptIndex.getDefault(usageType);
 	}
 
 	public CustomScriptConfiguration getCustomScriptConfiguration(AuthenticationScriptUsageType usageType, String name) {
-		for (CustomScriptConfiguration customScriptConfiguration : this.customScriptConfigurationsMapByUsageType.get(usageType)) {
-			if (StringHelper.equalsIgnoreCase(scriptName(name), customScriptConfiguration.getName())) {
-				return customScriptConfiguration;
-			}
-		}
-		
-		return null;
+		return this.scriptIndex.getByAcr(usageType, name);
 	}
 
 	public CustomScriptConfiguration getCustomScriptConfigurationByName(String name) {
-		for (Entry<String, CustomScriptConfiguration> customScriptConfigurationEntry : this.customScriptConfigurationsNameMap.entrySet()) {
-			if (StringHelper.equalsIgnoreCase(scriptName(name), customScriptConfigurationEntry.getKey())) {
-				return customScriptConfigurationEntry.getValue();
-			}
-		}
-
-		return null;
+		return this.scriptIndex.getByAcr(name);
 	}
 
 	public List<CustomScriptConfiguration> getCustomScriptConfigurationsMap() {
@@ -463,7 +366,7 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 	}
 
 	public  List<String> getAcrValuesList() {
-		return new ArrayList<String>(scriptAliasMap.keySet());
+		return new ArrayList<String>(scriptIndex.getAcrValues());
 	}
 
 	private boolean isValidateUsageType(AuthenticationScriptUsageType usageType, CustomScriptConfiguration customScriptConfiguration) {
@@ -494,31 +397,11 @@ public class ExternalAuthenticationService extends ExternalScriptService {
 	}
 
 	public Map<Integer, Set<String>> levelToAcrMapping() {
-		Map<Integer, Set<String>> map = Maps.newHashMap();
-		for (CustomScriptConfiguration script : getCustomScriptConfigurationsMap()) {
-			int level = script.getLevel();
-			String acr = script.getName();
-
-			Set<String> acrs = map.get(level);
-			if (acrs == null) {
-				acrs = Sets.newHashSet();
-				map.put(level, acrs);
-			}
-			acrs.add(acr);
-		}
-		return map;
+		return scriptIndex.getLevelToAcr();
 	}
 
 	public Map<String, Integer> acrToLevelMapping() {
-		Map<String, Integer> map = Maps.newHashMap();
-		for (CustomScriptConfiguration script : getCustomScriptConfigurationsMap()) {
-			if (script.getCustomScript().isInternal()) {
-				map.put(script.getName(), -1);
-				continue;
-			}
-			map.put(script.getName(), script.getLevel());
-		}
-		return map;
+		return scriptIndex.getAcrToLevel();
 	}
 	
 	private CustomScriptConfiguration getInternalCustomScriptConfiguration(GluuLdapConfiguration ldapAuthConfig) {
@@ -32,6 +32,9 @@ public class ExternalCibaEndUserNotificationService extends ExternalScriptServic
     @Inject
     private Logger log;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalCibaEndUserNotificationService() {
         super(CustomScriptType.CIBA_END_USER_NOTIFICATION);
     }
@@ -58,7 +61,7 @@ public class ExternalCibaEndUserNotificationService extends ExternalScriptServic
                     customScriptConfiguration.getName(), context);
 
             EndUserNotificationType script = (EndUserNotificationType) customScriptConfiguration.getExternalType();
-            final boolean result = script.notifyEndUser(context);
+            final boolean result = externalScriptExecutor.execute(customScriptConfiguration, "notifyEndUser", false, () -> script.notifyEndUser(context));
             log.trace("Finished external 'executeExternalNotifyEndUser' method, script name: {}, context: {}, result: {}",
                     customScriptConfiguration.getName(), context, result);
             return result;
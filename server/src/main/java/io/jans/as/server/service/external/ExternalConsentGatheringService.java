@@ -38,6 +38,9 @@ public class ExternalConsentGatheringService extends ExternalScriptService {
 	@Inject
     private Logger log;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     @Inject
     private LookupService lookupService;
 
@@ -83,7 +86,7 @@ public class ExternalConsentGatheringService extends ExternalScriptService {
     public boolean authorize(CustomScriptConfiguration script, int step, ConsentGatheringContext context) {
         try {
             log.trace("Executing python 'authorize' method, script: " + script.getName());
-            boolean result = consentScript(script).authorize(step, context);
+            boolean result = externalScriptExecutor.execute(script, "authorize", false, () -> consentScript(script).authorize(step, context));
             log.trace("python 'authorize' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -96,7 +99,7 @@ public class ExternalConsentGatheringService extends ExternalScriptService {
     public int getNextStep(CustomScriptConfiguration script, int step, ConsentGatheringContext context) {
         try {
             log.trace("Executing python 'getNextStep' method, script: " + script.getName());
-            int result = consentScript(script).getNextStep(step, context);
+            int result = externalScriptExecutor.execute(script, "getNextStep", -1, () -> consentScript(script).getNextStep(step, context));
             log.trace("python 'getNextStep' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -109,7 +112,7 @@ public class ExternalConsentGatheringService extends ExternalScriptService {
     public boolean prepareForStep(CustomScriptConfiguration script, int step, ConsentGatheringContext context) {
         try {
             log.trace("Executing python 'prepareForStep' method, script: " + script.getName());
-            boolean result = consentScript(script).prepareForStep(step, context);
+            boolean result = externalScriptExecutor.execute(script, "prepareForStep", false, () -> consentScript(script).prepareForStep(step, context));
             log.trace("python 'prepareForStep' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -122,7 +125,7 @@ public class ExternalConsentGatheringService extends ExternalScriptService {
     public int getStepsCount(CustomScriptConfiguration script, ConsentGatheringContext context) {
         try {
             log.trace("Executing python 'getStepsCount' method, script: " + script.getName());
-            int result = consentScript(script).getStepsCount(context);
+            int result = externalScriptExecutor.execute(script, "getStepsCount", -1, () -> consentScript(script).getStepsCount(context));
             log.trace("python 'getStepsCount' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -135,7 +138,7 @@ public class ExternalConsentGatheringService extends ExternalScriptService {
     public String getPageForStep(CustomScriptConfiguration script, int step, ConsentGatheringContext context) {
         try {
             log.trace("Executing python 'getPageForStep' method, script: " + script.getName());
-            String result = consentScript(script).getPageForStep(step, context);
+            String result = externalScriptExecutor.execute(script, "getPageForStep", "", () -> consentScript(script).getPageForStep(step, context));
             log.trace("python 'getPageForStep' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -18,6 +18,7 @@ import org.json.JSONObject;
 
 import javax.ejb.DependsOn;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.WebApplicationException;
@@ -34,6 +35,9 @@ public class ExternalDynamicClientRegistrationService extends ExternalScriptServ
 
 	private static final long serialVersionUID = 1416361273036208687L;
 
+	@Inject
+	private ExternalScriptExecutor externalScriptExecutor;
+
 	public ExternalDynamicClientRegistrationService() {
 		super(CustomScriptType.CLIENT_REGISTRATION);
 	}
@@ -44,7 +48,7 @@ public class ExternalDynamicClientRegistrationService extends ExternalScriptServ
             ClientRegistrationType externalClientRegistrationType = (ClientRegistrationType) customScriptConfiguration.getExternalType();
             DynamicClientRegistrationContext context = new DynamicClientRegistrationContext(httpRequest, null, customScriptConfiguration, client);
             context.setRegisterRequest(registerRequest);
-            final boolean result = externalClientRegistrationType.createClient(context);
+            final boolean result = externalScriptExecutor.execute(customScriptConfiguration, "createClient", false, () -> externalClientRegistrationType.createClient(context));
             throwWebApplicationExceptionIfSet(context);
             return result;
         } catch (WebApplicationException e) {
@@ -79,7 +83,7 @@ public class ExternalDynamicClientRegistrationService extends ExternalScriptServ
             DynamicClientRegistrationContext context = new DynamicClientRegistrationContext(httpRequest, null, script, client);
             context.setRegisterRequest(registerRequest);
 
-            final boolean result = externalClientRegistrationType.updateClient(context);
+            final boolean result = externalScriptExecutor.execute(script, "updateClient", false, () -> externalClientRegistrationType.updateClient(context));
             throwWebApplicationExceptionIfSet(context);
             return result;
         } catch (WebApplicationException e) {
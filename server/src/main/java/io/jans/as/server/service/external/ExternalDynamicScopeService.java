@@ -14,6 +14,7 @@ import java.util.Set;
 
 import javax.ejb.DependsOn;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import com.google.common.collect.Sets;
@@ -38,6 +39,9 @@ public class ExternalDynamicScopeService extends ExternalScriptService {
 
 	private static final long serialVersionUID = 1416361273036208685L;
 
+	@Inject
+	private ExternalScriptExecutor externalScriptExecutor;
+
 	public ExternalDynamicScopeService() {
 		super(CustomScriptType.DYNAMIC_SCOPE);
 	}
@@ -47,7 +51,7 @@ public class ExternalDynamicScopeService extends ExternalScriptService {
 			log.trace("Executing python 'update' method");
 			DynamicScopeType dynamicScopeType = (DynamicScopeType) customScriptConfiguration.getExternalType();
 			Map<String, SimpleCustomProperty> configurationAttributes = customScriptConfiguration.getConfigurationAttributes();
-			return dynamicScopeType.update(dynamicScopeContext, configurationAttributes);
+			return externalScriptExecutor.execute(customScriptConfiguration, "update", false, () -> dynamicScopeType.update(dynamicScopeContext, configurationAttributes));
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
@@ -8,6 +8,7 @@ package io.jans.as.server.service.external;
 
 import javax.ejb.DependsOn;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.commons.lang.StringUtils;
@@ -26,6 +27,9 @@ import io.jans.service.custom.script.ExternalScriptService;
 @Named
 public class ExternalEndSessionService extends ExternalScriptService {
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalEndSessionService() {
         super(CustomScriptType.END_SESSION);
     }
@@ -52,7 +56,7 @@ public class ExternalEndSessionService extends ExternalScriptService {
             EndSessionType script = (EndSessionType) scriptConf.getExternalType();
             context.setScript(scriptConf);
 
-            final String html = script.getFrontchannelHtml(context);
+            final String html = externalScriptExecutor.execute(scriptConf, "getFrontchannelHtml", null, () -> script.getFrontchannelHtml(context));
             log.trace("Finished external 'getFrontchannelHtml' method, script name: {}, context {}, html: {}", scriptConf.getName(), context, html);
 
             return html;
@@ -39,6 +39,8 @@ public class ExternalIntrospectionService extends ExternalScriptService {
     @Inject
     private Logger log;
     @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+    @Inject
     private AppConfiguration appConfiguration;
 
     public ExternalIntrospectionService() {
@@ -96,7 +98,7 @@ public class ExternalIntrospectionService extends ExternalScriptService {
 
             IntrospectionType script = (IntrospectionType) scriptConf.getExternalType();
             context.setScript(scriptConf);
-            final boolean result = script.modifyResponse(responseAsJsonObject, context);
+            final boolean result = externalScriptExecutor.execute(scriptConf, "modifyResponse", false, () -> script.modifyResponse(responseAsJsonObject, context));
             log.trace("Finished external 'executeExternalModifyResponse' method, script name: {}, responseAsJsonObject: {} , context: {}, result: {}",
                     scriptConf.getName(), responseAsJsonObject, context, result);
             return result;
@@ -33,6 +33,9 @@ public class ExternalPostAuthnService  extends ExternalScriptService {
     @Inject
     private Logger log;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalPostAuthnService() {
         super(CustomScriptType.POST_AUTHN);
     }
@@ -78,7 +81,7 @@ public class ExternalPostAuthnService  extends ExternalScriptService {
 
             PostAuthnType script = (PostAuthnType) scriptConfiguration.getExternalType();
             context.setScript(scriptConfiguration);
-            final boolean result = script.forceReAuthentication(context);
+            final boolean result = externalScriptExecutor.execute(scriptConfiguration, "forceReAuthentication", false, () -> script.forceReAuthentication(context));
 
             log.trace("Finished external 'externalForceReAuthentication' method, script name: {}, context: {}, result: {}", scriptConfiguration.getName(), context, result);
             return result;
@@ -95,7 +98,7 @@ public class ExternalPostAuthnService  extends ExternalScriptService {
 
             PostAuthnType script = (PostAuthnType) scriptConfiguration.getExternalType();
             context.setScript(scriptConfiguration);
-            final boolean result = script.forceAuthorization(context);
+            final boolean result = externalScriptExecutor.execute(scriptConfiguration, "forceAuthorization", false, () -> script.forceAuthorization(context));
 
             log.trace("Finished external 'externalForceAuthorization' method, script name: {}, context: {}, result: {}", scriptConfiguration.getName(), context, result);
             return result;
@@ -32,6 +32,9 @@ public class ExternalResourceOwnerPasswordCredentialsService extends ExternalScr
     @Inject
     private Logger log;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalResourceOwnerPasswordCredentialsService() {
         super(CustomScriptType.RESOURCE_OWNER_PASSWORD_CREDENTIALS);
     }
@@ -65,7 +68,7 @@ public class ExternalResourceOwnerPasswordCredentialsService extends ExternalScr
                 return false;
             }
 
-            final boolean result = script.authenticate(context);
+            final boolean result = externalScriptExecutor.execute(customScriptConfiguration, "authenticate", false, () -> script.authenticate(context));
 
             log.debug("Finished external 'executeExternalAuthenticate' method, script name: {}, context: {}, result: {}",
                     customScriptConfiguration.getName(), context, result);
@@ -24,6 +24,9 @@ public class ExternalRevokeTokenService extends ExternalScriptService {
     @Inject
     private Logger log;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalRevokeTokenService() {
         super(CustomScriptType.REVOKE_TOKEN);
     }
@@ -33,7 +36,7 @@ public class ExternalRevokeTokenService extends ExternalScriptService {
             log.trace("Executing python 'revokeToken' method, context: {}", context);
             context.setScript(script);
             RevokeTokenType revokeTokenType = (RevokeTokenType) script.getExternalType();
-            final boolean result = revokeTokenType.revoke(context);
+            final boolean result = externalScriptExecutor.execute(script, "revoke", false, () -> revokeTokenType.revoke(context));
             log.trace("Finished 'revokeToken' method, result: {}, context: {}", result, context);
             return result;
         } catch (Exception ex) {
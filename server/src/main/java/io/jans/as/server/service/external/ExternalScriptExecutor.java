@@ -0,0 +1,268 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.external;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.slf4j.Logger;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.util.ServerUtil;
+import io.jans.model.custom.script.conf.CustomScriptConfiguration;
+
+/**
+ * Instrumented invocation of custom script methods.
+ * <p>
+ * Records latency histogram and error count per script and method. Calls which throw exception or take longer than
+ * externalScriptTimeBudgetInMillis are failures. When externalScriptCircuitBreakerEnabled is set and script fails
+ * externalScriptCircuitBreakerFailureThreshold times in a row, circuit is opened: script is not called and fallback
+ * (the result extension point returns on script error) is returned instead. After
+ * externalScriptCircuitBreakerOpenIntervalInSeconds one trial call is let through, success closes circuit. Script
+ * reload (script manager creates new configuration for modified script) closes circuit of the script.
+ * <p>
+ * Scripts run on request thread (they use request context, e.g. faces context or request scoped beans) and Jython
+ * code can't be interrupted safely, so time budget does not abort call, slow script is cut off by circuit breaker.
+ */
+@ApplicationScoped
+@Named
+public class ExternalScriptExecutor {
+
+    private static final long[] BUCKETS_IN_MILLIS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    @FunctionalInterface
+    public interface ScriptCall<T> {
+        T call() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface VoidScriptCall {
+        void call() throws Exception;
+    }
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final ConcurrentMap<String, MethodStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * Calls script method.
+     *
+     * @param script   script configuration
+     * @param method   name of script method (used for metrics)
+     * @param fallback result which is returned if circuit of script is open
+     * @param call     script call
+     * @return result of script call or fallback
+     * @throws Exception exception thrown by script (it is recorded and re-thrown, caller handles it as before)
+     */
+    public <T> T execute(CustomScriptConfiguration script, String method, T fallback, ScriptCall<T> call) throws Exception {
+        final String scriptName = script.getName();
+        final MethodStats methodStats = stats.computeIfAbsent(scriptName + ":" + method, k -> new MethodStats());
+
+        final boolean circuitBreakerEnabled = ServerUtil.isTrue(appConfiguration.getExternalScriptCircuitBreakerEnabled());
+        final CircuitBreaker circuitBreaker = circuitBreakerEnabled ? getCircuitBreaker(script) : null;
+        if (circuitBreaker != null && !circuitBreaker.allow(appConfiguration.getExternalScriptCircuitBreakerOpenIntervalInSeconds())) {
+            methodStats.shortCircuited.incrementAndGet();
+            log.debug("Circuit of script {} is open, returned fallback for method {}", scriptName, method);
+            return fallback;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            final T result = call.call();
+
+            final long elapsedInMillis = methodStats.record(start);
+            final int budget = appConfiguration.getExternalScriptTimeBudgetInMillis();
+            if (budget > 0 && elapsedInMillis > budget) {
+                methodStats.overBudget.incrementAndGet();
+                log.warn("Script {} method {} took {}ms, time budget is {}ms", scriptName, method, elapsedInMillis, budget);
+                onFailure(circuitBreaker, scriptName);
+            } else if (circuitBreaker != null) {
+                circuitBreaker.onSuccess();
+            }
+            return result;
+        } catch (Exception e) {
+            methodStats.record(start);
+            methodStats.errors.incrementAndGet();
+            onFailure(circuitBreaker, scriptName);
+            throw e;
+        }
+    }
+
+    public void execute(CustomScriptConfiguration script, String method, VoidScriptCall call) throws Exception {
+        execute(script, method, null, () -> {
+            call.call();
+            return null;
+        });
+    }
+
+    private CircuitBreaker getCircuitBreaker(CustomScriptConfiguration script) {
+        final String scriptName = script.getName();
+        final CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(scriptName, k -> new CircuitBreaker(script));
+        if (circuitBreaker.script == script || revision(script) <= revision(circuitBreaker.script)) {
+            return circuitBreaker; // same script or call of previous revision which is still in progress
+        }
+
+        // script was reloaded
+        if (circuitBreaker.openedAt != 0) {
+            log.info("Script {} is reloaded, closed its circuit", scriptName);
+        }
+        reset(scriptName);
+        return circuitBreakers.computeIfAbsent(scriptName, k -> new CircuitBreaker(script));
+    }
+
+    private static long revision(CustomScriptConfiguration script) {
+        return script.getCustomScript() != null ? script.getCustomScript().getRevision() : 0;
+    }
+
+    private void onFailure(CircuitBreaker circuitBreaker, String scriptName) {
+        if (circuitBreaker != null && circuitBreaker.onFailure(appConfiguration.getExternalScriptCircuitBreakerFailureThreshold())) {
+            log.error("Opened circuit of script {}, it is not called for {} seconds", scriptName,
+                    appConfiguration.getExternalScriptCircuitBreakerOpenIntervalInSeconds());
+        }
+    }
+
+    public boolean isCircuitOpen(String scriptName) {
+        final CircuitBreaker circuitBreaker = circuitBreakers.get(scriptName);
+        return circuitBreaker != null && circuitBreaker.openedAt != 0;
+    }
+
+    /**
+     * Closes circuit of script, e.g. after script is fixed and reloaded.
+     */
+    public void reset(String scriptName) {
+        circuitBreakers.remove(scriptName);
+    }
+
+    /**
+     * @return stats keyed by "scriptName:method"
+     */
+    public Map<String, MethodStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    public static class MethodStats {
+
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS_IN_MILLIS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalTimeInMillis = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong overBudget = new AtomicLong();
+        private final AtomicLong shortCircuited = new AtomicLong();
+
+        private long record(long startNanos) {
+            final long elapsedInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            int bucket = 0;
+            while (bucket < BUCKETS_IN_MILLIS.length && elapsedInMillis > BUCKETS_IN_MILLIS[bucket]) {
+                bucket++;
+            }
+            histogram.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalTimeInMillis.addAndGet(elapsedInMillis);
+            return elapsedInMillis;
+        }
+
+        /**
+         * @return upper bounds of histogram buckets in milliseconds (last bucket of histogram has no upper bound)
+         */
+        public static long[] getBucketsInMillis() {
+            return BUCKETS_IN_MILLIS.clone();
+        }
+
+        public long[] getHistogram() {
+            final long[] result = new long[histogram.length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = histogram.get(i);
+            }
+            return result;
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getTotalTimeInMillis() {
+            return totalTimeInMillis.get();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public double getErrorRate() {
+            final long total = count.get();
+            return total > 0 ? (double) errors.get() / total : 0;
+        }
+
+        public long getOverBudget() {
+            return overBudget.get();
+        }
+
+        public long getShortCircuited() {
+            return shortCircuited.get();
+        }
+    }
+
+    private static class CircuitBreaker {
+
+        private final CustomScriptConfiguration script;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicBoolean trialInProgress = new AtomicBoolean(false);
+        private volatile long openedAt;
+
+        private CircuitBreaker(CustomScriptConfiguration script) {
+            this.script = script;
+        }
+
+        private boolean allow(int openIntervalInSeconds) {
+            final long opened = openedAt;
+            if (opened == 0) {
+                return true;
+            }
+            if (System.currentTimeMillis() - opened < TimeUnit.SECONDS.toMillis(openIntervalInSeconds)) {
+                return false;
+            }
+            return trialInProgress.compareAndSet(false, true); // half open, one trial call
+        }
+
+        private void onSuccess() {
+            consecutiveFailures.set(0);
+            openedAt = 0;
+            trialInProgress.set(false);
+        }
+
+        /**
+         * @return true if circuit is opened by this failure
+         */
+        private boolean onFailure(int threshold) {
+            if (trialInProgress.compareAndSet(true, false)) {
+                openedAt = System.currentTimeMillis();
+                return true;
+            }
+            if (openedAt == 0 && consecutiveFailures.incrementAndGet() >= Math.max(threshold, 1)) {
+                openedAt = System.currentTimeMillis();
+                return true;
+            }
+            return false;
+        }
+    }
+}
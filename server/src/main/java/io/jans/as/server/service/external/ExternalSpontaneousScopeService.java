@@ -11,6 +11,7 @@ import java.util.Set;
 
 import javax.ejb.DependsOn;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import com.google.common.collect.Sets;
@@ -27,6 +28,9 @@ import io.jans.service.custom.script.ExternalScriptService;
 @Named
 public class ExternalSpontaneousScopeService extends ExternalScriptService {
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalSpontaneousScopeService() {
         super(CustomScriptType.SPONTANEOUS_SCOPE);
     }
@@ -46,7 +50,7 @@ public class ExternalSpontaneousScopeService extends ExternalScriptService {
 
             SpontaneousScopeType script = (SpontaneousScopeType) scriptConfiguration.getExternalType();
 
-            script.manipulateScopes(context);
+            externalScriptExecutor.execute(scriptConfiguration, "manipulateScopes", () -> script.manipulateScopes(context));
             log.debug("Finished external 'executeExternalManipulateScope' method, script name: {}, grantedScopes: {} , context: {}",
                     scriptConfiguration.getName(), context.getGrantedScopes(), context);
         } catch (Exception ex) {
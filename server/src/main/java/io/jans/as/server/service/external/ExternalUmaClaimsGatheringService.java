@@ -41,6 +41,8 @@ public class ExternalUmaClaimsGatheringService extends ExternalScriptService {
     @Inject
     private Logger log;
     @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+    @Inject
     private LookupService lookupService;
     @Inject
     private CustomScriptManager scriptManager;
@@ -115,7 +117,7 @@ public class ExternalUmaClaimsGatheringService extends ExternalScriptService {
     public boolean gather(CustomScriptConfiguration script, int step, UmaGatherContext context) {
         try {
             log.debug("Executing python 'gather' method, script: " + script.getName());
-            boolean result = gatherScript(script).gather(step, context);
+            boolean result = externalScriptExecutor.execute(script, "gather", false, () -> gatherScript(script).gather(step, context));
             log.debug("python 'gather' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -128,7 +130,7 @@ public class ExternalUmaClaimsGatheringService extends ExternalScriptService {
     public int getNextStep(CustomScriptConfiguration script, int step, UmaGatherContext context) {
         try {
             log.debug("Executing python 'getNextStep' method, script: " + script.getName());
-            int result = gatherScript(script).getNextStep(step, context);
+            int result = externalScriptExecutor.execute(script, "getNextStep", -1, () -> gatherScript(script).getNextStep(step, context));
             log.debug("python 'getNextStep' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -141,7 +143,7 @@ public class ExternalUmaClaimsGatheringService extends ExternalScriptService {
     public boolean prepareForStep(CustomScriptConfiguration script, int step, UmaGatherContext context) {
         try {
             log.debug("Executing python 'prepareForStep' method, script: " + script.getName());
-            boolean result = gatherScript(script).prepareForStep(step, context);
+            boolean result = externalScriptExecutor.execute(script, "prepareForStep", false, () -> gatherScript(script).prepareForStep(step, context));
             log.debug("python 'prepareForStep' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -154,7 +156,7 @@ public class ExternalUmaClaimsGatheringService extends ExternalScriptService {
     public int getStepsCount(CustomScriptConfiguration script, UmaGatherContext context) {
         try {
             log.debug("Executing python 'getStepsCount' method, script: " + script.getName());
-            int result = gatherScript(script).getStepsCount(context);
+            int result = externalScriptExecutor.execute(script, "getStepsCount", -1, () -> gatherScript(script).getStepsCount(context));
             log.debug("python 'getStepsCount' result: " + result);
             return result;
         } catch (Exception ex) {
@@ -167,7 +169,7 @@ public class ExternalUmaClaimsGatheringService extends ExternalScriptService {
     public String getPageForStep(CustomScriptConfiguration script, int step, UmaGatherContext context) {
         try {
             log.debug("Executing python 'getPageForStep' method, script: " + script.getName());
-            String result = gatherScript(script).getPageForStep(step, context);
+            String result = externalScriptExecutor.execute(script, "getPageForStep", "", () -> gatherScript(script).getPageForStep(step, context));
             log.debug("python 'getPageForStep' result: " + result);
             return result;
         } catch (Exception ex) {
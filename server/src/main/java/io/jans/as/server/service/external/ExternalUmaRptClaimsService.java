@@ -33,6 +33,9 @@ public class ExternalUmaRptClaimsService extends ExternalScriptService {
     @Inject
     private Logger log;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalUmaRptClaimsService() {
         super(CustomScriptType.UMA_RPT_CLAIMS);
     }
@@ -60,7 +63,7 @@ public class ExternalUmaRptClaimsService extends ExternalScriptService {
 
             UmaRptClaimsType script = (UmaRptClaimsType) scriptConfiguration.getExternalType();
             context.setScript(scriptConfiguration);
-            final boolean result = script.modify(rptAsJson, context);
+            final boolean result = externalScriptExecutor.execute(scriptConfiguration, "modify", false, () -> script.modify(rptAsJson, context));
 
             log.trace("Finished external 'externalModify' method, script name: {}, context: {}, result: {}", scriptConfiguration.getName(), context, result);
             return result;
@@ -48,6 +48,8 @@ public class ExternalUmaRptPolicyService extends ExternalScriptService {
 	@Inject
 	private Logger log;
 	@Inject
+	private ExternalScriptExecutor externalScriptExecutor;
+	@Inject
 	private LookupService lookupService;
 	@Inject
 	private CustomScriptManager scriptManager;
@@ -95,7 +97,7 @@ public class ExternalUmaRptPolicyService extends ExternalScriptService {
 	public boolean authorize(CustomScriptConfiguration script, UmaAuthorizationContext context) {
 		try {
 			log.debug("Executing python 'authorize' method, script: " + script.getName());
-			boolean result = policyScript(script).authorize(context);
+			boolean result = externalScriptExecutor.execute(script, "authorize", false, () -> policyScript(script).authorize(context));
 			log.debug("python 'authorize' result: " + result);
 			return result;
 		} catch (Exception ex) {
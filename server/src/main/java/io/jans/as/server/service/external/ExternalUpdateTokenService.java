@@ -31,6 +31,9 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
 	@Inject
     private Logger log;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
     public ExternalUpdateTokenService() {
         super(CustomScriptType.UPDATE_TOKEN);
     }
@@ -41,7 +44,7 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
             context.setScript(script);
 
             UpdateTokenType updateTokenType = (UpdateTokenType) script.getExternalType();
-            final boolean result = updateTokenType.modifyIdToken(jsonWebResponse, context);
+            final boolean result = externalScriptExecutor.execute(script, "modifyIdToken", false, () -> updateTokenType.modifyIdToken(jsonWebResponse, context));
             log.trace("Finished 'updateToken' method, script name: {}, jsonWebResponse: {}, context: {}, result: {}", script.getName(), jsonWebResponse, context, result);
 
             return result;
@@ -0,0 +1,131 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.net;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.model.jwk.JWKParameter;
+import io.jans.as.model.util.JwtUtil;
+import io.jans.as.server.service.net.RemoteDocumentFetcher.Document;
+
+/**
+ * Resolves client JWKS by jwks_uri.
+ * <p>
+ * Documents are fetched and cached by {@link RemoteDocumentFetcher} for Cache-Control max-age (or
+ * jwksCacheLifetimeInSeconds if not set) and refetched on unknown kid (at most once per
+ * jwksCacheMinRefetchIntervalInSeconds). Parsed JWKS is kept with cached document.
+ */
+@ApplicationScoped
+@Named
+public class JwksResolver {
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private RemoteDocumentFetcher remoteDocumentFetcher;
+
+    public JSONObject getJwks(String jwksUri) {
+        return getJwks(jwksUri, null);
+    }
+
+    /**
+     * Returns JWKS of given jwks_uri.
+     *
+     * @param jwksUri jwks_uri
+     * @param kid     key id that is expected to be present in JWKS (optional), triggers refetch if it is absent
+     * @return jwks or null if it can't be fetched
+     */
+    public JSONObject getJwks(String jwksUri, String kid) {
+        if (StringUtils.isBlank(jwksUri)) {
+            return null;
+        }
+        if (appConfiguration.getJwksCacheLifetimeInSeconds() <= 0) {
+            return JwtUtil.getJSONWebKeys(jwksUri);
+        }
+
+        final long maxLifetime = appConfiguration.getJwksCacheLifetimeInSeconds() * 1000L;
+        final long minLifetime = Math.max(0, appConfiguration.getJwksCacheMinRefetchIntervalInSeconds()) * 1000L;
+
+        Document document = remoteDocumentFetcher.get(jwksUri, maxLifetime, minLifetime);
+        ParsedJwks parsed = parse(document);
+        if (parsed == null) {
+            return null;
+        }
+
+        if (StringUtils.isNotBlank(kid) && !parsed.kids.contains(kid)
+                && System.currentTimeMillis() - document.getLastAttemptAt() >= minLifetime) {
+            log.trace("kid {} is not found in cached jwks, refetching jwks_uri {}", kid, jwksUri);
+            final ParsedJwks refetched = parse(remoteDocumentFetcher.refetch(jwksUri, maxLifetime, minLifetime));
+            return refetched != null ? refetched.jwks : parsed.jwks;
+        }
+        return parsed.jwks;
+    }
+
+    public void invalidate(String jwksUri) {
+        remoteDocumentFetcher.invalidate(jwksUri);
+    }
+
+    private ParsedJwks parse(Document document) {
+        if (document == null) {
+            return null;
+        }
+        try {
+            return document.getParsed(ParsedJwks.class, content -> {
+                try {
+                    return new ParsedJwks(JwtUtil.fromJson(content));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to parse jwks: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static class ParsedJwks {
+
+        private final JSONObject jwks;
+        private final Set<String> kids;
+
+        private ParsedJwks(JSONObject jwks) {
+            this.jwks = jwks;
+            this.kids = extractKids(jwks);
+        }
+
+        private static Set<String> extractKids(JSONObject jwks) {
+            final Set<String> kids = new HashSet<>();
+            final JSONArray keys = jwks != null ? jwks.optJSONArray(JWKParameter.JSON_WEB_KEY_SET) : null;
+            if (keys == null) {
+                return kids;
+            }
+            for (int i = 0; i < keys.length(); i++) {
+                final JSONObject key = keys.optJSONObject(i);
+                if (key != null && key.has(JWKParameter.KEY_ID)) {
+                    kids.add(key.optString(JWKParameter.KEY_ID));
+                }
+            }
+            return kids;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.net;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+
+import org.apache.commons.lang.StringUtils;
+import org.jboss.resteasy.client.ClientRequest;
+import org.jboss.resteasy.client.ClientResponse;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.service.cdi.event.AuthConfigurationEvent;
+import io.jans.as.server.util.ServerUtil;
+import io.jans.service.cdi.async.Asynchronous;
+import io.jans.service.cdi.event.Scheduled;
+
+/**
+ * Fetches remote documents (jwks_uri, sector_identifier_uri, request_uri) and keeps them in local cache.
+ * <p>
+ * Concurrent fetches of the same uri are coalesced into single http call. Document lifetime is taken from
+ * Cache-Control max-age bounded by min and max lifetime given by caller. Document is refreshed in background when
+ * 80% of lifetime is elapsed (at most one background refresh per uri is scheduled at a time). If refetch fails,
+ * expired document is served for remoteDocumentStaleIfErrorInSeconds.
+ */
+@ApplicationScoped
+@Named
+public class RemoteDocumentFetcher {
+
+    private static final Pattern MAX_AGE_PATTERN = Pattern.compile("max-age\\s*=\\s*(\\d+)");
+    private static final double REFRESH_AHEAD_FACTOR = 0.8;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final ConcurrentMap<String, CompletableFuture<Document>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> refreshScheduled = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong staleCount = new AtomicLong();
+
+    private volatile Cache<String, Document> cache;
+    private int currentMaxSize;
+    private ExecutorService refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        refreshExecutor = Executors.newFixedThreadPool(2, ServerUtil.daemonThreadFactory());
+        rebuild();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Asynchronous
+    public void reloadConfigurationTimerEvent(@Observes @Scheduled AuthConfigurationEvent authConfigurationEvent) {
+        if (currentMaxSize != appConfiguration.getRemoteDocumentCacheMaxSize()) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        currentMaxSize = Math.max(1, appConfiguration.getRemoteDocumentCacheMaxSize());
+        cache = CacheBuilder.newBuilder().maximumSize(currentMaxSize).build();
+    }
+
+    /**
+     * Returns document of given uri.
+     *
+     * @param uri                 uri of document
+     * @param maxLifetimeInMillis max lifetime of document in cache, zero or negative value turns caching off
+     * @param minLifetimeInMillis min lifetime of document in cache (used if response has no-cache or small max-age)
+     * @return document or null if it can't be fetched and there is no usable cached document
+     */
+    public Document get(String uri, long maxLifetimeInMillis, long minLifetimeInMillis) {
+        if (StringUtils.isBlank(uri)) {
+            return null;
+        }
+        if (maxLifetimeInMillis <= 0) {
+            return fetch(uri, 0, 0, false);
+        }
+
+        final long now = System.currentTimeMillis();
+        final Document cached = cache.getIfPresent(uri);
+        if (cached == null || cached.isExpired(now)) {
+            final Document fetched = fetch(uri, maxLifetimeInMillis, minLifetimeInMillis, true);
+            if (fetched != null) {
+                return fetched;
+            }
+            return stale(uri, cached, now);
+        }
+
+        if (cached.isRefreshAheadTime(now) && refreshScheduled.add(uri)) {
+            scheduleRefresh(uri, maxLifetimeInMillis, minLifetimeInMillis);
+        }
+        hitCount.incrementAndGet();
+        return cached;
+    }
+
+    /**
+     * Returns document of given uri. Cached document which doesn't match expected content (e.g. hash given by caller) is
+     * fetched again, so content changed at the same uri is used before cached document expires.
+     *
+     * @param matcher checks content of document
+     * @return document (it may not match if content at uri doesn't match) or null if it can't be fetched
+     */
+    public Document get(String uri, long maxLifetimeInMillis, long minLifetimeInMillis, Predicate<String> matcher) {
+        final long start = System.currentTimeMillis();
+        final Document document = get(uri, maxLifetimeInMillis, minLifetimeInMillis);
+        if (document == null || document.getLastAttemptAt() >= start || matcher.test(document.getContent())) {
+            return document; // fetched by this call or matches
+        }
+
+        log.debug("Cached document doesn't match expected content, refetching {}", uri);
+        return refetch(uri, maxLifetimeInMillis, minLifetimeInMillis);
+    }
+
+    private void scheduleRefresh(String uri, long maxLifetimeInMillis, long minLifetimeInMillis) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    fetch(uri, maxLifetimeInMillis, minLifetimeInMillis, true);
+                } finally {
+                    refreshScheduled.remove(uri);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshScheduled.remove(uri);
+        }
+    }
+
+    /**
+     * Fetches document regardless of cached one (e.g. because cached document misses expected content).
+     *
+     * @return fetched document, or cached one if fetch failed
+     */
+    public Document refetch(String uri, long maxLifetimeInMillis, long minLifetimeInMillis) {
+        if (StringUtils.isBlank(uri)) {
+            return null;
+        }
+
+        final Document cached = cache.getIfPresent(uri);
+        if (cached != null) {
+            cached.lastAttemptAt = System.currentTimeMillis();
+        }
+        final Document fetched = fetch(uri, maxLifetimeInMillis, minLifetimeInMillis, maxLifetimeInMillis > 0);
+        return fetched != null ? fetched : stale(uri, cached, System.currentTimeMillis());
+    }
+
+    public void invalidate(String uri) {
+        if (StringUtils.isNotBlank(uri)) {
+            cache.invalidate(uri);
+        }
+    }
+
+    private Document stale(String uri, Document cached, long now) {
+        if (cached == null) {
+            return null;
+        }
+        if (now - cached.expiresAt() > Math.max(0, appConfiguration.getRemoteDocumentStaleIfErrorInSeconds()) * 1000L) {
+            cache.invalidate(uri);
+            return null;
+        }
+
+        log.debug("Failed to refetch {}, serving stale document.", uri);
+        staleCount.incrementAndGet();
+        return cached;
+    }
+
+    private Document fetch(String uri, long maxLifetimeInMillis, long minLifetimeInMillis, boolean store) {
+        final CompletableFuture<Document> future = new CompletableFuture<>();
+        final CompletableFuture<Document> existing = inFlight.putIfAbsent(uri, future);
+        if (existing != null) {
+            return existing.join(); // other thread is fetching same uri, wait for it
+        }
+
+        Document result = null;
+        try {
+            result = load(uri, maxLifetimeInMillis, minLifetimeInMillis);
+            if (result != null && store) {
+                cache.put(uri, result);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to fetch remote document: {}, {}", uri, e.toString());
+        } finally {
+            future.complete(result);
+            inFlight.remove(uri, future);
+        }
+        return result;
+    }
+
+    private Document load(String uri, long maxLifetimeInMillis, long minLifetimeInMillis) throws Exception {
+        log.debug("Retrieving remote document {} ...", uri);
+        fetchCount.incrementAndGet();
+
+        ClientRequest clientRequest = new ClientRequest(uri);
+        clientRequest.setHttpMethod(HttpMethod.GET);
+        ClientResponse<String> clientResponse = clientRequest.get(String.class);
+        try {
+            int status = clientResponse.getStatus();
+            log.debug("Status: {}, uri: {}", status, uri);
+            if (status != 200) {
+                return null;
+            }
+
+            final String content = clientResponse.getEntity(String.class);
+            final long lifetime = getLifetimeInMillis(clientResponse.getHeaderString(HttpHeaders.CACHE_CONTROL), maxLifetimeInMillis, minLifetimeInMillis);
+            return new Document(content, System.currentTimeMillis(), lifetime);
+        } finally {
+            clientResponse.releaseConnection();
+        }
+    }
+
+    private long getLifetimeInMillis(String cacheControl, long maxLifetime, long minLifetime) {
+        minLifetime = Math.max(0, Math.min(minLifetime, maxLifetime));
+        if (StringUtils.isBlank(cacheControl)) {
+            return maxLifetime;
+        }
+        if (cacheControl.contains("no-store") || cacheControl.contains("no-cache")) {
+            return minLifetime;
+        }
+
+        final Matcher matcher = MAX_AGE_PATTERN.matcher(cacheControl);
+        if (matcher.find()) {
+            try {
+                final long maxAge = Long.parseLong(matcher.group(1)) * 1000L;
+                return Math.max(minLifetime, Math.min(maxAge, maxLifetime));
+            } catch (NumberFormatException e) {
+                log.trace("Failed to parse max-age of Cache-Control: {}", cacheControl);
+            }
+        }
+        return maxLifetime;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    public long getStaleCount() {
+        return staleCount.get();
+    }
+
+    /**
+     * Fetched document. Parsed representation is built once per fetched document and type and shared by all readers.
+     */
+    public static class Document {
+
+        private final String content;
+        private final long fetchedAt;
+        private final long lifetime;
+        private volatile long lastAttemptAt;
+        private final ConcurrentMap<Class<?>, Object> parsed = new ConcurrentHashMap<>();
+
+        private Document(String content, long fetchedAt, long lifetime) {
+            this.content = content;
+            this.fetchedAt = fetchedAt;
+            this.lifetime = lifetime;
+            this.lastAttemptAt = fetchedAt;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public long getLastAttemptAt() {
+            return lastAttemptAt;
+        }
+
+        /**
+         * @param type   type of parsed representation, key of parsed value (callers which parse document differently
+         *               must use different types)
+         * @param parser parser
+         * @return parsed representation of content
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T getParsed(Class<? super T> type, Function<String, T> parser) {
+            Object result = parsed.get(type);
+            if (result == null) {
+                result = parser.apply(content);
+                final Object existing = parsed.putIfAbsent(type, result);
+                if (existing != null) {
+                    result = existing;
+                }
+            }
+            return (T) result;
+        }
+
+        private long expiresAt() {
+            return fetchedAt + lifetime;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt();
+        }
+
+        private boolean isRefreshAheadTime(long now) {
+            return now - fetchedAt >= lifetime * REFRESH_AHEAD_FACTOR;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.stat;
+
+import io.jans.as.common.model.stat.Stat;
+import io.jans.as.common.model.stat.StatEntry;
+import io.jans.as.server.service.CacheLeaseService;
+import io.jans.orm.PersistenceEntryManager;
+import io.jans.orm.exception.EntryPersistenceException;
+import io.jans.orm.model.base.SimpleBranch;
+import io.jans.orm.search.filter.Filter;
+import net.agkn.hll.HLL;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps pre-merged monthly stat entry (rollup) in its own branch, so readers of per-node entries (ou=yyyyMM) don't
+ * count it: jansId=yyyyMM,ou=rollup,ou=stat,o=jans
+ * <p>
+ * Rollup of current month is refreshed by stat timer of one node (node which holds rollup lease), rollup entry is
+ * written only if merged content changed. Rollup of past month is final once it was built after month end, such
+ * rollups are additionally kept in memory.
+ */
+@ApplicationScoped
+@Named
+public class StatRollupService {
+
+    public static final String ROLLUP_OU = "rollup";
+    private static final String ROLLUP_ID = "rollup"; // id of rollup entry kept in monthly branch by earlier version
+    private static final String ROLLUP_LEASE_KEY = "stat_rollup_lease";
+
+    private static final int regwidth = 5;
+    private static final int log2m = 15;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private PersistenceEntryManager entryManager;
+
+    @Inject
+    private StatService statService;
+
+    @Inject
+    private CacheLeaseService cacheLeaseService;
+
+    private final ConcurrentMap<String, StatEntry> finalRollups = new ConcurrentHashMap<>();
+
+    private static boolean isRollup(StatEntry entry) {
+        return entry != null && ROLLUP_ID.equals(entry.getId());
+    }
+
+    /**
+     * Returns rollup for month, builds it if it is absent or not final for past month.
+     *
+     * @param month month in yyyyMM format
+     * @return rollup or null if there are no stat entries for month
+     */
+    public StatEntry getRollup(String month) {
+        final StatEntry cached = finalRollups.get(month);
+        if (cached != null) {
+            return cached;
+        }
+
+        final StatEntry persisted = findRollup(month);
+        if (persisted != null && (isCurrentMonth(month) || isFinal(persisted, month))) {
+            if (isFinal(persisted, month)) {
+                finalRollups.put(month, persisted);
+            }
+            return persisted;
+        }
+        return rollup(month);
+    }
+
+    /**
+     * Refreshes rollup of current month if this node holds rollup lease. Lease is not released, so the same node keeps
+     * refreshing rollup while it is running.
+     *
+     * @param leaseTimeInSeconds lease time, should be longer than stat timer interval
+     * @return rollup or null if other node refreshes it or there are no stat entries
+     */
+    public StatEntry rollupCurrentMonth(int leaseTimeInSeconds) {
+        if (!cacheLeaseService.acquire(ROLLUP_LEASE_KEY, leaseTimeInSeconds)) {
+            log.trace("Stat rollup is refreshed by other node.");
+            return null;
+        }
+        return rollup(new SimpleDateFormat("yyyyMM").format(new Date()));
+    }
+
+    /**
+     * Merges per-node entries of month and persists result as rollup entry.
+     *
+     * @param month month in yyyyMM format
+     * @return rollup or null if there are no stat entries for month
+     */
+    public StatEntry rollup(String month) {
+        final List<StatEntry> entries = findNodeEntries(month);
+        if (entries.isEmpty()) {
+            log.trace("Can't find stat entries for month: {}", month);
+            return null;
+        }
+
+        final StatEntry rollup = merge(entries);
+        rollup.setId(month);
+        rollup.setDn(rollupDn(month));
+        rollup.getStat().setMonth(month);
+        rollup.getStat().setLastUpdatedAt(System.currentTimeMillis());
+
+        final StatEntry persisted = findRollup(month);
+        if (persisted != null && contentHash(persisted).equals(contentHash(rollup))
+                && (isCurrentMonth(month) || isFinal(persisted, month))) {
+            log.trace("Stat rollup is not changed, month: {}", month);
+            return persisted;
+        }
+
+        try {
+            if (persisted != null) {
+                entryManager.merge(rollup);
+            } else {
+                prepareRollupBranch();
+                entryManager.persist(rollup);
+            }
+        } catch (Exception e) {
+            log.error("Failed to persist stat rollup, month: " + month, e);
+        }
+
+        if (isFinal(rollup, month)) {
+            finalRollups.put(month, rollup);
+        }
+        log.trace("Stat rollup is built, month: {}, nodes: {}", month, entries.size());
+        return rollup;
+    }
+
+    public List<StatEntry> findNodeEntries(String month) {
+        final List<StatEntry> entries = entryManager.findEntries(monthlyDn(month), StatEntry.class, Filter.createPresenceFilter("jansId"));
+        if (entries == null) {
+            return new ArrayList<>();
+        }
+        entries.removeIf(StatRollupService::isRollup);
+        return entries;
+    }
+
+    private StatEntry findRollup(String month) {
+        try {
+            return entryManager.find(StatEntry.class, rollupDn(month));
+        } catch (EntryPersistenceException e) {
+            return null;
+        }
+    }
+
+    private void prepareRollupBranch() {
+        final String baseDn = statService.getBaseDn();
+        if (entryManager.hasBranchesSupport(baseDn) && !entryManager.contains(rollupBranchDn(), SimpleBranch.class)) {
+            statService.createBranch(rollupBranchDn(), ROLLUP_OU);
+        }
+    }
+
+    /**
+     * @return hash of merged content (user HLL and token counters) of entry, it does not depend on update time
+     */
+    public static String contentHash(StatEntry entry) {
+        final StringBuilder content = new StringBuilder(StringUtils.defaultString(entry.getUserHllData()));
+        final Map<String, Map<String, Long>> tokens = entry.getStat().getTokenCountPerGrantType();
+        if (tokens != null) {
+            for (Map.Entry<String, Map<String, Long>> en : new TreeMap<>(tokens).entrySet()) {
+                content.append('|').append(en.getKey()).append('=');
+                if (en.getValue() != null) {
+                    content.append(new TreeMap<>(en.getValue()));
+                }
+            }
+        }
+        return DigestUtils.sha256Hex(content.toString());
+    }
+
+    /**
+     * Unions user HLL and sums token counters of given entries.
+     */
+    public static StatEntry merge(List<StatEntry> entries) {
+        final HLL hll = new HLL(log2m, regwidth);
+        final Map<String, Map<String, Long>> tokens = new HashMap<>();
+
+        for (StatEntry entry : entries) {
+            hll.union(HLL.fromBytes(Base64.getDecoder().decode(entry.getUserHllData())));
+
+            for (Map.Entry<String, Map<String, Long>> en : entry.getStat().getTokenCountPerGrantType().entrySet()) {
+                if (en.getValue() == null) {
+                    continue;
+                }
+
+                final Map<String, Long> tokenMap = tokens.computeIfAbsent(en.getKey(), k -> new HashMap<>());
+                for (Map.Entry<String, Long> tokenEntry : en.getValue().entrySet()) {
+                    if (tokenEntry.getValue() != null) {
+                        tokenMap.merge(tokenEntry.getKey(), tokenEntry.getValue(), Long::sum);
+                    }
+                }
+            }
+        }
+
+        final StatEntry result = new StatEntry();
+        result.setUserHllData(Base64.getEncoder().encodeToString(hll.toBytes()));
+        final Stat stat = result.getStat();
+        stat.setTokenCountPerGrantType(tokens);
+        return result;
+    }
+
+    public static long userCardinality(StatEntry entry) {
+        return HLL.fromBytes(Base64.getDecoder().decode(entry.getUserHllData())).cardinality();
+    }
+
+    private boolean isFinal(StatEntry rollup, String month) {
+        final Date monthEnd = monthEnd(month);
+        return monthEnd != null && rollup.getStat().getLastUpdatedAt() >= monthEnd.getTime();
+    }
+
+    private static boolean isCurrentMonth(String month) {
+        return month.equals(new SimpleDateFormat("yyyyMM").format(new Date()));
+    }
+
+    private static Date monthEnd(String month) {
+        try {
+            final Calendar calendar = Calendar.getInstance();
+            calendar.setTime(new SimpleDateFormat("yyyyMM").parse(month));
+            calendar.add(Calendar.MONTH, 1);
+            return calendar.getTime();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private String monthlyDn(String month) {
+        return String.format("ou=%s,%s", month, statService.getBaseDn()); // ou=yyyyMM,ou=stat,o=jans
+    }
+
+    private String rollupBranchDn() {
+        return String.format("ou=%s,%s", ROLLUP_OU, statService.getBaseDn()); // ou=rollup,ou=stat,o=jans
+    }
+
+    private String rollupDn(String month) {
+        return String.format("jansId=%s,%s", month, rollupBranchDn());
+    }
+}
@@ -22,11 +22,13 @@ import javax.inject.Named;
 import java.text.SimpleDateFormat;
 import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -62,7 +64,8 @@ public class StatService {
     private String monthlyDn;
     private StatEntry currentEntry;
     private HLL hll;
-    private ConcurrentMap<String, Map<String, Long>> tokenCounters;
+    private StripedHll hllStripes;
+    private ConcurrentMap<String, ConcurrentMap<String, LongAdder>> tokenCounters;
 
     private boolean initialized = false;
 
@@ -117,10 +120,11 @@ public class StatService {
         setupCurrentEntry(now);
 
         final Stat stat = currentEntry.getStat();
-        stat.setTokenCountPerGrantType(tokenCounters);
+        stat.setTokenCountPerGrantType(snapshotTokenCounters());
         stat.setLastUpdatedAt(now.getTime());
 
         synchronized (hll) {
+            hllStripes.unionInto(hll);
             currentEntry.setUserHllData(Base64.getEncoder().encodeToString(hll.toBytes()));
         }
         entryManager.merge(currentEntry);
@@ -144,7 +148,8 @@ public class StatService {
             StatEntry entryFromPersistence = entryManager.find(StatEntry.class, dn);
             if (entryFromPersistence != null && month.equals(entryFromPersistence.getStat().getMonth())) {
                 hll = HLL.fromBytes(Base64.getDecoder().decode(entryFromPersistence.getUserHllData()));
-                tokenCounters = new ConcurrentHashMap<>(entryFromPersistence.getStat().getTokenCountPerGrantType());
+                hllStripes = new StripedHll(log2m, regwidth);
+                tokenCounters = toTokenCounters(entryFromPersistence.getStat().getTokenCountPerGrantType());
                 currentEntry = entryFromPersistence;
                 log.trace("Stat entry loaded.");
                 return;
@@ -156,6 +161,7 @@ public class StatService {
         if (currentEntry == null) {
             log.trace("Creating stat entry ...");
             hll = new HLL(log2m, regwidth);
+            hllStripes = new StripedHll(log2m, regwidth);
             tokenCounters = new ConcurrentHashMap<>();
 
             currentEntry = new StatEntry();
@@ -240,9 +246,7 @@ public class StatService {
         final int hashCode = id.hashCode();
         try {
             setupCurrentEntry();
-            synchronized (hll) {
-                hll.addRaw(hashCode);
-            }
+            hllStripes.addRaw(hashCode);
         } catch (Exception e) {
             log.error("Failed to report active user, id: " + id + ", hash: " + hashCode, e);
         }
@@ -278,17 +282,41 @@ public class StatService {
             return;
         }
 
-        Map<String, Long> tokenMap = tokenCounters.computeIfAbsent(grantType.getValue(), k -> new ConcurrentHashMap<>());
-
-        Long counter = tokenMap.get(tokenKey);
+        tokenCounters.computeIfAbsent(grantType.getValue(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(tokenKey, k -> new LongAdder())
+                .increment();
+    }
 
-        if (counter == null) {
-            counter = 1L;
-        } else {
-            counter++;
+    private Map<String, Map<String, Long>> snapshotTokenCounters() {
+        final Map<String, Map<String, Long>> result = new HashMap<>();
+        for (Map.Entry<String, ConcurrentMap<String, LongAdder>> grantEntry : tokenCounters.entrySet()) {
+            final Map<String, Long> tokenMap = new HashMap<>();
+            for (Map.Entry<String, LongAdder> tokenEntry : grantEntry.getValue().entrySet()) {
+                tokenMap.put(tokenEntry.getKey(), tokenEntry.getValue().sum());
+            }
+            result.put(grantEntry.getKey(), tokenMap);
         }
+        return result;
+    }
 
-        tokenMap.put(tokenKey, counter);
-
+    private static ConcurrentMap<String, ConcurrentMap<String, LongAdder>> toTokenCounters(Map<String, Map<String, Long>> persisted) {
+        final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> result = new ConcurrentHashMap<>();
+        if (persisted == null) {
+            return result;
+        }
+        for (Map.Entry<String, Map<String, Long>> grantEntry : persisted.entrySet()) {
+            final ConcurrentMap<String, LongAdder> tokenMap = new ConcurrentHashMap<>();
+            if (grantEntry.getValue() != null) {
+                for (Map.Entry<String, Long> tokenEntry : grantEntry.getValue().entrySet()) {
+                    final LongAdder adder = new LongAdder();
+                    if (tokenEntry.getValue() != null) {
+                        adder.add(tokenEntry.getValue());
+                    }
+                    tokenMap.put(tokenEntry.getKey(), adder);
+                }
+            }
+            result.put(grantEntry.getKey(), tokenMap);
+        }
+        return result;
     }
 }
\ No newline at end of file
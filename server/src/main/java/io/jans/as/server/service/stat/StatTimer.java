@@ -40,6 +40,9 @@ public class StatTimer {
     @Inject
     private StatService statService;
 
+    @Inject
+    private StatRollupService statRollupService;
+
     private AtomicBoolean isActive;
     private long lastFinishedTime;
 
@@ -74,6 +77,9 @@ public class StatTimer {
                 return;
             }
             statService.updateStat();
+            if (appConfiguration.getStatRollupEnabled()) {
+                statRollupService.rollupCurrentMonth(2 * getIntervalInSeconds()); // lease outlives one timer tick
+            }
             this.lastFinishedTime = System.currentTimeMillis();
         } catch (Exception ex) {
             log.error("Exception happened while updating stat", ex);
@@ -83,14 +89,12 @@ public class StatTimer {
     }
 
     private boolean allowToRun() {
-        int interval = appConfiguration.getStatTimerIntervalInSeconds();
+        int interval = getIntervalInSeconds();
         if (interval < 0) {
             log.info("Stat Timer is disabled.");
             log.warn("Stat Timer Interval (statTimerIntervalInSeconds in server configuration) is negative which turns OFF statistic on the server. Please set it to positive value if you wish it to run.");
             return false;
         }
-        if (interval == 0)
-            interval = TIMER_INTERVAL_IN_SECONDS;
 
         long timerInterval = interval * 1000;
 
@@ -98,4 +102,9 @@ public class StatTimer {
 
         return timeDiff >= timerInterval;
     }
+
+    private int getIntervalInSeconds() {
+        int interval = appConfiguration.getStatTimerIntervalInSeconds();
+        return interval == 0 ? TIMER_INTERVAL_IN_SECONDS : interval;
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.stat;
+
+import net.agkn.hll.HLL;
+
+/**
+ * Set of HLL sketches, one per stripe, to avoid contention of all reporting threads on single sketch.
+ * Since HLL union is idempotent stripes are unioned into target sketch on flush without being reset.
+ */
+public class StripedHll {
+
+    private final HLL[] stripes;
+    private final int mask;
+
+    public StripedHll(int log2m, int regwidth) {
+        this(Runtime.getRuntime().availableProcessors(), log2m, regwidth);
+    }
+
+    public StripedHll(int concurrency, int log2m, int regwidth) {
+        int size = 1;
+        while (size < Math.max(1, concurrency)) {
+            size <<= 1;
+        }
+        this.stripes = new HLL[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new HLL(log2m, regwidth);
+        }
+    }
+
+    public void addRaw(long value) {
+        final HLL stripe = stripes[(int) (Thread.currentThread().getId() & mask)];
+        synchronized (stripe) {
+            stripe.addRaw(value);
+        }
+    }
+
+    /**
+     * Unions all stripes into target sketch.
+     *
+     * @param target target sketch, must be created with the same log2m and regwidth
+     */
+    public void unionInto(HLL target) {
+        for (HLL stripe : stripes) {
+            synchronized (stripe) {
+                target.union(stripe);
+            }
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+}
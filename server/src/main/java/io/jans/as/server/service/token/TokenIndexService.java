@@ -0,0 +1,194 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.token;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+
+import com.google.common.util.concurrent.Striped;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.model.ldap.TokenLdap;
+import io.jans.as.server.util.ServerUtil;
+import io.jans.service.CacheService;
+
+/**
+ * Secondary index of tokens kept in cache: session dn, grant id and authorization code hash to token hashes.
+ * <p>
+ * Index is maintained when token is persisted. Index entry lives as long as the longest living token in it. Cache has
+ * no atomic update, updates of one key are serialized by lock only on this node, so concurrent update from other node
+ * with shared cache can drop hash from entry. Index is therefore only a hint: lookups always search tokens and
+ * {@link #merge(List, Set, Function) merge} index entry into result, which adds tokens search can't see yet (e.g.
+ * tokens of other node which are still in its write-behind queue).
+ */
+@ApplicationScoped
+@Named
+public class TokenIndexService {
+
+    public enum IndexType {
+        SESSION("tkn_idx_ssn_"),
+        GRANT("tkn_idx_grt_"),
+        AUTHORIZATION_CODE("tkn_idx_code_");
+
+        private final String prefix;
+
+        IndexType(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String key(String value) {
+            return prefix + value;
+        }
+    }
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private CacheService cacheService;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final Striped<Lock> locks = Striped.lock(64);
+
+    public boolean isEnabled() {
+        return ServerUtil.isTrue(appConfiguration.getTokenIndexEnabled());
+    }
+
+    public void add(TokenLdap token) {
+        if (!isEnabled() || token == null || StringUtils.isBlank(token.getTokenCode())) {
+            return;
+        }
+
+        add(IndexType.SESSION, token.getSessionDn(), token);
+        add(IndexType.GRANT, token.getGrantId(), token);
+        add(IndexType.AUTHORIZATION_CODE, token.getAuthorizationCode(), token);
+    }
+
+    private void add(IndexType type, String value, TokenLdap token) {
+        if (StringUtils.isBlank(value)) {
+            return;
+        }
+
+        final String key = type.key(value);
+        final Lock lock = locks.get(key);
+        lock.lock();
+        try {
+            final long now = System.currentTimeMillis();
+            final long expiresAt = token.getExpirationDate() != null ? token.getExpirationDate().getTime() : now;
+
+            final Entry entry = Entry.add(getEntry(key), token.getTokenCode(), expiresAt, now);
+
+            final int expirationInSeconds = (int) Math.max(1, (entry.expiresAt - now) / 1000 + 1);
+            cacheService.put(expirationInSeconds, key, entry);
+        } catch (Exception e) {
+            log.error("Failed to update token index, key: " + key, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return hashes of tokens (tknCde) or null if there is no index entry for given value
+     */
+    public Set<String> get(IndexType type, String value) {
+        if (!isEnabled() || StringUtils.isBlank(value)) {
+            return null;
+        }
+
+        try {
+            final Entry entry = getEntry(type.key(value));
+            return entry != null ? Collections.unmodifiableSet(entry.hashes) : null;
+        } catch (Exception e) {
+            log.error("Failed to read token index, key: " + type.key(value), e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds tokens of index entry which are not in search result.
+     *
+     * @param found  tokens found by search
+     * @param hashes hashes from index entry (may be null)
+     * @param loader loads tokens by hashes, tokens which are already gone are skipped
+     * @return found tokens with tokens loaded by missing hashes
+     */
+    public static List<TokenLdap> merge(List<TokenLdap> found, Set<String> hashes, Function<Set<String>, List<TokenLdap>> loader) {
+        if (hashes == null || hashes.isEmpty()) {
+            return found;
+        }
+
+        final Set<String> missing = new HashSet<>(hashes);
+        for (TokenLdap token : found) {
+            missing.remove(token.getTokenCode());
+        }
+        if (!missing.isEmpty()) {
+            found.addAll(loader.apply(missing));
+        }
+        return found;
+    }
+
+    public void remove(IndexType type, String value) {
+        if (!isEnabled() || StringUtils.isBlank(value)) {
+            return;
+        }
+
+        try {
+            cacheService.remove(type.key(value));
+        } catch (Exception e) {
+            log.error("Failed to remove token index, key: " + type.key(value), e);
+        }
+    }
+
+    private Entry getEntry(String key) {
+        final Object cached = cacheService.get(key);
+        return cached instanceof Entry ? (Entry) cached : null;
+    }
+
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 4281372618315219640L;
+
+        private HashSet<String> hashes = new HashSet<>();
+        private long expiresAt;
+
+        /**
+         * @return copy of entry (new entry if there is no entry or it is expired) with given hash
+         */
+        static Entry add(Entry entry, String hash, long expiresAt, long now) {
+            final Entry result = new Entry();
+            if (entry != null && entry.expiresAt >= now) {
+                result.hashes.addAll(entry.hashes);
+                result.expiresAt = entry.expiresAt;
+            }
+            result.hashes.add(hash);
+            result.expiresAt = Math.max(result.expiresAt, expiresAt);
+            return result;
+        }
+
+        public Set<String> getHashes() {
+            return hashes;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
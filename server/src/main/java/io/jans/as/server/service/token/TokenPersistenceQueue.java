@@ -0,0 +1,402 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.model.ldap.TokenLdap;
+import io.jans.as.server.util.ServerUtil;
+import io.jans.orm.PersistenceEntryManager;
+import io.jans.service.CacheService;
+
+/**
+ * Write-behind queue for token persistence.
+ * <p>
+ * When enabled (tokenWriteBehindEnabled), token is put in cache immediately (so it is resolvable by
+ * {@link io.jans.as.server.service.GrantService#getGrantByCode(String)}) and persisted later by background
+ * worker in batches. Batch is flushed either when it reaches tokenWriteBehindBatchSize or every
+ * tokenWriteBehindFlushIntervalInMillis. If queue is full (tokenWriteBehindQueueCapacity) caller has to
+ * persist token synchronously (back-pressure). Pending tokens are flushed on shutdown.
+ * <p>
+ * Token stays pending until it is persisted, so searches can add pending tokens to persistence results
+ * ({@link #getPending(Predicate)}). If token is discarded while it is being persisted, worker removes it right
+ * after persist. If persist fails token stays pending and is queued again after backoff (flush interval doubled on
+ * each attempt), after {@link #MAX_PERSIST_ATTEMPTS} failed attempts token is dropped (it is still resolvable from
+ * cache until it expires there) and counted in dropped count.
+ */
+@ApplicationScoped
+@Named
+public class TokenPersistenceQueue {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_FLUSH_INTERVAL_IN_MILLIS = 500;
+    private static final int MAX_PERSIST_ATTEMPTS = 5;
+    private static final long QUEUED = Long.MAX_VALUE;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private PersistenceEntryManager persistenceEntryManager;
+
+    @Inject
+    private CacheService cacheService;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final ConcurrentMap<String, TokenLdap> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Retry> retries = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong persistedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong lastFlushDurationInMillis = new AtomicLong();
+
+    private BlockingQueue<String> queue;
+    private ScheduledExecutorService executor;
+
+    public void init() {
+        if (!isEnabled() || !initialized.compareAndSet(false, true)) {
+            return;
+        }
+
+        int capacity = appConfiguration.getTokenWriteBehindQueueCapacity();
+        if (capacity <= 0) {
+            capacity = DEFAULT_QUEUE_CAPACITY;
+        }
+
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = ServerUtil.createExecutor();
+
+        final long interval = getFlushInterval();
+        this.executor.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Initialized token write-behind queue, capacity: {}, batchSize: {}, flushInterval: {}ms", capacity, getBatchSize(), interval);
+    }
+
+    public boolean isEnabled() {
+        return ServerUtil.isTrue(appConfiguration.getTokenWriteBehindEnabled());
+    }
+
+    /**
+     * Puts token in cache and queues it for persistence.
+     *
+     * @param token token
+     * @return true if token was accepted by queue, false if caller must persist token synchronously
+     */
+    public boolean enqueue(TokenLdap token) {
+        if (!initialized.get() || token == null || StringUtils.isBlank(token.getDn())) {
+            return false;
+        }
+
+        pending.put(token.getDn(), token);
+        if (!queue.offer(token.getDn())) {
+            pending.remove(token.getDn());
+            rejectedCount.incrementAndGet();
+            log.trace("Token write-behind queue is full, token has to be persisted synchronously.");
+            return false;
+        }
+
+        putInCache(token);
+        enqueuedCount.incrementAndGet();
+
+        if (queue.size() >= getBatchSize() && flushScheduled.compareAndSet(false, true)) {
+            executor.execute(this::flushAll);
+        }
+        return true;
+    }
+
+    /**
+     * Removes token from queue if it is not persisted yet. If worker is persisting token at the moment, worker
+     * removes it from persistence once persist is done.
+     *
+     * @param token token
+     * @return true if token was still pending (and thus there is nothing to remove from persistence)
+     */
+    public boolean discard(TokenLdap token) {
+        if (!initialized.get() || token == null || StringUtils.isBlank(token.getDn())) {
+            return false;
+        }
+
+        final boolean discarded = pending.remove(token.getDn()) != null;
+        if (discarded) {
+            retries.remove(token.getDn());
+            cacheService.remove(token.getTokenCode());
+        }
+        return discarded;
+    }
+
+    public boolean isPending(TokenLdap token) {
+        return initialized.get() && token != null && token.getDn() != null && pending.containsKey(token.getDn());
+    }
+
+    /**
+     * @param filter filter
+     * @return tokens which are not persisted yet and match filter
+     */
+    public List<TokenLdap> getPending(Predicate<TokenLdap> filter) {
+        final List<TokenLdap> result = new ArrayList<>();
+        if (!initialized.get() || pending.isEmpty()) {
+            return result;
+        }
+        for (TokenLdap token : pending.values()) {
+            if (filter.test(token)) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Persists pending token on caller thread (e.g. before it is merged). Waits only for batch which worker is
+     * persisting at the moment, not for whole queue.
+     *
+     * @param token token
+     * @return true if token was pending and is persisted now, false if it is not pending
+     * @throws RuntimeException if persist failed, token stays pending and worker retries it
+     */
+    public synchronized boolean persistNow(TokenLdap token) {
+        if (!initialized.get() || token == null || StringUtils.isBlank(token.getDn())) {
+            return false;
+        }
+
+        final String dn = token.getDn();
+        final TokenLdap pendingToken = pending.get(dn);
+        if (pendingToken == null) {
+            return false;
+        }
+
+        try {
+            persistenceEntryManager.persist(pendingToken);
+            persistedCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            onPersistFailure(dn, pendingToken, e);
+            throw e;
+        }
+        onPersisted(dn, pendingToken); // dn stays in queue, worker skips it
+        return true;
+    }
+
+    private void putInCache(TokenLdap token) {
+        try {
+            final Integer ttl = token.getTtl();
+            if (ttl != null && ttl > 0) {
+                cacheService.put(ttl, token.getTokenCode(), token);
+            } else {
+                cacheService.put(token.getTokenCode(), token);
+            }
+        } catch (Exception e) {
+            log.error("Failed to put token in cache, dn: " + token.getDn(), e);
+        }
+    }
+
+    private void flushAll() {
+        flushAll(false);
+    }
+
+    private void flushAll(boolean shutdown) {
+        flushScheduled.set(false);
+        try {
+            requeueRetries(shutdown);
+            while (flushBatch() > 0) {
+                // keep flushing while there are pending tokens
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush token write-behind queue.", e);
+        }
+    }
+
+    // synchronized, so that flush() returns only after batch drained by worker is persisted
+    private synchronized int flushBatch() {
+        final List<String> batch = new ArrayList<>(getBatchSize());
+        queue.drainTo(batch, getBatchSize());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        final long start = System.currentTimeMillis();
+        for (String dn : batch) {
+            final TokenLdap token = pending.get(dn);
+            if (token == null) { // discarded before flush
+                continue;
+            }
+
+            try {
+                persistenceEntryManager.persist(token);
+                persistedCount.incrementAndGet();
+            } catch (Exception e) {
+                onPersistFailure(dn, token, e);
+                continue;
+            }
+            onPersisted(dn, token);
+        }
+        lastFlushDurationInMillis.set(System.currentTimeMillis() - start);
+
+        log.trace("Flushed {} tokens, takes: {}ms, queue depth: {}", batch.size(), lastFlushDurationInMillis.get(), queue.size());
+        return batch.size();
+    }
+
+    private void onPersisted(String dn, TokenLdap token) {
+        retries.remove(dn);
+        if (!pending.remove(dn, token)) { // discarded while it was persisted
+            removeDiscarded(token);
+        }
+    }
+
+    private void onPersistFailure(String dn, TokenLdap token, Exception e) {
+        failedCount.incrementAndGet();
+        final Retry previous = retries.get(dn);
+        final int attempts = previous != null ? previous.attempts + 1 : 1;
+        if (attempts >= MAX_PERSIST_ATTEMPTS) {
+            retries.remove(dn);
+            if (pending.remove(dn, token)) {
+                droppedCount.incrementAndGet();
+                log.error("Failed to persist token " + attempts + " times, token is dropped (it is valid only while it is in cache), dn: " + dn, e);
+            }
+            return;
+        }
+
+        final long delay = getFlushInterval() << attempts;
+        retries.put(dn, new Retry(attempts, System.currentTimeMillis() + delay));
+        log.warn("Failed to persist token, attempt {} of {}, next attempt in {}ms, dn: {}, error: {}", attempts, MAX_PERSIST_ATTEMPTS, delay, dn, e.toString());
+    }
+
+    // queues failed tokens again when their backoff elapsed (all of them on shutdown, it is last attempt)
+    private void requeueRetries(boolean all) {
+        if (retries.isEmpty()) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<String, Retry> entry : retries.entrySet()) {
+            final String dn = entry.getKey();
+            if (!pending.containsKey(dn)) { // discarded
+                retries.remove(dn, entry.getValue());
+                continue;
+            }
+            final Retry retry = entry.getValue();
+            if (retry.nextAttemptAt == QUEUED || (!all && retry.nextAttemptAt > now)) {
+                continue;
+            }
+            if (!queue.offer(dn)) {
+                break; // queue is full, try on next flush
+            }
+            entry.setValue(new Retry(retry.attempts, QUEUED));
+        }
+    }
+
+    private void removeDiscarded(TokenLdap token) {
+        try {
+            persistenceEntryManager.remove(token);
+            log.trace("Removed token discarded during flush, dn: {}", token.getDn());
+        } catch (Exception e) {
+            log.error("Failed to remove token discarded during flush, dn: " + token.getDn(), e);
+        }
+    }
+
+    /**
+     * Stops worker and persists all pending tokens. Must be called before persistence entry manager is closed.
+     */
+    public void destroy() {
+        if (!initialized.compareAndSet(true, false)) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Token write-behind worker did not stop in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        log.info("Flushing token write-behind queue, pending tokens: {}", pending.size());
+        flushAll(true);
+        if (!pending.isEmpty()) {
+            log.error("Failed to persist {} tokens on shutdown, they are lost", pending.size());
+            droppedCount.addAndGet(pending.size());
+        }
+    }
+
+    private int getBatchSize() {
+        final int batchSize = appConfiguration.getTokenWriteBehindBatchSize();
+        return batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    private long getFlushInterval() {
+        final int interval = appConfiguration.getTokenWriteBehindFlushIntervalInMillis();
+        return interval > 0 ? interval : DEFAULT_FLUSH_INTERVAL_IN_MILLIS;
+    }
+
+    public int getQueueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getPersistedCount() {
+        return persistedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getRetryCount() {
+        return retries.size();
+    }
+
+    public long getLastFlushDurationInMillis() {
+        return lastFlushDurationInMillis.get();
+    }
+
+    private static class Retry {
+
+        private final int attempts;
+        private final long nextAttemptAt;
+
+        private Retry(int attempts, long nextAttemptAt) {
+            this.attempts = attempts;
+            this.nextAttemptAt = nextAttemptAt;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import io.jans.as.persistence.model.Scope;
 import io.jans.as.persistence.model.ScopeAttributes;
 import io.jans.as.server.ciba.CIBAConfigurationService;
 import io.jans.as.server.service.LocalResponseCache;
+import io.jans.as.server.service.PreRenderedResponse;
 import io.jans.as.server.service.ScopeService;
 import io.jans.as.server.service.external.ExternalAuthenticationService;
 import io.jans.as.server.service.external.ExternalDynamicScopeService;
@@ -33,7 +34,6 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -95,12 +95,11 @@ public class OpenIdConfiguration extends HttpServlet {
 			return;
 		}
 
-		httpResponse.setContentType("application/json");
-		try (PrintWriter out = httpResponse.getWriter()) {
-            final JSONObject cachedResponse = localResponseCache.getDiscoveryResponse();
+		try {
+            final PreRenderedResponse cachedResponse = localResponseCache.getDiscoveryResponse();
             if (cachedResponse != null) {
                 log.trace("Cached discovery response returned.");
-                out.println(ServerUtil.toPrettyJson(cachedResponse).replace("\\/", "/"));
+                cachedResponse.write(servletRequest, httpResponse, appConfiguration.getDiscoveryResponseMaxAgeInSeconds());
                 return;
             }
 
@@ -337,9 +336,11 @@ public class OpenIdConfiguration extends HttpServlet {
 			cibaConfigurationService.processConfiguration(jsonObj);
 
 			filterOutKeys(jsonObj);
-            localResponseCache.putDiscoveryResponse(jsonObj);
 
-			out.println(ServerUtil.toPrettyJson(jsonObj).replace("\\/", "/"));
+			final PreRenderedResponse response = PreRenderedResponse.of(ServerUtil.toPrettyJson(jsonObj).replace("\\/", "/") + "\n", "application/json");
+            localResponseCache.putDiscoveryResponse(response);
+
+			response.write(servletRequest, httpResponse, appConfiguration.getDiscoveryResponseMaxAgeInSeconds());
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 		}
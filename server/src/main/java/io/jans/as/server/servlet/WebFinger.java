@@ -14,7 +14,6 @@ import static io.jans.as.model.discovery.WebFingerParam.RESOURCE;
 import static io.jans.as.model.discovery.WebFingerParam.SUBJECT;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 
 import javax.inject.Inject;
 import javax.servlet.ServletException;
@@ -30,6 +29,8 @@ import org.slf4j.Logger;
 
 import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.server.model.discovery.OpenIdConnectDiscoveryParamsValidator;
+import io.jans.as.server.service.LocalResponseCache;
+import io.jans.as.server.service.PreRenderedResponse;
 
 /**
  * @author Javier Rojas Blum Date: 01.28.2013
@@ -45,6 +46,9 @@ public class WebFinger extends HttpServlet {
 	@Inject
 	private AppConfiguration appConfiguration;
 
+	@Inject
+	private LocalResponseCache localResponseCache;
+
     /**
      * Processes requests for both HTTP <code>GET</code> and <code>POST</code> methods.
      *
@@ -58,9 +62,6 @@ public class WebFinger extends HttpServlet {
         final HttpServletRequest httpRequest = request;
         final HttpServletResponse httpResponse = response;
 
-        httpResponse.setContentType("application/jrd+json");
-        PrintWriter out = httpResponse.getWriter();
-
         String resource = httpRequest.getParameter(RESOURCE);
         String rel = httpRequest.getParameter(REL);
 
@@ -69,6 +70,12 @@ public class WebFinger extends HttpServlet {
         try {
             if (OpenIdConnectDiscoveryParamsValidator.validateParams(resource, rel)) {
                 if (rel == null || rel.equals(REL_VALUE)) {
+                    final PreRenderedResponse cachedResponse = localResponseCache.getWebFingerResponse(resource);
+                    if (cachedResponse != null) {
+                        cachedResponse.write(httpRequest, httpResponse, appConfiguration.getDiscoveryResponseMaxAgeInSeconds());
+                        return;
+                    }
+
                     JSONObject jsonObj = new JSONObject();
                     jsonObj.put(SUBJECT, resource);
 
@@ -80,14 +87,19 @@ public class WebFinger extends HttpServlet {
                     linksJsonArray.put(linkJsonObject);
                     jsonObj.put(LINKS, linksJsonArray);
 
-                    out.println(jsonObj.toString(4).replace("\\/", "/"));
+                    final PreRenderedResponse rendered = PreRenderedResponse.of(jsonObj.toString(4).replace("\\/", "/") + "\n", "application/jrd+json");
+                    localResponseCache.putWebFingerResponse(resource, rendered);
+
+                    rendered.write(httpRequest, httpResponse, appConfiguration.getDiscoveryResponseMaxAgeInSeconds());
+                    return;
                 }
             }
         } catch (JSONException e) {
         	log.error(e.getMessage(), e);
         }
 
-        out.close();
+        httpResponse.setContentType("application/jrd+json");
+        httpResponse.getWriter().close();
     }
 
     /**
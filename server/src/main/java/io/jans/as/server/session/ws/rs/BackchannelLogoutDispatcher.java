@@ -0,0 +1,208 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.session.ws.rs;
+
+import java.net.URI;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Form;
+import javax.ws.rs.core.Response;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.client.config.CookieSpecs;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.jans.as.client.service.ClientFactory;
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.util.ServerUtil;
+
+/**
+ * Delivers backchannel logout notifications (logout_token) to RPs asynchronously.
+ * <p>
+ * Uses single pooled keep-alive http client, limits number of concurrent calls per RP host
+ * (backchannelLogoutMaxConcurrencyPerHost) and retries failed deliveries (5xx or I/O error) with exponential backoff.
+ * If RP host stays busy for more than {@link #MAX_HOST_BUSY_DELAYS} delays delivery fails. Permits of host are dropped
+ * after host was not called for {@link #HOST_PERMITS_IDLE_TIME_IN_MINUTES} minutes.
+ * End session request is not blocked by RP calls.
+ */
+@ApplicationScoped
+@Named
+public class BackchannelLogoutDispatcher {
+
+    private static final int CONNECT_TIMEOUT_IN_SECONDS = 10;
+    private static final int SOCKET_TIMEOUT_IN_SECONDS = 10;
+    private static final long HOST_BUSY_DELAY_IN_MILLIS = 200;
+    private static final int MAX_HOST_BUSY_DELAYS = 300; // 1 minute
+    private static final int HOST_PERMITS_IDLE_TIME_IN_MINUTES = 10; // much longer than single call (connect + socket timeout)
+
+    public enum DeliveryStatus {
+        PENDING, DELIVERED, FAILED
+    }
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final ConcurrentMap<String, Semaphore> hostPermits = CacheBuilder.newBuilder()
+            .expireAfterAccess(HOST_PERMITS_IDLE_TIME_IN_MINUTES, TimeUnit.MINUTES).<String, Semaphore>build().asMap();
+    private final Cache<String, DeliveryStatus> deliveryStatuses = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.HOURS).maximumSize(10000).build();
+
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong inFlightCount = new AtomicLong();
+
+    private Client client;
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        final int threads = Math.max(appConfiguration.getBackchannelLogoutThreadPoolSize(), 1);
+        final int perHost = Math.max(appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost(), 1);
+
+        this.executor = Executors.newScheduledThreadPool(threads, ServerUtil.daemonThreadFactory());
+        this.client = new ResteasyClientBuilder().httpEngine(ClientFactory.instance().createEngine(threads * perHost, perHost,
+                CookieSpecs.STANDARD, true, (int) TimeUnit.SECONDS.toMillis(CONNECT_TIMEOUT_IN_SECONDS),
+                (int) TimeUnit.SECONDS.toMillis(SOCKET_TIMEOUT_IN_SECONDS))).build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+        client.close();
+    }
+
+    /**
+     * Schedules delivery of logout_token to backchannel_logout_uri and returns immediately.
+     *
+     * @return delivery id which can be used to query delivery status (if tracking is enabled)
+     */
+    public String dispatch(String backchannelLogoutUri, String logoutToken) {
+        final String deliveryId = UUID.randomUUID().toString();
+        dispatchedCount.incrementAndGet();
+        inFlightCount.incrementAndGet();
+        setStatus(deliveryId, DeliveryStatus.PENDING);
+
+        executor.execute(() -> deliver(deliveryId, backchannelLogoutUri, logoutToken, 0, 0));
+        return deliveryId;
+    }
+
+    private void deliver(String deliveryId, String backchannelLogoutUri, String logoutToken, int attempt, int busyDelays) {
+        final Semaphore permits = hostPermits.computeIfAbsent(host(backchannelLogoutUri),
+                k -> new Semaphore(Math.max(appConfiguration.getBackchannelLogoutMaxConcurrencyPerHost(), 1)));
+        if (!permits.tryAcquire()) { // host is busy, try later without blocking worker
+            if (busyDelays >= MAX_HOST_BUSY_DELAYS) {
+                log.warn("Backchannel logout delivery to {} failed, host is busy", backchannelLogoutUri);
+                finish(deliveryId, DeliveryStatus.FAILED);
+                return;
+            }
+            executor.schedule(() -> deliver(deliveryId, backchannelLogoutUri, logoutToken, attempt, busyDelays + 1), HOST_BUSY_DELAY_IN_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        boolean retry = false;
+        try {
+            log.debug("Calling RP with backchannel, backchannel_logout_uri: {}, attempt: {}", backchannelLogoutUri, attempt);
+            try (Response response = client.target(backchannelLogoutUri).request().post(Entity.form(new Form("logout_token", logoutToken)))) {
+                final int status = response.getStatus();
+                log.debug("Backchannel RP response, status: {}, backchannel_logout_uri: {}", status, backchannelLogoutUri);
+                if (status >= 200 && status < 300) {
+                    finish(deliveryId, DeliveryStatus.DELIVERED);
+                    return;
+                }
+                retry = status >= 500;
+            }
+        } catch (Exception e) {
+            log.error("Failed to call backchannel_logout_uri " + backchannelLogoutUri + ", message: " + e.getMessage(), e);
+            retry = true;
+        } finally {
+            permits.release();
+        }
+
+        if (retry && attempt < appConfiguration.getBackchannelLogoutMaxRetries()) {
+            final long delay = Math.max(appConfiguration.getBackchannelLogoutRetryInitialDelayInMillis(), 0) * (1L << attempt);
+            retriedCount.incrementAndGet();
+            executor.schedule(() -> deliver(deliveryId, backchannelLogoutUri, logoutToken, attempt + 1, 0), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        finish(deliveryId, DeliveryStatus.FAILED);
+    }
+
+    private void finish(String deliveryId, DeliveryStatus status) {
+        inFlightCount.decrementAndGet();
+        if (status == DeliveryStatus.DELIVERED) {
+            deliveredCount.incrementAndGet();
+        } else {
+            failedCount.incrementAndGet();
+        }
+        setStatus(deliveryId, status);
+    }
+
+    private void setStatus(String deliveryId, DeliveryStatus status) {
+        if (ServerUtil.isTrue(appConfiguration.getBackchannelLogoutDeliveryStatusTrackingEnabled())) {
+            deliveryStatuses.put(deliveryId, status);
+        }
+    }
+
+    private static String host(String uri) {
+        try {
+            final String host = URI.create(uri).getHost();
+            return StringUtils.isNotBlank(host) ? host : uri;
+        } catch (Exception e) {
+            return uri;
+        }
+    }
+
+    /**
+     * @return delivery status or null if it is unknown (tracking is disabled or status expired)
+     */
+    public DeliveryStatus getDeliveryStatus(String deliveryId) {
+        return deliveryId != null ? deliveryStatuses.getIfPresent(deliveryId) : null;
+    }
+
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    public long getInFlightCount() {
+        return inFlightCount.get();
+    }
+}
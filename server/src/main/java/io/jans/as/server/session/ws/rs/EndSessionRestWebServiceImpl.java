@@ -58,8 +58,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author Javier Rojas Blum
@@ -79,6 +77,9 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
     @Inject
     private RedirectionUriService redirectionUriService;
 
+    @Inject
+    private BackchannelLogoutDispatcher backchannelLogoutDispatcher;
+
     @Inject
     private AuthorizationGrantList authorizationGrantList;
 
@@ -112,6 +113,9 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
     @Inject
     private LogoutTokenFactory logoutTokenFactory;
 
+    @Inject
+    private EndSessionTeardownQueue endSessionTeardownQueue;
+
     @Override
     public Response requestEndSession(String idTokenHint, String postLogoutRedirectUri, String state, String sid,
                                       HttpServletRequest httpRequest, HttpServletResponse httpResponse, SecurityContext sec) {
@@ -218,7 +222,7 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
         }
     }
 
-    private void backChannel(Map<String, Client> backchannelUris, AuthorizationGrant grant, SessionId session) throws InterruptedException {
+    private void backChannel(Map<String, Client> backchannelUris, AuthorizationGrant grant, SessionId session) {
         if (backchannelUris.isEmpty()) {
             return;
         }
@@ -230,18 +234,15 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
             user = sessionIdService.getUser(session);
         }
 
-        final ExecutorService executorService = EndSessionUtils.getExecutorService();
         for (final Map.Entry<String, Client> entry : backchannelUris.entrySet()) {
             final JsonWebResponse logoutToken = logoutTokenFactory.createLogoutToken(entry.getValue(), session.getOutsideSid(), user);
             if (logoutToken == null) {
                 log.error("Failed to create logout_token for client: " + entry.getValue().getClientId());
-                return;
+                continue;
             }
-            executorService.execute(() -> EndSessionUtils.callRpWithBackchannelUri(entry.getKey(), logoutToken.toString()));
+            backchannelLogoutDispatcher.dispatch(entry.getKey(), logoutToken.toString());
         }
-        executorService.shutdown();
-        executorService.awaitTermination(30, TimeUnit.SECONDS);
-        log.trace("Finished backchannel calls.");
+        log.trace("Dispatched backchannel calls.");
     }
 
     private Response createErrorResponse(String postLogoutRedirectUri, EndSessionErrorResponseType error, String reason) {
@@ -424,10 +425,16 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
     }
 
     private void endSession(Pair<SessionId, AuthorizationGrant> pair, HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        final boolean asyncTeardown = endSessionTeardownQueue.isEnabled();
+
         // Clean up authorization session
-        removeConsentSessionId(httpRequest, httpResponse);
+        if (asyncTeardown) {
+            removeSessionIdsAsync(pair, httpRequest, httpResponse);
+        } else {
+            removeConsentSessionId(httpRequest, httpResponse);
 
-        removeSessionId(pair, httpResponse);
+            removeSessionId(pair, httpResponse);
+        }
 
         boolean isExternalLogoutPresent;
         boolean externalLogoutResult = false;
@@ -444,7 +451,12 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
             throw errorResponseFactory.createWebApplicationException(Response.Status.UNAUTHORIZED, EndSessionErrorResponseType.INVALID_GRANT, "External logout is present but executed external logout script returned failed result.");
         }
 
-        grantService.logout(pair.getFirst().getDn());
+        final String sessionDn = pair.getFirst().getDn();
+        if (asyncTeardown) {
+            endSessionTeardownQueue.submit("remove tokens of session " + sessionDn, () -> grantService.logout(sessionDn));
+        } else {
+            grantService.logout(sessionDn);
+        }
 
         if (identity != null) {
             identity.logout();
@@ -486,16 +498,8 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
         try {
             String id = cookieService.getConsentSessionIdFromCookie(httpRequest);
 
-            if (StringHelper.isNotEmpty(id)) {
-                SessionId ldapSessionId = sessionIdService.getSessionId(id);
-                if (ldapSessionId != null) {
-                    boolean result = sessionIdService.remove(ldapSessionId);
-                    if (!result) {
-                        log.error("Failed to remove consent_session_id '{}'", id);
-                    }
-                } else {
-                    log.error("Failed to load session by consent_session_id: '{}'", id);
-                }
+            if (!removeConsentSessionId(id)) {
+                log.error("Failed to remove consent_session_id '{}'", id);
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -504,6 +508,43 @@ public class EndSessionRestWebServiceImpl implements EndSessionRestWebService {
         }
     }
 
+    private boolean removeConsentSessionId(String id) {
+        if (StringHelper.isEmpty(id)) {
+            return true;
+        }
+
+        SessionId ldapSessionId = sessionIdService.getSessionId(id);
+        if (ldapSessionId == null) {
+            log.error("Failed to load session by consent_session_id: '{}'", id);
+            return true; // nothing to remove
+        }
+        return sessionIdService.remove(ldapSessionId);
+    }
+
+    /**
+     * Clears cookies immediately and leaves removal of session and consent session to teardown queue.
+     */
+    private void removeSessionIdsAsync(Pair<SessionId, AuthorizationGrant> pair, HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        String consentSessionId = null;
+        try {
+            consentSessionId = cookieService.getConsentSessionIdFromCookie(httpRequest);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        } finally {
+            cookieService.removeConsentSessionIdCookie(httpResponse);
+            cookieService.removeSessionIdCookie(httpResponse);
+            cookieService.removeOPBrowserStateCookie(httpResponse);
+        }
+
+        if (StringHelper.isNotEmpty(consentSessionId)) {
+            final String id = consentSessionId;
+            endSessionTeardownQueue.submit("remove consent_session_id " + id, () -> removeConsentSessionId(id));
+        }
+
+        final SessionId session = pair.getFirst();
+        endSessionTeardownQueue.submit("remove session_id " + session.getId(), () -> sessionIdService.remove(session));
+    }
+
     private void auditLogging(HttpServletRequest request, Pair<SessionId, AuthorizationGrant> pair) {
         SessionId sessionId = pair.getFirst();
         AuthorizationGrant authorizationGrant = pair.getSecond();
@@ -0,0 +1,198 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.session.ws.rs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.RequestContextController;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.slf4j.Logger;
+
+import io.jans.as.model.configuration.AppConfiguration;
+import io.jans.as.server.util.ServerUtil;
+
+/**
+ * Runs end session teardown (removal of session, consent session and tokens) in background.
+ * <p>
+ * Enabled by endSessionAsyncTeardownEnabled. Step which fails (returns false or throws exception) is retried with
+ * exponential backoff up to endSessionTeardownMaxRetries times. Each step runs in its own request context, so
+ * request scoped services can be used. Pending steps are executed synchronously on shutdown.
+ * <p>
+ * Queue is not durable (there is no shared queue primitive, cache has no list or atomic operations). Async teardown
+ * weakens logout guarantees: if node crashes before teardown is done, session and tokens of logged out session stay
+ * valid until they expire (refresh tokens can live for days) and are removed by cleaner only then.
+ */
+@ApplicationScoped
+@Named
+public class EndSessionTeardownQueue {
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private Instance<RequestContextController> requestContextControllerInstance;
+
+    private final ConcurrentMap<Long, Step> pending = new ConcurrentHashMap<>();
+    private final AtomicLong idGenerator = new AtomicLong();
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        final int threads = Math.max(appConfiguration.getEndSessionTeardownThreadPoolSize(), 1);
+        this.executor = Executors.newScheduledThreadPool(threads, ServerUtil.daemonThreadFactory());
+    }
+
+    public boolean isEnabled() {
+        return ServerUtil.isTrue(appConfiguration.getEndSessionAsyncTeardownEnabled()) && !stopped.get();
+    }
+
+    /**
+     * Schedules teardown step and returns immediately.
+     *
+     * @param name name of step (used in logs)
+     * @param step step, returns true if it succeeded
+     */
+    public void submit(String name, BooleanSupplier step) {
+        final long id = idGenerator.incrementAndGet();
+        pending.put(id, new Step(name, step));
+        submittedCount.incrementAndGet();
+
+        schedule(id, 0, 0);
+    }
+
+    private void schedule(long id, int attempt, long delayInMillis) {
+        try {
+            executor.schedule(() -> run(id, attempt), delayInMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.trace("Teardown queue is stopped, step is executed on shutdown, id: {}", id);
+        }
+    }
+
+    private void run(long id, int attempt) {
+        final Step step = pending.get(id);
+        if (step == null) { // already executed on shutdown
+            return;
+        }
+
+        if (execute(step)) {
+            pending.remove(id);
+            completedCount.incrementAndGet();
+            return;
+        }
+
+        if (attempt < appConfiguration.getEndSessionTeardownMaxRetries()) {
+            final long delay = Math.max(appConfiguration.getEndSessionTeardownRetryInitialDelayInMillis(), 0) * (1L << attempt);
+            retriedCount.incrementAndGet();
+            log.debug("End session teardown step '{}' failed, retry in {}ms", step.name, delay);
+            schedule(id, attempt + 1, delay);
+            return;
+        }
+
+        pending.remove(id);
+        failedCount.incrementAndGet();
+        log.error("End session teardown step '{}' failed after {} attempts.", step.name, attempt + 1);
+    }
+
+    private boolean execute(Step step) {
+        final RequestContextController requestContextController = requestContextControllerInstance.get();
+        final boolean activated = requestContextController.activate();
+        try {
+            return step.action.getAsBoolean();
+        } catch (Exception e) {
+            log.error("Failed to execute end session teardown step '" + step.name + "'", e);
+            return false;
+        } finally {
+            if (activated) {
+                requestContextController.deactivate();
+            }
+            requestContextControllerInstance.destroy(requestContextController);
+        }
+    }
+
+    /**
+     * Stops workers and executes pending steps. Must be called before persistence entry manager is closed.
+     */
+    public void destroy() {
+        if (!stopped.compareAndSet(false, true) || executor == null) {
+            return;
+        }
+
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("End session teardown workers did not stop in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        final List<Long> ids = new ArrayList<>(pending.keySet());
+        log.info("Executing pending end session teardown steps: {}", ids.size());
+        for (Long id : ids) {
+            final Step step = pending.remove(id);
+            if (step != null && !execute(step)) {
+                failedCount.incrementAndGet();
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    private static class Step {
+
+        private final String name;
+        private final BooleanSupplier action;
+
+        private Step(String name, BooleanSupplier action) {
+            this.name = name;
+            this.action = action;
+        }
+    }
+}
@@ -6,22 +6,8 @@
 
 package io.jans.as.server.session.ws.rs;
 
-import static io.jans.as.server.util.ServerUtil.daemonThreadFactory;
-
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import javax.ws.rs.client.Entity;
-import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.Form;
-import javax.ws.rs.core.Response;
-
-import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import io.jans.as.client.service.ClientFactory;
 import io.jans.as.model.util.Util;
 
 /**
@@ -29,27 +15,9 @@ import io.jans.as.model.util.Util;
  */
 public class EndSessionUtils {
 
-    private final static Logger log = LoggerFactory.getLogger(EndSessionUtils.class);
-
     private EndSessionUtils() {
     }
 
-    public static ExecutorService getExecutorService() {
-        return Executors.newCachedThreadPool(daemonThreadFactory());
-    }
-
-    public static void callRpWithBackchannelUri(final String backchannelLogoutUri, String logoutToken) {
-        javax.ws.rs.client.Client client = new ResteasyClientBuilder().httpEngine(ClientFactory.instance().createEngine(true)).build();
-        WebTarget target = client.target(backchannelLogoutUri);
-
-        log.debug("Calling RP with backchannel, backchannel_logout_uri: " + backchannelLogoutUri);
-        try (Response response = target.request().post(Entity.form(new Form("logout_token", logoutToken)))) {
-            log.debug("Backchannel RP response, status: " + response.getStatus() + ", backchannel_logout_uri" + backchannelLogoutUri);
-        } catch (Exception e) {
-            log.error("Failed to call backchannel_logout_uri" + backchannelLogoutUri + ", message: " + e.getMessage(), e);
-        }
-    }
-
     public static String appendSid(String logoutUri, String sid, String issuer) {
         if (logoutUri.contains("?")) {
             return logoutUri + "&sid=" + sid + "&iss=" + issuer;
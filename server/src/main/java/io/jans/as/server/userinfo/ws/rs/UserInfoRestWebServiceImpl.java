@@ -9,9 +9,7 @@ package io.jans.as.server.userinfo.ws.rs;
 import io.jans.as.common.claims.Audience;
 import io.jans.as.common.model.common.User;
 import io.jans.as.common.model.registration.Client;
-import io.jans.as.common.service.AttributeService;
 import io.jans.as.model.common.ComponentType;
-import io.jans.as.model.common.ScopeType;
 import io.jans.as.model.config.WebKeysConfiguration;
 import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.model.crypto.AbstractCryptoProvider;
@@ -34,7 +32,6 @@ import io.jans.as.model.jwt.JwtSubClaimObject;
 import io.jans.as.model.jwt.JwtType;
 import io.jans.as.model.token.JsonWebResponse;
 import io.jans.as.model.userinfo.UserInfoErrorResponseType;
-import io.jans.as.model.util.JwtUtil;
 import io.jans.as.model.util.Util;
 import io.jans.as.persistence.model.Scope;
 import io.jans.as.server.audit.ApplicationAuditLogger;
@@ -43,19 +40,20 @@ import io.jans.as.server.model.audit.OAuth2AuditLog;
 import io.jans.as.server.model.authorize.Claim;
 import io.jans.as.server.model.common.*;
 import io.jans.as.server.model.userinfo.UserInfoParamsValidator;
+import io.jans.as.server.service.ClaimReleasePlan;
+import io.jans.as.server.service.ClaimReleasePlanService;
 import io.jans.as.server.service.ClientService;
-import io.jans.as.server.service.ScopeService;
 import io.jans.as.server.service.ServerCryptoProvider;
 import io.jans.as.server.service.UserService;
 import io.jans.as.server.service.external.ExternalDynamicScopeService;
 import io.jans.as.server.service.external.context.DynamicScopeExternalContext;
+import io.jans.as.server.service.net.JwksResolver;
 import io.jans.as.server.service.token.TokenService;
 import io.jans.as.server.util.ServerUtil;
 import io.jans.model.GluuAttribute;
 import io.jans.model.attribute.AttributeDataType;
 import io.jans.orm.PersistenceEntryManager;
 import io.jans.orm.exception.EntryPersistenceException;
-import org.apache.commons.lang.StringUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -95,10 +93,7 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
     private ClientService clientService;
 
     @Inject
-    private ScopeService scopeService;
-
-    @Inject
-    private AttributeService attributeService;
+    private ClaimReleasePlanService claimReleasePlanService;
 
     @Inject
     private UserService userService;
@@ -121,6 +116,9 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
     @Inject
     private TokenService tokenService;
 
+    @Inject
+    private JwksResolver jwksResolver;
+
     @Override
     public Response requestUserInfoGet(String accessToken, String authorization, HttpServletRequest request, SecurityContext securityContext) {
         return requestUserInfo(accessToken, authorization, request, securityContext);
@@ -287,7 +285,7 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
         // Encryption
         if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA_OAEP
                 || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5) {
-            JSONObject jsonWebKeys = JwtUtil.getJSONWebKeys(authorizationGrant.getClient().getJwksUri());
+            JSONObject jsonWebKeys = jwksResolver.getJwks(authorizationGrant.getClient().getJwksUri());
             String keyId = new ServerCryptoProvider(cryptoProvider).getKeyId(JSONWebKeySet.fromJSONObject(jsonWebKeys),
                     Algorithm.fromString(keyEncryptionAlgorithm.getName()),
                     Use.ENCRYPTION);
@@ -324,22 +322,23 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
 
         // Claims
         List<Scope> dynamicScopes = new ArrayList<Scope>();
-        for (String scopeName : scopes) {
-            Scope scope = scopeService.getScopeById(scopeName);
-            if ((scope != null) && (ScopeType.DYNAMIC == scope.getScopeType())) {
+        final ClaimReleasePlan plan = claimReleasePlanService.getPlan(scopes);
+        for (ClaimReleasePlan.ScopeEntry scopeEntry : plan.getScopes()) {
+            Scope scope = scopeEntry.getScope();
+            if (scopeEntry.isDynamic()) {
                 dynamicScopes.add(scope);
                 continue;
             }
 
-            Map<String, Object> claims = getClaims(user, scope);
+            Map<String, Object> claims = getClaims(user, scopeEntry);
             if (claims == null) {
                 continue;
             }
             if (scope == null) {
-                log.trace("Unable to find scope in persistence. Is it removed? Scope name: " + scopeName);
+                log.trace("Unable to find scope in persistence. Is it removed? Scope name: " + scopeEntry.getScopeName());
             }
 
-            if (scope != null && Boolean.TRUE.equals(scope.isGroupClaims())) {
+            if (scopeEntry.isGroupClaims()) {
                 JwtSubClaimObject groupClaim = new JwtSubClaimObject();
                 groupClaim.setName(scope.getId());
                 for (Map.Entry<String, Object> entry : claims.entrySet()) {
@@ -372,22 +371,15 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
             }
         }
 
-        if (authorizationGrant.getClaims() != null) {
-            JSONObject claimsObj = new JSONObject(authorizationGrant.getClaims());
-            if (claimsObj.has("userinfo")) {
-                JSONObject userInfoObj = claimsObj.getJSONObject("userinfo");
-                for (Iterator<String> it = userInfoObj.keys(); it.hasNext(); ) {
-                    String claimName = it.next();
-                    boolean optional = true; // ClaimValueType.OPTIONAL.equals(claim.getClaimValue().getClaimValueType());
-                    GluuAttribute gluuAttribute = attributeService.getByClaimName(claimName);
+        for (String claimName : claimReleasePlanService.getRequestedClaimNames(authorizationGrant.getClaims(), "userinfo")) {
+            boolean optional = true; // ClaimValueType.OPTIONAL.equals(claim.getClaimValue().getClaimValueType());
+            GluuAttribute gluuAttribute = claimReleasePlanService.getAttributeByClaimName(claimName);
 
-                    if (gluuAttribute != null) {
-                        String ldapClaimName = gluuAttribute.getName();
+            if (gluuAttribute != null) {
+                String ldapClaimName = gluuAttribute.getName();
 
-                        Object attribute = user.getAttribute(ldapClaimName, optional, gluuAttribute.getOxMultiValuedAttribute());
-                        jsonWebResponse.getClaims().setClaimFromJsonObject(claimName, attribute);
-                    }
-                }
+                Object attribute = user.getAttribute(ldapClaimName, optional, gluuAttribute.getOxMultiValuedAttribute());
+                jsonWebResponse.getClaims().setClaimFromJsonObject(claimName, attribute);
             }
         }
 
@@ -395,12 +387,12 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
                 && authorizationGrant.getJwtAuthorizationRequest().getUserInfoMember() != null) {
             for (Claim claim : authorizationGrant.getJwtAuthorizationRequest().getUserInfoMember().getClaims()) {
                 boolean optional = true; // ClaimValueType.OPTIONAL.equals(claim.getClaimValue().getClaimValueType());
-                GluuAttribute gluuAttribute = attributeService.getByClaimName(claim.getName());
+                GluuAttribute gluuAttribute = claimReleasePlanService.getAttributeByClaimName(claim.getName());
 
                 if (gluuAttribute != null) {
                     Client client = authorizationGrant.getClient();
 
-                    if (validateRequesteClaim(gluuAttribute, client.getClaims(), scopes)) {
+                    if (validateRequesteClaim(gluuAttribute, client.getClaims(), plan)) {
                         String ldapClaimName = gluuAttribute.getName();
                         Object attribute = user.getAttribute(ldapClaimName, optional, gluuAttribute.getOxMultiValuedAttribute());
                         jsonWebResponse.getClaims().setClaimFromJsonObject(claim.getName(), attribute);
@@ -421,6 +413,10 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
     }
 
     public boolean validateRequesteClaim(GluuAttribute gluuAttribute, String[] clientAllowedClaims, Collection<String> scopes) {
+        return validateRequesteClaim(gluuAttribute, clientAllowedClaims, claimReleasePlanService.getPlan(scopes));
+    }
+
+    public boolean validateRequesteClaim(GluuAttribute gluuAttribute, String[] clientAllowedClaims, ClaimReleasePlan plan) {
         if (gluuAttribute == null) {
             log.trace("gluuAttribute is null.");
             return false;
@@ -433,72 +429,41 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
             }
         }
 
-        for (String scopeName : scopes) {
-            Scope scope = scopeService.getScopeById(scopeName);
-
-            if (scope != null && scope.getClaims() != null) {
-                for (String claimDn : scope.getClaims()) {
-                    if (gluuAttribute.getDisplayName().equals(attributeService.getAttributeByDn(claimDn).getDisplayName())) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
+        return plan.containsClaimDisplayName(gluuAttribute.getDisplayName());
     }
 
-    public Map<String, Object> getClaims(User user, Scope scope) throws InvalidClaimException, ParseException {
+    public Map<String, Object> getClaims(User user, ClaimReleasePlan.ScopeEntry scopeEntry) throws InvalidClaimException, ParseException {
         Map<String, Object> claims = new HashMap<String, Object>();
 
-        if (scope == null) {
+        if (scopeEntry.getScope() == null) {
             log.trace("Scope is null.");
             return claims;
         }
 
-        final List<String> scopeClaims = scope.getClaims();
-        if (scopeClaims == null) {
-            log.trace("No claims set for scope: " + scope.getId());
-            return claims;
-        }
-
-        for (String claimDn : scopeClaims) {
-            GluuAttribute gluuAttribute = attributeService.getAttributeByDn(claimDn);
-
-            String claimName = gluuAttribute.getClaimName();
-            String ldapName = gluuAttribute.getName();
+        for (ClaimReleasePlan.ClaimEntry claimEntry : scopeEntry.getClaims()) {
+            String claimName = claimEntry.getClaimName();
             Object attribute = null;
 
-            if (StringUtils.isBlank(claimName)) {
-                log.error("Failed to get claim because claim name is not set for attribute, id: " + gluuAttribute.getDn());
-                continue;
-            }
-            if (StringUtils.isBlank(ldapName)) {
-                log.error("Failed to get claim because name is not set for attribute, id: " + gluuAttribute.getDn());
-                continue;
-            }
-
-
-            if (ldapName.equals("uid")) {
+            if (claimEntry.isUid()) {
                 attribute = user.getUserId();
-            } else if (ldapName.equals("updatedAt")) {
+            } else if (claimEntry.isUpdatedAt()) {
                 attribute = user.getUpdatedAt();
-            } else if (AttributeDataType.BOOLEAN.equals(gluuAttribute.getDataType())) {
-                final Object value = user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute());
+            } else if (AttributeDataType.BOOLEAN.equals(claimEntry.getDataType())) {
+                final Object value = user.getAttribute(claimEntry.getLdapName(), true, claimEntry.isMultiValued());
                 if (value instanceof String) {
                     attribute = Boolean.parseBoolean(String.valueOf(value));
                 } else {
                     attribute = value;
                 }
-            } else if (AttributeDataType.DATE.equals(gluuAttribute.getDataType())) {
-                Object value = user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute());
+            } else if (AttributeDataType.DATE.equals(claimEntry.getDataType())) {
+                Object value = user.getAttribute(claimEntry.getLdapName(), true, claimEntry.isMultiValued());
                 if (value instanceof Date) {
                     attribute = value;
                 } else if (value != null) {
                     attribute = entryManager.decodeTime(user.getDn(), value.toString());
                 }
             } else {
-                attribute = user.getAttribute(gluuAttribute.getName(), true, gluuAttribute.getOxMultiValuedAttribute());
+                attribute = user.getAttribute(claimEntry.getLdapName(), true, claimEntry.isMultiValued());
             }
 
             if (attribute != null) {
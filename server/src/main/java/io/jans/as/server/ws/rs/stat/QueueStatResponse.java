@@ -0,0 +1,43 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.ws.rs.stat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.resteasy.annotations.providers.jaxb.IgnoreMediaTypes;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@IgnoreMediaTypes("application/*+json")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class QueueStatResponse {
+
+    @JsonProperty(value = "components") // component name to metric name to value
+    private Map<String, Map<String, Object>> components = new TreeMap<>();
+
+    public Map<String, Object> component(String name) {
+        return components.computeIfAbsent(name, k -> new LinkedHashMap<>());
+    }
+
+    public Map<String, Map<String, Object>> getComponents() {
+        return components;
+    }
+
+    public void setComponents(Map<String, Map<String, Object>> components) {
+        this.components = components;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueStatResponse{" +
+                "components=" + components +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.ws.rs.stat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.resteasy.annotations.providers.jaxb.IgnoreMediaTypes;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.jans.as.server.service.external.ExternalScriptExecutor.MethodStats;
+
+@IgnoreMediaTypes("application/*+json")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ScriptStatResponse {
+
+    @JsonProperty(value = "buckets_in_millis") // upper bounds of histogram buckets, last bucket has no upper bound
+    private long[] bucketsInMillis = MethodStats.getBucketsInMillis();
+
+    @JsonProperty(value = "methods") // "scriptName:method" to stats
+    private Map<String, MethodStats> methods = new TreeMap<>();
+
+    @JsonProperty(value = "open_circuits")
+    private List<String> openCircuits = new ArrayList<>();
+
+    public long[] getBucketsInMillis() {
+        return bucketsInMillis;
+    }
+
+    public void setBucketsInMillis(long[] bucketsInMillis) {
+        this.bucketsInMillis = bucketsInMillis;
+    }
+
+    public Map<String, MethodStats> getMethods() {
+        return methods;
+    }
+
+    public void setMethods(Map<String, MethodStats> methods) {
+        this.methods = methods;
+    }
+
+    public List<String> getOpenCircuits() {
+        return openCircuits;
+    }
+
+    public void setOpenCircuits(List<String> openCircuits) {
+        this.openCircuits = openCircuits;
+    }
+
+    @Override
+    public String toString() {
+        return "ScriptStatResponse{" +
+                "methods=" + methods +
+                ", openCircuits=" + openCircuits +
+                '}';
+    }
+}
@@ -6,16 +6,23 @@ import io.jans.as.model.configuration.AppConfiguration;
 import io.jans.as.model.error.ErrorResponseFactory;
 import io.jans.as.model.token.TokenErrorResponseType;
 import io.jans.as.server.model.common.AbstractToken;
+import io.jans.as.server.audit.ApplicationAuditLogger;
 import io.jans.as.server.model.common.AuthorizationGrant;
+import io.jans.as.server.service.CleanerTimer;
+import io.jans.as.server.service.IntrospectionResponseCache;
+import io.jans.as.server.service.ciba.CibaNotificationEngine;
+import io.jans.as.server.service.external.ExternalScriptExecutor;
+import io.jans.as.server.service.stat.StatRollupService;
 import io.jans.as.server.service.stat.StatService;
+import io.jans.as.server.service.token.TokenPersistenceQueue;
 import io.jans.as.server.service.token.TokenService;
+import io.jans.as.server.session.ws.rs.BackchannelLogoutDispatcher;
+import io.jans.as.server.session.ws.rs.EndSessionTeardownQueue;
 import io.jans.as.server.util.ServerUtil;
-import io.jans.orm.PersistenceEntryManager;
-import io.jans.orm.search.filter.Filter;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.Counter;
 import io.prometheus.client.exporter.common.TextFormat;
-import net.agkn.hll.HLL;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 
@@ -29,13 +36,15 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -56,14 +65,11 @@ public class StatWS {
     @Inject
     private Logger log;
 
-    @Inject
-    private PersistenceEntryManager entryManager;
-
     @Inject
     private ErrorResponseFactory errorResponseFactory;
 
     @Inject
-    private StatService statService;
+    private StatRollupService statRollupService;
 
     @Inject
     private AppConfiguration appConfiguration;
@@ -71,27 +77,169 @@ public class StatWS {
     @Inject
     private TokenService tokenService;
 
+    @Inject
+    private ExternalScriptExecutor externalScriptExecutor;
+
+    @Inject
+    private ApplicationAuditLogger applicationAuditLogger;
+
+    @Inject
+    private TokenPersistenceQueue tokenPersistenceQueue;
+
+    @Inject
+    private IntrospectionResponseCache introspectionResponseCache;
+
+    @Inject
+    private CleanerTimer cleanerTimer;
+
+    @Inject
+    private BackchannelLogoutDispatcher backchannelLogoutDispatcher;
+
+    @Inject
+    private CibaNotificationEngine cibaNotificationEngine;
+
+    @Inject
+    private EndSessionTeardownQueue endSessionTeardownQueue;
+
     private long lastProcessedAt;
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response statGet(@HeaderParam("Authorization") String authorization, @QueryParam("month") String month, @QueryParam("format") String format) {
-        return stat(authorization, month, format);
+    public Response statGet(@HeaderParam("Authorization") String authorization, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                            @QueryParam("month") String month, @QueryParam("format") String format) {
+        return stat(authorization, ifNoneMatch, month, format);
     }
 
     @POST
     @Produces(MediaType.APPLICATION_JSON)
-    public Response statPost(@HeaderParam("Authorization") String authorization, @FormParam("month") String month, @FormParam("format") String format) {
-        return stat(authorization, month, format);
+    public Response statPost(@HeaderParam("Authorization") String authorization, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                             @FormParam("month") String month, @FormParam("format") String format) {
+        return stat(authorization, ifNoneMatch, month, format);
+    }
+
+    /**
+     * Latency histogram, error and circuit breaker counters of custom script methods on this node.
+     */
+    @GET
+    @Path("/scripts")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response scriptStat(@HeaderParam("Authorization") String authorization) {
+        errorResponseFactory.validateComponentEnabled(ComponentType.STAT);
+        validateAuthorization(authorization);
+
+        try {
+            final ScriptStatResponse response = new ScriptStatResponse();
+            response.getMethods().putAll(externalScriptExecutor.getStats());
+            for (String key : response.getMethods().keySet()) {
+                final String scriptName = key.substring(0, key.lastIndexOf(':'));
+                if (externalScriptExecutor.isCircuitOpen(scriptName) && !response.getOpenCircuits().contains(scriptName)) {
+                    response.getOpenCircuits().add(scriptName);
+                }
+            }
+
+            final String responseAsStr = ServerUtil.asJson(response);
+            log.trace("Script stat: " + responseAsStr);
+            return Response.ok().entity(responseAsStr).build();
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).type(MediaType.APPLICATION_JSON_TYPE).build();
+        }
+    }
+
+    /**
+     * Depth, lag and counters of background queues, caches and cleaner of this node.
+     */
+    @GET
+    @Path("/queues")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response queueStat(@HeaderParam("Authorization") String authorization) {
+        errorResponseFactory.validateComponentEnabled(ComponentType.STAT);
+        validateAuthorization(authorization);
+
+        try {
+            final QueueStatResponse response = new QueueStatResponse();
+
+            final Map<String, Object> audit = response.component("audit_log");
+            audit.put("queue_depth", applicationAuditLogger.getQueueDepth());
+            audit.put("lag_in_millis", applicationAuditLogger.getLagInMillis());
+            audit.put("enqueued", applicationAuditLogger.getEnqueuedCount());
+            audit.put("sent", applicationAuditLogger.getSentCount());
+            audit.put("spooled", applicationAuditLogger.getSpooledCount());
+            audit.put("replayed", applicationAuditLogger.getReplayedCount());
+            audit.put("dropped", applicationAuditLogger.getDroppedCount());
+
+            final Map<String, Object> tokens = response.component("token_write_behind");
+            tokens.put("queue_depth", tokenPersistenceQueue.getQueueDepth());
+            tokens.put("retry_pending", tokenPersistenceQueue.getRetryCount());
+            tokens.put("enqueued", tokenPersistenceQueue.getEnqueuedCount());
+            tokens.put("rejected", tokenPersistenceQueue.getRejectedCount());
+            tokens.put("persisted", tokenPersistenceQueue.getPersistedCount());
+            tokens.put("failed", tokenPersistenceQueue.getFailedCount());
+            tokens.put("dropped", tokenPersistenceQueue.getDroppedCount());
+            tokens.put("last_flush_duration_in_millis", tokenPersistenceQueue.getLastFlushDurationInMillis());
+
+            final Map<String, Object> introspection = response.component("introspection_cache");
+            introspection.put("hits", introspectionResponseCache.getHits());
+            introspection.put("misses", introspectionResponseCache.getMisses());
+
+            final Map<String, Object> backchannel = response.component("backchannel_logout");
+            backchannel.put("in_flight", backchannelLogoutDispatcher.getInFlightCount());
+            backchannel.put("dispatched", backchannelLogoutDispatcher.getDispatchedCount());
+            backchannel.put("delivered", backchannelLogoutDispatcher.getDeliveredCount());
+            backchannel.put("failed", backchannelLogoutDispatcher.getFailedCount());
+            backchannel.put("retried", backchannelLogoutDispatcher.getRetriedCount());
+
+            final Map<String, Object> ciba = response.component("ciba_notification");
+            ciba.put("queue_depth", cibaNotificationEngine.getQueueDepth());
+            ciba.put("active", cibaNotificationEngine.getActiveCount());
+            ciba.put("submitted", cibaNotificationEngine.getSubmittedCount());
+            ciba.put("succeeded", cibaNotificationEngine.getSucceededCount());
+            ciba.put("failed", cibaNotificationEngine.getFailedCount());
+            ciba.put("retried", cibaNotificationEngine.getRetriedCount());
+            ciba.put("average_latency_in_millis", cibaNotificationEngine.getAverageLatencyInMillis());
+
+            final Map<String, Object> teardown = response.component("end_session_teardown");
+            teardown.put("pending", endSessionTeardownQueue.getPendingCount());
+            teardown.put("submitted", endSessionTeardownQueue.getSubmittedCount());
+            teardown.put("completed", endSessionTeardownQueue.getCompletedCount());
+            teardown.put("failed", endSessionTeardownQueue.getFailedCount());
+            teardown.put("retried", endSessionTeardownQueue.getRetriedCount());
+
+            for (Map.Entry<String, CleanerTimer.BranchStat> entry : cleanerTimer.getBranchStats().entrySet()) {
+                final CleanerTimer.BranchStat branchStat = entry.getValue();
+                final Map<String, Object> cleaner = response.component("cleaner:" + entry.getKey());
+                cleaner.put("batch_size", branchStat.getBatchSize());
+                cleaner.put("backlog", branchStat.hasBacklog());
+                cleaner.put("last_removed", branchStat.getLastRemoved());
+                cleaner.put("last_duration_in_millis", branchStat.getLastDurationInMillis());
+                cleaner.put("last_throughput", branchStat.getLastThroughput());
+                cleaner.put("total_removed", branchStat.getTotalRemoved());
+            }
+
+            final String responseAsStr = ServerUtil.asJson(response);
+            log.trace("Queue stat: " + responseAsStr);
+            return Response.ok().entity(responseAsStr).build();
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).type(MediaType.APPLICATION_JSON_TYPE).build();
+        }
     }
 
     public Response stat(String authorization, String month, String format) {
+        return stat(authorization, null, month, format);
+    }
+
+    public Response stat(String authorization, String ifNoneMatch, String month, String format) {
         log.debug("Attempting to request stat, month: " + month + ", format: " + format);
 
         errorResponseFactory.validateComponentEnabled(ComponentType.STAT);
         validateAuthorization(authorization);
         final List<String> months = validateMonth(month);
 
+        if (appConfiguration.getStatRollupEnabled()) {
+            return statFromRollups(ifNoneMatch, months, format);
+        }
+
         if (!allowToRun()) {
             log.trace("Interval request limit exceeded. Request is rejected. Current interval limit: " + appConfiguration.getStatWebServiceIntervalLimitInSeconds() + " (or 60 seconds if not set).");
             throw errorResponseFactory.createWebApplicationException(Response.Status.FORBIDDEN, TokenErrorResponseType.ACCESS_DENIED, "Interval request limit exceeded.");
@@ -103,12 +251,7 @@ public class StatWS {
             log.trace("Recognized months: " + months);
             final StatResponse statResponse = buildResponse(months);
 
-            final String responseAsStr;
-            if ("openmetrics".equalsIgnoreCase(format)) {
-                responseAsStr = createOpenMetricsResponse(statResponse);
-            } else {
-                responseAsStr = ServerUtil.asJson(statResponse);
-            }
+            final String responseAsStr = asString(statResponse, format);
             log.trace("Stat: " + responseAsStr);
             return Response.ok().entity(responseAsStr).build();
         } catch (WebApplicationException e) {
@@ -120,6 +263,65 @@ public class StatWS {
         }
     }
 
+    /**
+     * Serves stat from pre-merged monthly rollups. Rollups are cheap to read, so interval request limit is not
+     * applied. ETag is built from rollups content, thus polling clients get 304 until merged stat changes.
+     */
+    private Response statFromRollups(String ifNoneMatch, List<String> months, String format) {
+        try {
+            final Map<String, StatEntry> rollups = new LinkedHashMap<>();
+            final StringBuilder version = new StringBuilder(StringUtils.defaultString(format));
+            for (String month : months) {
+                final StatEntry rollup = statRollupService.getRollup(month);
+                if (rollup != null) {
+                    rollups.put(month, rollup);
+                    version.append('|').append(month).append(':').append(StatRollupService.contentHash(rollup));
+                }
+            }
+
+            final EntityTag etag = new EntityTag(DigestUtils.sha256Hex(version.toString()));
+            if (matches(ifNoneMatch, etag)) {
+                log.trace("Stat is not modified, etag: {}", etag.getValue());
+                return Response.notModified(etag).build();
+            }
+
+            final StatResponse statResponse = new StatResponse();
+            for (Map.Entry<String, StatEntry> entry : rollups.entrySet()) {
+                statResponse.getResponse().put(entry.getKey(), asResponseItem(entry.getValue()));
+            }
+
+            final String responseAsStr = asString(statResponse, format);
+            log.trace("Stat: " + responseAsStr);
+            return Response.ok().entity(responseAsStr).tag(etag).build();
+        } catch (WebApplicationException e) {
+            log.error(e.getMessage(), e);
+            throw e;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).type(MediaType.APPLICATION_JSON_TYPE).build();
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, EntityTag etag) {
+        if (StringUtils.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (String value : ifNoneMatch.split(",")) {
+            value = StringUtils.removeStart(value.trim(), "W/");
+            if ("*".equals(value) || etag.getValue().equals(StringUtils.strip(value, "\""))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String asString(StatResponse statResponse, String format) throws IOException {
+        if ("openmetrics".equalsIgnoreCase(format)) {
+            return createOpenMetricsResponse(statResponse);
+        }
+        return ServerUtil.asJson(statResponse);
+    }
+
     private StatResponse buildResponse(List<String> months) {
         StatResponse response = new StatResponse();
         for (String month : months) {
@@ -134,63 +336,24 @@ public class StatWS {
 
     private StatResponseItem buildItem(String month) {
         try {
-            String monthlyDn = String.format("ou=%s,%s", month, statService.getBaseDn());
-
-            final List<StatEntry> entries = entryManager.findEntries(monthlyDn, StatEntry.class, Filter.createPresenceFilter("jansId"));
-            if (entries == null || entries.isEmpty()) {
-                log.trace("Can't find stat entries for month: " + monthlyDn);
+            final List<StatEntry> entries = statRollupService.findNodeEntries(month);
+            if (entries.isEmpty()) {
+                log.trace("Can't find stat entries for month: " + month);
                 return null;
             }
 
-            final StatResponseItem responseItem = new StatResponseItem();
-            responseItem.setMonthlyActiveUsers(userCardinality(entries));
-
-            unionTokenMapIntoResponseItem(entries, responseItem);
-
-            return responseItem;
+            return asResponseItem(StatRollupService.merge(entries));
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return null;
         }
     }
 
-    private void unionTokenMapIntoResponseItem(List<StatEntry> entries, StatResponseItem responseItem) {
-        for (StatEntry entry : entries) {
-            for (Map.Entry<String, Map<String, Long>> en : entry.getStat().getTokenCountPerGrantType().entrySet()) {
-                if (en.getValue() == null) {
-                    continue;
-                }
-
-                final Map<String, Long> tokenMap = responseItem.getTokenCountPerGrantType().get(en.getKey());
-                if (tokenMap == null) {
-                    responseItem.getTokenCountPerGrantType().put(en.getKey(), en.getValue());
-                    continue;
-                }
-
-                for (Map.Entry<String, Long> tokenEntry : en.getValue().entrySet()) {
-                    final Long counter = tokenMap.get(tokenEntry.getKey());
-                    if (counter == null) {
-                        tokenMap.put(tokenEntry.getKey(), tokenEntry.getValue());
-                        continue;
-                    }
-
-                    tokenMap.put(tokenEntry.getKey(), counter + tokenEntry.getValue());
-                }
-            }
-        }
-    }
-
-    private long userCardinality(List<StatEntry> entries) {
-        final StatEntry firstEntry = entries.get(0);
-        HLL hll = HLL.fromBytes(Base64.getDecoder().decode(firstEntry.getUserHllData()));
-
-        // Union hll
-        if (entries.size() > 1) {
-            for (int i = 1; i < entries.size(); i++) {
-                hll.union(HLL.fromBytes(Base64.getDecoder().decode(entries.get(i).getUserHllData())));
-            }
-        }
-        return hll.cardinality();
+    private static StatResponseItem asResponseItem(StatEntry mergedEntry) {
+        final StatResponseItem responseItem = new StatResponseItem();
+        responseItem.setMonthlyActiveUsers(StatRollupService.userCardinality(mergedEntry));
+        responseItem.setTokenCountPerGrantType(mergedEntry.getStat().getTokenCountPerGrantType());
+        return responseItem;
     }
 
     private void validateAuthorization(String authorization) {
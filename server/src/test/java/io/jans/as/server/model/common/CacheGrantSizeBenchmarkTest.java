@@ -0,0 +1,70 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.model.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+
+import io.jans.as.common.model.common.User;
+import io.jans.as.common.model.registration.Client;
+
+/**
+ * Prints serialized size of cache grant in comparison with grant which embeds full user and client.
+ * <p>
+ * Not a unit test, it is listed in testng-benchmark.xml. Run with: mvn test -Dbenchmark
+ */
+public class CacheGrantSizeBenchmarkTest {
+
+    @Test
+    public void compare() throws IOException {
+        final User user = new User();
+        user.setDn("inum=" + UUID.randomUUID() + ",ou=people,o=jans");
+        user.setUserId("admin");
+        for (int i = 0; i < 30; i++) {
+            user.setAttribute("customAttribute" + i, "value of custom attribute " + i);
+        }
+
+        final Client client = new Client();
+        client.setClientId(UUID.randomUUID().toString());
+        client.setDn("inum=" + client.getClientId() + ",ou=clients,o=jans");
+        client.setClientName("Test client");
+        client.setRedirectUris(new String[]{"https://rp.example.com/cb", "https://rp.example.com/cb2"});
+
+        final CacheGrant grant = new CacheGrant();
+        grant.setUser(user);
+        grant.setClient(client);
+        grant.setAuthorizationCodeString(UUID.randomUUID().toString());
+        grant.setAuthenticationTime(new Date());
+        grant.setScopes(Sets.newHashSet("openid", "profile", "email"));
+        grant.setGrantId(UUID.randomUUID().toString());
+        grant.setNonce(UUID.randomUUID().toString());
+        grant.setSessionDn("jansId=" + UUID.randomUUID() + ",ou=sessions,o=jans");
+
+        final int compact = size(grant);
+        final int embedded = size(new Serializable[]{user, client}) + compact;
+
+        System.out.println("Cache grant (references): " + compact + " bytes");
+        System.out.println("Cache grant (embedded user and client): ~" + embedded + " bytes");
+        System.out.println("Reduction: " + (100 - compact * 100 / embedded) + "%");
+    }
+
+    private static int size(Object object) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.size();
+    }
+}
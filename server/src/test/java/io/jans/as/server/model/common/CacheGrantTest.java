@@ -0,0 +1,170 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.model.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+
+import io.jans.as.common.model.common.User;
+import io.jans.as.common.model.registration.Client;
+
+public class CacheGrantTest {
+
+    @Test
+    public void roundTrip_fullyPopulated_shouldKeepAllFields() throws Exception {
+        final CacheGrant grant = new CacheGrant();
+        int i = 0;
+        for (Field field : serializedFields()) {
+            final Class<?> type = field.getType();
+            if (type == String.class) {
+                field.set(grant, field.getName() + "-value-é");
+            } else if (type == Date.class) {
+                field.set(grant, new Date(1600000000000L + i * 1000L));
+            } else if (type == Set.class) {
+                field.set(grant, new LinkedHashSet<>(Sets.newHashSet("openid", "profile", "email")));
+            } else if (type == int.class) {
+                field.setInt(grant, 3600 + i);
+            } else if (type == boolean.class) {
+                field.setBoolean(grant, true);
+            } else {
+                throw new AssertionError("Field type is not covered by test, field: " + field.getName());
+            }
+            i++;
+        }
+
+        final CacheGrant restored = roundTrip(grant);
+
+        for (Field field : serializedFields()) {
+            assertNotNull(field.get(restored), field.getName());
+            assertEquals(field.get(restored), field.get(grant), field.getName());
+        }
+    }
+
+    @Test
+    public void roundTrip_nullFields_shouldKeepNulls() throws Exception {
+        final CacheGrant grant = new CacheGrant();
+
+        final CacheGrant restored = roundTrip(grant);
+
+        for (Field field : serializedFields()) {
+            assertEquals(field.get(restored), field.get(grant), field.getName());
+        }
+        assertNull(restored.getScopes());
+        assertNull(restored.getUserDn());
+        assertNull(restored.getClientId());
+    }
+
+    @Test
+    public void roundTrip_notPersistedUserAndClient_shouldBeEmbedded() throws Exception {
+        final User user = new User();
+        user.setUserId("script-user");
+        final Client client = new Client();
+        client.setClientName("script-client");
+
+        final CacheGrant grant = new CacheGrant();
+        grant.setUser(user);
+        grant.setClient(client);
+
+        final CacheGrant restored = roundTrip(grant);
+
+        assertEquals(restored.getUser().getUserId(), "script-user");
+        assertEquals(restored.getClient().getClientName(), "script-client");
+    }
+
+    @Test
+    public void roundTrip_userCacheOff_shouldEmbedPersistedUser() throws Exception {
+        final User user = new User();
+        user.setDn("inum=1,ou=people,o=jans");
+        user.setUserId("embedded-user");
+
+        final CacheGrant grant = new CacheGrant();
+        grant.setUser(user);
+        grant.setEmbedUser(true);
+
+        final CacheGrant restored = roundTrip(grant);
+
+        assertEquals(restored.getUserDn(), "inum=1,ou=people,o=jans");
+        assertEquals(restored.getUser().getUserId(), "embedded-user"); // no re-hydration via user service
+    }
+
+    @Test
+    public void roundTrip_userCacheOn_shouldKeepOnlyUserDn() throws Exception {
+        final User user = new User();
+        user.setDn("inum=1,ou=people,o=jans");
+
+        final CacheGrant grant = new CacheGrant();
+        grant.setUser(user);
+        grant.setEmbedUser(false);
+
+        final CacheGrant restored = roundTrip(grant);
+
+        assertEquals(restored.getUserDn(), "inum=1,ou=people,o=jans");
+        final Field userField = CacheGrant.class.getDeclaredField("user");
+        userField.setAccessible(true);
+        assertNull(userField.get(restored));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void readExternal_unknownVersion_shouldFail() throws Exception {
+        readWithVersion(2);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void readExternal_zeroVersion_shouldFail() throws Exception {
+        readWithVersion(0);
+    }
+
+    private static void readWithVersion(int version) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeByte(version);
+            out.writeInt(-1);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            new CacheGrant().readExternal(in);
+        }
+    }
+
+    private static CacheGrant roundTrip(CacheGrant grant) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(grant);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (CacheGrant) in.readObject();
+        }
+    }
+
+    private static Set<Field> serializedFields() {
+        final Set<Field> fields = new LinkedHashSet<>();
+        for (Field field : CacheGrant.class.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                continue;
+            }
+            field.setAccessible(true);
+            fields.add(field);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import java.util.Map;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Compares redirect uri validation of linear scan (registered uris are parsed on each call) with compiled
+ * matcher for clients with 1, 50 and 500 redirect uris. Requested uri is the last registered one with reordered
+ * parameters, which is the worst case for linear scan.
+ * <p>
+ * Not a unit test, it is listed in testng-benchmark.xml. Run with: mvn test -Dbenchmark
+ */
+public class RedirectUriMatcherBenchmarkTest {
+
+    private static final int ITERATIONS = 200_000;
+
+    @DataProvider(name = "sizes")
+    public Object[][] sizes() {
+        return new Object[][]{{1}, {50}, {500}};
+    }
+
+    @Test(dataProvider = "sizes")
+    public void compare(int size) {
+        final String[] registered = registeredUris(size);
+        final String requested = "https://rp" + (size - 1) + ".example.com/cb?state=x&client=" + (size - 1);
+        final RedirectUriMatcher matcher = RedirectUriMatcher.compile(registered);
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            runLinear(registered, requested);
+            runCompiled(matcher, requested);
+        }
+
+        System.out.println("Redirect uris: " + size + ", iterations: " + ITERATIONS);
+        System.out.println("  linear scan: " + runLinear(registered, requested) + "ms");
+        System.out.println("  compiled:    " + runCompiled(matcher, requested) + "ms");
+    }
+
+    private static String[] registeredUris(int size) {
+        final String[] uris = new String[size];
+        for (int i = 0; i < size; i++) {
+            uris[i] = "https://rp" + i + ".example.com/cb?client=" + i + "&state=x";
+        }
+        return uris;
+    }
+
+    private static long runLinear(String[] registered, String requested) {
+        int matched = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (linearScan(requested, registered)) {
+                matched++;
+            }
+        }
+        return check(matched, start);
+    }
+
+    private static long runCompiled(RedirectUriMatcher matcher, String requested) {
+        int matched = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (matcher.matches(requested)) {
+                matched++;
+            }
+        }
+        return check(matched, start);
+    }
+
+    private static long check(int matched, long start) {
+        final long took = (System.nanoTime() - start) / 1_000_000;
+        if (matched != ITERATIONS) {
+            throw new IllegalStateException("Unexpected match count: " + matched);
+        }
+        return took;
+    }
+
+    // same as RedirectionUriService.isUriEqual before compiled matcher
+    private static boolean linearScan(String redirectionUri, String[] redirectUris) {
+        final String redirectUriWithoutParams = RedirectionUriService.uriWithoutParams(redirectionUri);
+        for (String uri : redirectUris) {
+            if (uri.equals(redirectionUri)) {
+                return true;
+            }
+
+            String uriWithoutParams = RedirectionUriService.uriWithoutParams(uri);
+            final Map<String, String> params = RedirectionUriService.getParams(uri);
+            if ((uriWithoutParams.equals(redirectUriWithoutParams) && params.size() == 0 && RedirectionUriService.getParams(redirectionUri).size() == 0) ||
+                    uriWithoutParams.equals(redirectUriWithoutParams) && params.size() > 0 && RedirectionUriService.compareParams(redirectionUri, uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
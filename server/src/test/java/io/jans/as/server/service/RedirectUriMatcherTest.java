@@ -0,0 +1,60 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class RedirectUriMatcherTest {
+
+    private static final String[] REGISTERED = {
+            "https://rp.example.com/cb",
+            "https://rp.example.com/cb2?a=1&b=2",
+            "https://other.example.com/"
+    };
+
+    @Test
+    public void matches_exactUri_shouldMatch() {
+        RedirectUriMatcher matcher = RedirectUriMatcher.compile(REGISTERED);
+
+        assertTrue(matcher.matches("https://rp.example.com/cb"));
+        assertTrue(matcher.matches("https://other.example.com/"));
+    }
+
+    @Test
+    public void matches_sameParamsInOtherOrder_shouldMatch() {
+        assertTrue(RedirectUriMatcher.compile(REGISTERED).matches("https://rp.example.com/cb2?b=2&a=1"));
+    }
+
+    @Test
+    public void matches_differentOrAdditionalParams_shouldNotMatch() {
+        RedirectUriMatcher matcher = RedirectUriMatcher.compile(REGISTERED);
+
+        assertFalse(matcher.matches("https://rp.example.com/cb2?a=1"));
+        assertFalse(matcher.matches("https://rp.example.com/cb2?a=1&b=3"));
+        assertFalse(matcher.matches("https://rp.example.com/cb?a=1"));
+    }
+
+    @Test
+    public void matches_unknownOrNullUri_shouldNotMatch() {
+        RedirectUriMatcher matcher = RedirectUriMatcher.compile(REGISTERED);
+
+        assertFalse(matcher.matches("https://evil.example.com/cb"));
+        assertFalse(matcher.matches(null));
+        assertFalse(RedirectUriMatcher.compile(null).matches("https://rp.example.com/cb"));
+    }
+
+    @Test
+    public void isCompiledFrom_equalContent_shouldBeTrue() {
+        RedirectUriMatcher matcher = RedirectUriMatcher.compile(REGISTERED);
+
+        assertTrue(matcher.isCompiledFrom(REGISTERED.clone()));
+        assertFalse(matcher.isCompiledFrom(new String[]{"https://rp.example.com/cb"}));
+    }
+}
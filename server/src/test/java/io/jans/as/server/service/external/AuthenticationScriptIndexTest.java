@@ -0,0 +1,118 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.external;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import io.jans.model.AuthenticationScriptUsageType;
+import io.jans.model.SimpleCustomProperty;
+import io.jans.model.custom.script.CustomScriptType;
+import io.jans.model.custom.script.conf.CustomScriptConfiguration;
+import io.jans.model.custom.script.model.CustomScript;
+
+public class AuthenticationScriptIndexTest {
+
+    private static CustomScriptConfiguration script(String name, int level, String... aliases) {
+        CustomScript customScript = new CustomScript();
+        customScript.setName(name);
+        customScript.setLevel(level);
+        customScript.setScriptType(CustomScriptType.PERSON_AUTHENTICATION);
+        customScript.setAliases(Arrays.asList(aliases));
+        return new CustomScriptConfiguration(customScript, null, new HashMap<String, SimpleCustomProperty>(0));
+    }
+
+    private static AuthenticationScriptIndex index(CustomScriptConfiguration... scripts) {
+        Map<String, CustomScriptConfiguration> byName = new LinkedHashMap<>();
+        for (CustomScriptConfiguration script : scripts) {
+            byName.put(script.getName(), script);
+        }
+        Map<AuthenticationScriptUsageType, List<CustomScriptConfiguration>> byUsageType = new EnumMap<>(AuthenticationScriptUsageType.class);
+        byUsageType.put(AuthenticationScriptUsageType.INTERACTIVE, Arrays.asList(scripts));
+        return new AuthenticationScriptIndex(byName, byUsageType);
+    }
+
+    @Test
+    public void getByAcr_anyCase_shouldFindScriptByNameAndAlias() {
+        CustomScriptConfiguration otp = script("otp", 10, "urn:acr:OTP");
+        AuthenticationScriptIndex index = index(otp);
+
+        assertSame(index.getByAcr("OTP"), otp);
+        assertSame(index.getByAcr("urn:acr:otp"), otp);
+        assertSame(index.getByAcr(AuthenticationScriptUsageType.INTERACTIVE, "Urn:Acr:Otp"), otp);
+        assertNull(index.getByAcr(AuthenticationScriptUsageType.SERVICE, "otp"));
+        assertNull(index.getByAcr("unknown"));
+        assertNull(index.getByAcr(null));
+    }
+
+    @Test
+    public void getScriptName_aliasAnyCase_shouldReturnScriptName() {
+        AuthenticationScriptIndex index = index(script("otp", 10, "urn:acr:OTP"));
+
+        assertEquals(index.getScriptName("URN:ACR:otp"), "otp");
+        assertEquals(index.getScriptName("OTP"), "otp");
+        assertEquals(index.getScriptName("unknown"), "unknown");
+    }
+
+    @Test
+    public void getByAcr_aliasEqualToOtherScriptName_shouldReturnScriptWithThatName() {
+        CustomScriptConfiguration basic = script("basic", 1);
+        CustomScriptConfiguration otp = script("otp", 10, "Basic");
+        AuthenticationScriptIndex index = index(otp, basic);
+
+        assertSame(index.getByAcr("basic"), basic);
+        assertSame(index.getByAcr(AuthenticationScriptUsageType.INTERACTIVE, "BASIC"), basic);
+        assertEquals(index.getScriptName("Basic"), "basic");
+        assertEquals(index.getAcrToLevel().get(index.getScriptName("Basic")), Integer.valueOf(1));
+    }
+
+    @Test
+    public void getDefault_equalLevels_shouldReturnFirstScriptOfHighestLevel() {
+        CustomScriptConfiguration low = script("low", 1);
+        CustomScriptConfiguration first = script("first", 20);
+        CustomScriptConfiguration second = script("second", 20);
+
+        assertSame(index(low, first, second).getDefault(AuthenticationScriptUsageType.INTERACTIVE), first);
+        assertSame(index(low, second, first).getDefault(AuthenticationScriptUsageType.INTERACTIVE), second);
+        assertNull(index(low).getDefault(AuthenticationScriptUsageType.SERVICE));
+    }
+
+    @Test
+    public void getByAuthLevel_shouldReturnFirstScriptOfLevel() {
+        CustomScriptConfiguration first = script("first", 20);
+        CustomScriptConfiguration second = script("second", 20);
+        CustomScriptConfiguration low = script("low", 1);
+        AuthenticationScriptIndex index = index(first, second, low);
+
+        assertSame(index.getByAuthLevel(AuthenticationScriptUsageType.INTERACTIVE, 20), first);
+        assertSame(index.getByAuthLevel(AuthenticationScriptUsageType.INTERACTIVE, 1), low);
+        assertNull(index.getByAuthLevel(AuthenticationScriptUsageType.INTERACTIVE, 5));
+        assertNull(index.getByAuthLevel(AuthenticationScriptUsageType.SERVICE, 20));
+    }
+
+    @Test
+    public void empty_shouldFindNothing() {
+        AuthenticationScriptIndex index = AuthenticationScriptIndex.EMPTY;
+
+        assertNull(index.getByAcr("otp"));
+        assertNull(index.getDefault(AuthenticationScriptUsageType.INTERACTIVE));
+        assertTrue(index.getScripts(AuthenticationScriptUsageType.INTERACTIVE).isEmpty());
+        assertEquals(index.getAcrValues(), Collections.emptyList());
+    }
+}
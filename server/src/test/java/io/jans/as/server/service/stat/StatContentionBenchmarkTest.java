@@ -0,0 +1,122 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.stat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.agkn.hll.HLL;
+
+/**
+ * Compares throughput of stat reporting under contention: single synchronized HLL and get/put counters
+ * vs striped HLL and LongAdder counters with 4 and 16 threads.
+ * <p>
+ * Not a unit test, it is listed in testng-benchmark.xml. Run with: mvn test -Dbenchmark
+ */
+public class StatContentionBenchmarkTest {
+
+    private static final int OPERATIONS_PER_THREAD = 1_000_000;
+
+    @DataProvider(name = "threads")
+    public Object[][] threads() {
+        return new Object[][]{{4}, {16}};
+    }
+
+    @Test(dataProvider = "threads")
+    public void compare(int threads) throws InterruptedException {
+        for (int warmup = 0; warmup < 2; warmup++) {
+            runHll(threads, false);
+            runHll(threads, true);
+            runCounters(threads, false);
+            runCounters(threads, true);
+        }
+
+        System.out.println("Threads: " + threads + ", operations per thread: " + OPERATIONS_PER_THREAD);
+        System.out.println("synchronized HLL:  " + runHll(threads, false) + "ms");
+        System.out.println("striped HLL:       " + runHll(threads, true) + "ms");
+        System.out.println("get/put counters:  " + runCounters(threads, false) + "ms");
+        System.out.println("LongAdder counters: " + runCounters(threads, true) + "ms");
+    }
+
+    private static long runHll(int threads, boolean striped) throws InterruptedException {
+        final HLL single = new HLL(15, 5);
+        final StripedHll stripes = new StripedHll(15, 5);
+
+        final long took = run(threads, i -> {
+            final long value = ("user" + i).hashCode();
+            if (striped) {
+                stripes.addRaw(value);
+            } else {
+                synchronized (single) {
+                    single.addRaw(value);
+                }
+            }
+        });
+
+        final HLL result = striped ? new HLL(15, 5) : single;
+        if (striped) {
+            stripes.unionInto(result);
+        }
+        System.out.println("  cardinality: " + result.cardinality());
+        return took;
+    }
+
+    private static long runCounters(int threads, boolean adder) throws InterruptedException {
+        final ConcurrentMap<String, Map<String, Long>> plain = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> adders = new ConcurrentHashMap<>();
+
+        final long took = run(threads, i -> {
+            if (adder) {
+                adders.computeIfAbsent("authorization_code", k -> new ConcurrentHashMap<>())
+                        .computeIfAbsent("access_token", k -> new LongAdder()).increment();
+            } else {
+                final Map<String, Long> map = plain.computeIfAbsent("authorization_code", k -> new ConcurrentHashMap<>());
+                final Long counter = map.get("access_token");
+                map.put("access_token", counter == null ? 1L : counter + 1);
+            }
+        });
+
+        final long count = adder ? adders.get("authorization_code").get("access_token").sum() : plain.get("authorization_code").get("access_token");
+        System.out.println("  counted: " + count + " of " + (long) threads * OPERATIONS_PER_THREAD);
+        return took;
+    }
+
+    private static long run(int threads, Operation operation) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * OPERATIONS_PER_THREAD;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        operation.execute(offset + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        final long startTime = System.currentTimeMillis();
+        start.countDown();
+        done.await();
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private interface Operation {
+        void execute(int i);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Janssen Project software is available under the Apache License (2004). See http://www.apache.org/licenses/ for full text.
+ *
+ * Copyright (c) 2020, Janssen Project
+ */
+
+package io.jans.as.server.service.token;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+
+import io.jans.as.server.model.ldap.TokenLdap;
+
+public class TokenIndexServiceTest {
+
+    private static final long NOW = 1600000000000L;
+
+    private static TokenLdap token(String hash) {
+        TokenLdap token = new TokenLdap();
+        token.setTokenCode(hash);
+        token.setDn("tknCde=" + hash + ",ou=tokens,o=jans");
+        return token;
+    }
+
+    private static Set<String> hashes(List<TokenLdap> tokens) {
+        Set<String> result = new HashSet<>();
+        for (TokenLdap token : tokens) {
+            result.add(token.getTokenCode());
+        }
+        return result;
+    }
+
+    @Test
+    public void concurrentUpdate_lostHash_shouldBeFoundBySearch() {
+        // both nodes read {h1} from shared cache, node A puts {h1,h2}, then node B puts {h1,h3}
+        final TokenIndexService.Entry stored = TokenIndexService.Entry.add(null, "h1", NOW + 1000, NOW);
+        final TokenIndexService.Entry nodeA = TokenIndexService.Entry.add(stored, "h2", NOW + 1000, NOW);
+        final TokenIndexService.Entry nodeB = TokenIndexService.Entry.add(stored, "h3", NOW + 1000, NOW);
+        assertEquals(nodeA.getHashes(), Sets.newHashSet("h1", "h2"));
+        assertFalse(nodeB.getHashes().contains("h2")); // last writer wins, h2 is lost
+
+        // h2 is persisted, h3 is still in write-behind queue of node B
+        final List<TokenLdap> found = new ArrayList<>(Arrays.asList(token("h1"), token("h2")));
+        final List<Set<String>> loaded = new ArrayList<>();
+        final List<TokenLdap> result = TokenIndexService.merge(found, nodeB.getHashes(), missing -> {
+            loaded.add(missing);
+            return Collections.singletonList(token("h3"));
+        });
+
+        assertEquals(hashes(result), Sets.newHashSet("h1", "h2", "h3"));
+        assertEquals(loaded, Collections.singletonList(Collections.singleton("h3")));
+    }
+
+    @Test
+    public void merge_allIndexedTokensFound_shouldNotLoad() {
+        final List<TokenLdap> found = new ArrayList<>(Arrays.asList(token("h1"), token("h2")));
+
+        final List<TokenLdap> result = TokenIndexService.merge(found, Sets.newHashSet("h1", "h2"), missing -> {
+            throw new AssertionError("Nothing to load");
+        });
+
+        assertSame(result, found);
+        assertEquals(result.size(), 2);
+    }
+
+    @Test
+    public void merge_noIndexEntry_shouldReturnSearchResult() {
+        final List<TokenLdap> found = new ArrayList<>(Collections.singletonList(token("h1")));
+
+        assertEquals(hashes(TokenIndexService.merge(found, null, missing -> {
+            throw new AssertionError("Nothing to load");
+        })), Collections.singleton("h1"));
+    }
+
+    @Test
+    public void add_expiredEntry_shouldStartNewEntry() {
+        final TokenIndexService.Entry expired = TokenIndexService.Entry.add(null, "h1", NOW - 1000, NOW - 5000);
+
+        final TokenIndexService.Entry entry = TokenIndexService.Entry.add(expired, "h2", NOW + 1000, NOW);
+
+        assertEquals(entry.getHashes(), Collections.singleton("h2"));
+        assertEquals(entry.getExpiresAt(), NOW + 1000);
+        assertTrue(expired.getHashes().contains("h1") && expired.getHashes().size() == 1); // copy, not modified
+    }
+}